@@ -2,14 +2,31 @@ package com.bank.customerservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 @EnableEurekaClient
 public class CustomerServiceApplication {
+	// Enough for every bean created at startup, which is only a few thousand steps
+	private static final int STARTUP_STEPS = 10_000;
 
 	public static void main(String[] args) {
-		SpringApplication.run(CustomerServiceApplication.class, args);
+		ConfigurableApplicationContext context = application().run(args);
+		// Training runs for the class data sharing archive only need the classes loaded by startup
+		if (context.getEnvironment().getProperty("customer.startup.exit", Boolean.class, false)) {
+			System.exit(SpringApplication.exit(context));
+		}
+	}
+
+	/**
+	 * The application with its startup steps buffered for the startup report.
+	 */
+	public static SpringApplication application() {
+		SpringApplication application = new SpringApplication(CustomerServiceApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		return application;
 	}
 
 }
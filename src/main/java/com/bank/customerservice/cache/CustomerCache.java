@@ -0,0 +1,135 @@
+package com.bank.customerservice.cache;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-process read-through cache for point lookups, keyed both by id and by document number.
+ * Empty lookups are not cached, so a customer created after a miss is visible right away.
+ * <p>
+ * Lookups for a key that is being loaded wait for that load instead of starting their own, so a
+ * burst of requests for one customer costs a single query. {@code customer.cache.loads} and
+ * {@code customer.cache.coalesced} count queries issued and lookups that joined one in flight.
+ */
+@Component
+public class CustomerCache implements MeterBinder {
+    private final AsyncCache<String, Customer> byId;
+    private final AsyncCache<String, Customer> byDocumentNumber;
+    private final Loads idLoads = new Loads();
+    private final Loads documentNumberLoads = new Loads();
+
+    public CustomerCache(@Value("${customer.cache.maximum-size:100000}") long maximumSize,
+                         @Value("${customer.cache.ttl:5m}") Duration ttl) {
+        this.byId = newCache(maximumSize, ttl);
+        this.byDocumentNumber = newCache(maximumSize, ttl);
+    }
+
+    private static AsyncCache<String, Customer> newCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Mono<Customer> getById(String id, Function<String, Mono<Customer>> loader) {
+        return get(byId, idLoads, id, loader);
+    }
+    public Mono<Customer> getByDocumentNumber(String documentNumber, Function<String, Mono<Customer>> loader) {
+        return get(byDocumentNumber, documentNumberLoads, documentNumber, loader);
+    }
+
+    /**
+     * Returns the entries that are already loaded, without waiting on loads in flight.
+     */
+    public Map<String, Customer> getAllPresentById(Collection<String> ids) {
+        return new HashMap<>(byId.synchronous().getAllPresent(ids));
+    }
+    public Map<String, Customer> getAllPresentByDocumentNumber(Collection<String> documentNumbers) {
+        return new HashMap<>(byDocumentNumber.synchronous().getAllPresent(documentNumbers));
+    }
+
+    private Mono<Customer> get(AsyncCache<String, Customer> cache, Loads loads, String key,
+                               Function<String, Mono<Customer>> loader) {
+        return Mono.defer(() -> {
+            boolean[] started = new boolean[1];
+            CompletableFuture<Customer> value = cache.get(key, (k, executor) -> {
+                started[0] = true;
+                loads.started.increment();
+                return loader.apply(k).toFuture();
+            });
+            if (!started[0] && !value.isDone()) {
+                loads.coalesced.increment();
+            }
+            // Subscribers get a copy so cancelling one request never cancels the shared load
+            return Mono.fromFuture(value.copy());
+        });
+    }
+
+    /**
+     * Replaces both entries with the freshly written document. Loads already in flight for the
+     * old value are detached from the cache and cannot overwrite it.
+     */
+    public void refresh(Customer customer) {
+        CompletableFuture<Customer> value = CompletableFuture.completedFuture(customer);
+        byId.put(customer.getId(), value);
+        if (customer.getDocumentNumber() != null) {
+            byDocumentNumber.put(customer.getDocumentNumber(), value);
+        }
+    }
+    public void evict(String id, String documentNumber) {
+        byId.synchronous().invalidate(id);
+        if (documentNumber != null) {
+            byDocumentNumber.synchronous().invalidate(documentNumber);
+        }
+    }
+    public CacheStats idStats() {
+        return byId.synchronous().stats();
+    }
+    public CacheStats documentNumberStats() {
+        return byDocumentNumber.synchronous().stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId.synchronous(), "customers", Tags.of("key", "id"));
+        CaffeineCacheMetrics.monitor(registry, byDocumentNumber.synchronous(), "customers",
+                Tags.of("key", "documentNumber"));
+        idLoads.bindTo(registry, "id");
+        documentNumberLoads.bindTo(registry, "documentNumber");
+    }
+
+    private static final class Loads {
+        private final LongAdder started = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+
+        void bindTo(MeterRegistry registry, String key) {
+            FunctionCounter.builder("customer.cache.loads", started, LongAdder::sum)
+                    .description("Customer queries issued on a cache miss")
+                    .tag("key", key)
+                    .register(registry);
+            FunctionCounter.builder("customer.cache.coalesced", coalesced, LongAdder::sum)
+                    .description("Cache misses served by joining a query already in flight")
+                    .tag("key", key)
+                    .register(registry);
+        }
+    }
+}
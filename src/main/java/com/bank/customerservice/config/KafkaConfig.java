@@ -0,0 +1,139 @@
+package com.bank.customerservice.config;
+
+import com.bank.customerservice.event.codec.CustomerDeserializer;
+import com.bank.customerservice.event.codec.CustomerEventFormat;
+import com.bank.customerservice.event.codec.CustomerSerializer;
+import com.bank.customerservice.model.customer.Customer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Customer event producer and listener wiring. Serializers are fixed here rather than left to
+ * remote configuration so both ends always agree on the customer codec, and startup fails if
+ * configuration asks for different ones instead of silently ignoring it; batching, linger and
+ * compression can still be tuned per environment. Events are JSON unless
+ * {@code customer.events.format=binary}; Spring's JSON (de)serializers, which deployments set
+ * before the customer codec existed, are replaced with a warning while the format is JSON.
+ * <p>
+ * With {@code customer.kafka.listener.defer} the listener containers are not started with the
+ * context but by {@link com.bank.customerservice.event.DeferredListenerStarter} once the
+ * application is ready, so joining consumer groups stays off the startup path.
+ */
+@Slf4j
+@Configuration
+public class KafkaConfig {
+    public static final String CUSTOMER_LISTENER_FACTORY = "customerListenerContainerFactory";
+    /**
+     * Boot's String defaults and the byte array ones the Spring Cloud Stream Kafka binder sets.
+     */
+    private static final Set<String> DEFAULT_SERIALIZERS = Set.of(StringSerializer.class.getName(),
+            StringDeserializer.class.getName(), ByteArraySerializer.class.getName(),
+            ByteArrayDeserializer.class.getName());
+    private static final Set<String> JSON_SERIALIZERS = Set.of(JsonSerializer.class.getName(),
+            JsonDeserializer.class.getName());
+
+    @Bean
+    public ProducerFactory<String, Customer> customerProducerFactory(
+            KafkaProperties properties,
+            ObjectProvider<DefaultKafkaProducerFactoryCustomizer> customizers,
+            @Value("${customer.events.format:json}") String format,
+            @Value("${customer.events.linger-ms:10}") int lingerMs,
+            @Value("${customer.events.batch-size:65536}") int batchSize,
+            @Value("${customer.events.compression:lz4}") String compression) {
+        CustomerEventFormat eventFormat = CustomerEventFormat.of(format);
+        Map<String, Object> config = properties.buildProducerProperties();
+        requireSerializer(config, ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class, eventFormat);
+        requireSerializer(config, ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, CustomerSerializer.class,
+                eventFormat);
+        requireFormat(config, eventFormat);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        DefaultKafkaProducerFactory<String, Customer> factory = new DefaultKafkaProducerFactory<>(config,
+                new StringSerializer(), new CustomerSerializer(eventFormat));
+        // Boot's customizers add the Micrometer producer listener (kafka.producer.* client metrics)
+        customizers.orderedStream().forEach(customizer -> customizer.customize(factory));
+        return factory;
+    }
+    @Bean
+    public KafkaTemplate<String, Customer> kafkaTemplate(ProducerFactory<String, Customer> customerProducerFactory) {
+        return new KafkaTemplate<>(customerProducerFactory);
+    }
+    @Bean(CUSTOMER_LISTENER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, Customer> customerListenerContainerFactory(
+            KafkaProperties properties, ObjectProvider<DefaultKafkaConsumerFactoryCustomizer> customizers,
+            @Value("${customer.events.format:json}") String format,
+            @Value("${customer.kafka.listener.defer:false}") boolean defer) {
+        CustomerEventFormat eventFormat = CustomerEventFormat.of(format);
+        Map<String, Object> config = properties.buildConsumerProperties();
+        requireSerializer(config, ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                eventFormat);
+        requireSerializer(config, ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, CustomerDeserializer.class,
+                eventFormat);
+        DefaultKafkaConsumerFactory<String, Customer> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                config, new StringDeserializer(), new CustomerDeserializer());
+        customizers.orderedStream().forEach(customizer -> customizer.customize(consumerFactory));
+        ConcurrentKafkaListenerContainerFactory<String, Customer> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setAutoStartup(!defer);
+        return factory;
+    }
+    /**
+     * Fails unless {@code key} is unset, set to {@code expected}, or left at a default that the
+     * factories replace anyway. Spring's JSON (de)serializers are replaced too, with a warning,
+     * while events are JSON.
+     */
+    static void requireSerializer(Map<String, Object> config, String key, Class<?> expected,
+                                  CustomerEventFormat format) {
+        Object configured = config.get(key);
+        if (configured == null) {
+            return;
+        }
+        String name = configured instanceof Class ? ((Class<?>) configured).getName() : configured.toString().trim();
+        if (name.equals(expected.getName()) || DEFAULT_SERIALIZERS.contains(name)) {
+            return;
+        }
+        if (format == CustomerEventFormat.JSON && JSON_SERIALIZERS.contains(name)) {
+            log.warn("{} is set to {}; customer events are read and written as JSON by {} instead, "
+                    + "remove the setting", key, name, expected.getName());
+            return;
+        }
+        throw new IllegalStateException(key + " is set to " + name + ", but customer events are " + format
+                + " and need " + expected.getName() + "; remove the setting");
+    }
+    /**
+     * Fails if the producer properties ask the customer serializer for a different format than
+     * {@code customer.events.format}, as the factory would otherwise let them win.
+     */
+    static void requireFormat(Map<String, Object> config, CustomerEventFormat format) {
+        Object configured = config.get(CustomerSerializer.FORMAT_CONFIG);
+        if (configured != null && CustomerEventFormat.of(configured.toString()) != format) {
+            throw new IllegalStateException(CustomerSerializer.FORMAT_CONFIG + " is set to " + configured
+                    + " in the producer properties, but customer.events.format is " + format
+                    + "; remove the producer setting");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.bank.customerservice.config;
+
+import com.bank.customerservice.event.CustomerCacheInvalidationListener;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans created with the context even when {@code spring.main.lazy-initialization} is on, as in
+ * the {@code fast-start} profile. Kafka listeners are registered when their bean is created, so a
+ * lazy listener would never receive a record.
+ */
+@Configuration
+public class LazyInitializationConfig {
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(CustomerCacheInvalidationListener.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.bank.customerservice.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latency histograms for the timers SLOs are set on: HTTP endpoints
+ * ({@code http.server.requests}), repository methods ({@code spring.data.repository.invocations}),
+ * Mongo commands and Kafka sends. Prometheus derives p99 from the histogram buckets, so
+ * percentiles aggregate correctly across instances.
+ */
+@Configuration
+public class MetricsConfig {
+    static final String REPOSITORY_INVOCATIONS = "spring.data.repository.invocations";
+    private static final List<String> HISTOGRAM_TIMERS = Arrays.asList(
+            "http.server.requests",
+            REPOSITORY_INVOCATIONS,
+            "mongodb.driver.commands",
+            "customer.kafka.send");
+
+    @Bean
+    public MeterFilter latencyHistogramFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!HISTOGRAM_TIMERS.contains(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+    /**
+     * Repository invocations report SUCCESS/ERROR/CANCELED as {@code state}; expose it as
+     * {@code outcome} like the HTTP and Kafka timers so dashboards filter them the same way.
+     */
+    @Bean
+    public MeterFilter repositoryOutcomeTagFilter() {
+        return MeterFilter.renameTag(REPOSITORY_INVOCATIONS, "state", "outcome");
+    }
+}
@@ -0,0 +1,136 @@
+package com.bank.customerservice.config;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Creates the indexes the customer queries rely on. Auto index creation is off by default,
+ * so they are ensured explicitly once the application is ready and before it reports
+ * readiness, as document number uniqueness depends on them. Deployments that ensure them another
+ * way can skip this with {@code customer.mongo.indexes.enabled=false}.
+ */
+@Slf4j
+@Component
+public class MongoIndexConfig {
+    private static final Duration INDEX_TIMEOUT = Duration.ofSeconds(30);
+    private static final String DOCUMENT_NUMBER_UNIQUE = "documentNumber_unique";
+    private static final int DUPLICATES_REPORTED = 100;
+    /**
+     * Listing and paging only read active customers, so their indexes leave soft-deleted ones out
+     * and stay proportional to live customers. Admin reads that include deleted customers page
+     * on {@code _id} or on the full {@code customerType_id} index instead.
+     */
+    private static final PartialIndexFilter ACTIVE_ONLY =
+            PartialIndexFilter.of(Criteria.where("status").is(Customer.STATUS_ACTIVE));
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public MongoIndexConfig(ReactiveMongoTemplate mongoTemplate,
+                            @Value("${customer.mongo.indexes.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        if (!enabled) {
+            return;
+        }
+        ReactiveIndexOperations indexOps = mongoTemplate.indexOps(Customer.class);
+        requireUniqueDocumentNumbers(indexOps);
+        Flux.just(
+                new Index().named(DOCUMENT_NUMBER_UNIQUE)
+                        .on("documentNumber", Sort.Direction.ASC)
+                        .unique(),
+                new Index().named("status_id_active")
+                        .on("status", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .partial(ACTIVE_ONLY),
+                // Also carries the summary fields, so summary projections by type are covered
+                new Index().named("customerType_summary_active")
+                        .on("customerType", Sort.Direction.ASC)
+                        .on("status", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC)
+                        .on("fullName", Sort.Direction.ASC)
+                        .on("isVip", Sort.Direction.ASC)
+                        .on("isPym", Sort.Direction.ASC)
+                        .partial(ACTIVE_ONLY),
+                // Listing and paging by type with includeDeleted, which the partial indexes cannot serve
+                new Index().named("customerType_id")
+                        .on("customerType", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC),
+                // Only customers whose created event is still owed carry a mark
+                new Index().named("outboxMark_markedAt")
+                        .on("outboxMark.markedAt", Sort.Direction.ASC)
+                        .sparse())
+                .concatMap(indexOps::ensureIndex)
+                .doOnNext(name -> log.info("Index {} ensured on customers", name))
+                .blockLast(INDEX_TIMEOUT);
+        ReactiveIndexOperations outboxIndexOps = mongoTemplate.indexOps(OutboxEvent.class);
+        Flux.just(
+                // The relay's read order
+                new Index().named("aggregateId_aggregateVersion_id")
+                        .on("aggregateId", Sort.Direction.ASC)
+                        .on("aggregateVersion", Sort.Direction.ASC)
+                        .on("_id", Sort.Direction.ASC),
+                new Index().named("createdAt")
+                        .on("createdAt", Sort.Direction.ASC))
+                .concatMap(outboxIndexOps::ensureIndex)
+                .doOnNext(name -> log.info("Index {} ensured on the outbox", name))
+                .blockLast(INDEX_TIMEOUT);
+    }
+
+    /**
+     * Legacy data may hold a document number more than once, and the unique index then fails to
+     * build with a bare duplicate key error. Those customers are logged by id and startup stops
+     * with what to do about them. The scan is skipped once the index exists.
+     */
+    private void requireUniqueDocumentNumbers(ReactiveIndexOperations indexOps) {
+        boolean built = Boolean.TRUE.equals(indexOps.getIndexInfo()
+                .any(info -> DOCUMENT_NUMBER_UNIQUE.equals(info.getName()))
+                .block(INDEX_TIMEOUT));
+        if (built) {
+            return;
+        }
+        List<Document> duplicates = findDuplicateDocumentNumbers().collectList().block(INDEX_TIMEOUT);
+        if (duplicates == null || duplicates.isEmpty()) {
+            return;
+        }
+        duplicates.forEach(duplicate -> log.error("Customers {} share a document number", duplicate.get("ids")));
+        throw new IllegalStateException(duplicates.size() + (duplicates.size() == DUPLICATES_REPORTED ? " or more" : "")
+                + " document numbers are held by more than one customer, so index " + DOCUMENT_NUMBER_UNIQUE
+                + " cannot be built. Merge or renumber the customers logged above, then restart.");
+    }
+
+    /**
+     * Document numbers held by more than one customer, each with the ids of the customers holding it.
+     */
+    public Flux<Document> findDuplicateDocumentNumbers() {
+        return mongoTemplate.aggregate(Aggregation.newAggregation(Customer.class,
+                Aggregation.group("documentNumber").count().as("count").push("_id").as("ids"),
+                Aggregation.match(Criteria.where("count").gt(1)),
+                Aggregation.limit(DUPLICATES_REPORTED))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build()), Document.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.bank.customerservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Multi-document transactions used to write a customer and its outbox event atomically, and by
+ * every create, batch and update. They need MongoDB running as a replica set, a single node one
+ * being enough, or a sharded cluster: a standalone server rejects them, so startup fails against
+ * one unless {@code customer.mongo.transactions.check=false}.
+ */
+@Slf4j
+@Configuration
+public class MongoTransactionConfig {
+    private static final Duration CHECK_TIMEOUT = Duration.ofSeconds(30);
+    private final ReactiveMongoDatabaseFactory factory;
+    private final boolean check;
+
+    public MongoTransactionConfig(ReactiveMongoDatabaseFactory factory,
+                                  @Value("${customer.mongo.transactions.check:true}") boolean check) {
+        this.factory = factory;
+        this.check = check;
+    }
+
+    @Bean
+    public ReactiveMongoTransactionManager reactiveTransactionManager() {
+        return new ReactiveMongoTransactionManager(factory);
+    }
+    @Bean
+    public TransactionalOperator transactionalOperator(ReactiveTransactionManager transactionManager) {
+        return TransactionalOperator.create(transactionManager);
+    }
+
+    // Before the indexes, so a standalone server is reported as such rather than by a later write
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void requireTransactions() {
+        if (!check) {
+            return;
+        }
+        Document server = factory.getMongoDatabase()
+                .flatMap(database -> Mono.from(database.runCommand(new Document("isMaster", 1))))
+                .block(CHECK_TIMEOUT);
+        if (server == null || !supportsTransactions(server)) {
+            throw new IllegalStateException("MongoDB is a standalone server, but customer writes use "
+                    + "multi-document transactions; run it as a replica set (a single node one is enough) "
+                    + "or a sharded cluster");
+        }
+        log.info("MongoDB supports transactions ({})", server.containsKey("setName")
+                ? "replica set " + server.getString("setName") : "sharded cluster");
+    }
+
+    /**
+     * Whether the {@code isMaster} reply comes from a replica set member or a mongos router.
+     */
+    static boolean supportsTransactions(Document isMaster) {
+        return isMaster.containsKey("setName") || "isdbgrid".equals(isMaster.getString("msg"));
+    }
+}
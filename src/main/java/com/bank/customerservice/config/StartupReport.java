@@ -0,0 +1,187 @@
+package com.bank.customerservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Logs where startup time went once the application is ready: the beans that took longest to
+ * instantiate, not counting the dependencies created on the way, and the configuration classes,
+ * mostly auto-configurations, whose beans took longest in total.
+ * <p>
+ * Startup steps are only recorded when the application is started by
+ * {@link com.bank.customerservice.CustomerServiceApplication#application()}. The buffer is
+ * drained once reported, so it does not outlive startup.
+ */
+@Slf4j
+@Component
+public class StartupReport {
+    static final String INSTANTIATE_STEP = "spring.beans.instantiate";
+    static final String APPLICATION_GROUP = "(application)";
+    static final String OTHER_GROUP = "(other)";
+    private static final String APPLICATION_PACKAGE = "com.bank.customerservice.";
+    private final ConfigurableApplicationContext context;
+    private final int top;
+    private Breakdown breakdown;
+
+    public StartupReport(ConfigurableApplicationContext context, @Value("${customer.startup.report.top:10}") int top) {
+        this.context = context;
+        this.top = top;
+    }
+
+    // After the readiness work that creates beans, but before an import takes over the process
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        if (!(context.getApplicationStartup() instanceof BufferingApplicationStartup)) {
+            return;
+        }
+        StartupTimeline timeline = ((BufferingApplicationStartup) context.getApplicationStartup())
+                .drainBufferedTimeline();
+        breakdown = summarize(timeline, context.getBeanFactory());
+        log.info("Started in {} ms\nSlowest beans, own time:{}\nSlowest configurations, total bean time:{}",
+                breakdown.getTotal().toMillis(), format(breakdown.getBeans()),
+                format(breakdown.getConfigurations()));
+    }
+
+    /**
+     * The last breakdown reported, or null if startup steps were not recorded.
+     */
+    public Breakdown getBreakdown() {
+        return breakdown;
+    }
+
+    Breakdown summarize(StartupTimeline timeline, ConfigurableListableBeanFactory beanFactory) {
+        Map<Long, TimelineEvent> steps = new HashMap<>();
+        for (TimelineEvent event : timeline.getEvents()) {
+            steps.put(event.getStartupStep().getId(), event);
+        }
+        // A bean's own time is its instantiation less the beans instantiated within it
+        Map<Long, Duration> ownTimes = new HashMap<>();
+        for (TimelineEvent event : timeline.getEvents()) {
+            if (!isInstantiation(event)) {
+                continue;
+            }
+            long id = event.getStartupStep().getId();
+            ownTimes.merge(id, event.getDuration(), Duration::plus);
+            TimelineEvent parent = instantiatingParent(event, steps);
+            if (parent != null) {
+                ownTimes.merge(parent.getStartupStep().getId(), event.getDuration().negated(), Duration::plus);
+            }
+        }
+        Map<String, Duration> beans = new HashMap<>();
+        Map<String, Duration> configurations = new HashMap<>();
+        ownTimes.forEach((id, ownTime) -> {
+            String beanName = beanName(steps.get(id).getStartupStep());
+            if (beanName != null) {
+                beans.merge(beanName, ownTime, Duration::plus);
+                configurations.merge(configuration(beanName, beanFactory), ownTime, Duration::plus);
+            }
+        });
+        return new Breakdown(Duration.between(timeline.getStartTime(), Instant.now()), slowest(beans),
+                slowest(configurations));
+    }
+    private static boolean isInstantiation(TimelineEvent event) {
+        return INSTANTIATE_STEP.equals(event.getStartupStep().getName());
+    }
+    private static TimelineEvent instantiatingParent(TimelineEvent event, Map<Long, TimelineEvent> steps) {
+        Long parentId = event.getStartupStep().getParentId();
+        while (parentId != null) {
+            TimelineEvent parent = steps.get(parentId);
+            if (parent == null || isInstantiation(parent)) {
+                return parent;
+            }
+            parentId = parent.getStartupStep().getParentId();
+        }
+        return null;
+    }
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The configuration class that declares the bean, or that is the bean, named by its top-level
+     * class so nested configurations count towards their auto-configuration.
+     */
+    static String configuration(String beanName, ConfigurableListableBeanFactory beanFactory) {
+        if (!beanFactory.containsBeanDefinition(beanName)) {
+            return OTHER_GROUP;
+        }
+        BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+        String className = null;
+        if (definition.getFactoryBeanName() != null) {
+            Class<?> factoryType = beanFactory.getType(definition.getFactoryBeanName(), false);
+            className = factoryType != null ? ClassUtils.getUserClass(factoryType).getName() : null;
+        } else if (definition.getBeanClassName() != null && definition.getBeanClassName().contains("Configuration")) {
+            className = definition.getBeanClassName();
+        }
+        if (className != null) {
+            int nested = className.indexOf('$');
+            return ClassUtils.getShortName(nested < 0 ? className : className.substring(0, nested));
+        }
+        String beanClassName = definition.getBeanClassName();
+        return beanClassName != null && beanClassName.startsWith(APPLICATION_PACKAGE) ? APPLICATION_GROUP
+                : OTHER_GROUP;
+    }
+    private Map<String, Duration> slowest(Map<String, Duration> times) {
+        Map<String, Duration> slowest = new LinkedHashMap<>();
+        times.entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue(Comparator.reverseOrder()))
+                .limit(top)
+                .forEach(entry -> slowest.put(entry.getKey(), entry.getValue()));
+        return slowest;
+    }
+    private static String format(Map<String, Duration> times) {
+        StringBuilder lines = new StringBuilder();
+        times.forEach((name, time) -> lines.append(String.format("%n%8d ms  %s", time.toMillis(), name)));
+        return lines.toString();
+    }
+
+    /**
+     * Total startup time and the slowest beans and configurations, slowest first.
+     */
+    public static final class Breakdown {
+        private final Duration total;
+        private final Map<String, Duration> beans;
+        private final Map<String, Duration> configurations;
+
+        Breakdown(Duration total, Map<String, Duration> beans, Map<String, Duration> configurations) {
+            this.total = total;
+            this.beans = beans;
+            this.configurations = configurations;
+        }
+        public Duration getTotal() {
+            return total;
+        }
+        public Map<String, Duration> getBeans() {
+            return beans;
+        }
+        public Map<String, Duration> getConfigurations() {
+            return configurations;
+        }
+    }
+}
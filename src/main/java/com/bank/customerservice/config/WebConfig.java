@@ -0,0 +1,21 @@
+package com.bank.customerservice.config;
+
+import com.bank.customerservice.controller.BaseResponseEncoder;
+import com.bank.customerservice.controller.CustomerController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers {@link BaseResponseEncoder} ahead of the default Jackson encoder for response
+ * envelopes, using the application's configured {@link ObjectMapper}.
+ */
+@Configuration
+public class WebConfig {
+    @Bean
+    public CodecCustomizer baseResponseCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer.customCodecs()
+                .register(new BaseResponseEncoder(objectMapper, CustomerController.CONSTANT_RESPONSES));
+    }
+}
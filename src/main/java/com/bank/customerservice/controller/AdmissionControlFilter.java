@@ -0,0 +1,195 @@
+package com.bank.customerservice.controller;
+
+import com.bank.customerservice.dto.BaseResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rejects customer API requests before they reach a handler, so a client flooding the service
+ * cannot queue work onto Mongo ahead of everyone else.
+ * <p>
+ * Each client gets a token bucket per endpoint ({@code customer.admission.rate} requests per
+ * second, bursts of {@code customer.admission.burst}); an empty bucket answers 429. Clients are
+ * told apart by remote address, or by the {@code X-Client-Id} header on requests that come
+ * from one of the gateways listed in {@code customer.admission.trusted-proxies}, as any other
+ * caller could pick a fresh id per request to get a fresh bucket.
+ * Admitted requests then take one of {@code customer.admission.max-in-flight} slots until their
+ * response completes; with none free the request is shed with 503. As nearly every request
+ * queries Mongo (cache hits return their slot within microseconds), this caps the Mongo
+ * operations in flight without knowing which requests will miss the cache.
+ */
+@Component
+public class AdmissionControlFilter implements WebFilter {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final String API_PREFIX = "/api/customers";
+    private static final Set<String> FIXED_SEGMENTS = Set.of("stats", "search", "lookup", "batch", "export", "import",
+            "document", "type", "vip-pym", "status");
+    private final boolean enabled;
+    private final double tokensPerSecond;
+    private final long burst;
+    private final Set<String> trustedProxies;
+    private final int maxInFlight;
+    private final Cache<String, TokenBucket> buckets;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final byte[] throttledBody;
+    private final byte[] shedBody;
+    private final Counter admitted;
+    private final Counter throttled;
+    private final Counter shed;
+
+    public AdmissionControlFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  @Value("${customer.admission.enabled:true}") boolean enabled,
+                                  @Value("${customer.admission.rate:200}") double tokensPerSecond,
+                                  @Value("${customer.admission.burst:400}") long burst,
+                                  @Value("${customer.admission.max-in-flight:256}") int maxInFlight,
+                                  @Value("${customer.admission.trusted-proxies:}") Set<String> trustedProxies) {
+        this.enabled = enabled;
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.maxInFlight = maxInFlight;
+        this.trustedProxies = trustedProxies;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.throttledBody = body(objectMapper, HttpStatus.TOO_MANY_REQUESTS, "Request rate limit exceeded");
+        this.shedBody = body(objectMapper, HttpStatus.SERVICE_UNAVAILABLE, "Service overloaded, retry later");
+        this.admitted = outcome(meterRegistry, "admitted");
+        this.throttled = outcome(meterRegistry, "throttled");
+        this.shed = outcome(meterRegistry, "shed");
+        Gauge.builder("customer.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Customer API requests being processed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (!enabled || !path.startsWith(API_PREFIX)) {
+            return chain.filter(exchange);
+        }
+        String key = clientOf(request) + ' ' + request.getMethodValue() + ' ' + endpointOf(path);
+        long wait = buckets.get(key, k -> new TokenBucket(tokensPerSecond, burst)).tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            throttled.increment();
+            return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, throttledBody,
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            shed.increment();
+            return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, shedBody, 1);
+        }
+        admitted.increment();
+        return chain.filter(exchange)
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    /**
+     * The path with ids and other values replaced by {@code *}, e.g. {@code /api/customers/*}
+     * or {@code /api/customers/document/*}.
+     */
+    static String endpointOf(String path) {
+        StringBuilder endpoint = new StringBuilder(API_PREFIX);
+        for (String segment : path.substring(API_PREFIX.length()).split("/")) {
+            if (!segment.isEmpty()) {
+                endpoint.append('/').append(FIXED_SEGMENTS.contains(segment) ? segment : "*");
+            }
+        }
+        return endpoint.toString();
+    }
+    private String clientOf(ServerHttpRequest request) {
+        String remote = addressOf(request.getRemoteAddress());
+        String clientId = request.getHeaders().getFirst(CLIENT_ID_HEADER);
+        if (clientId != null && !clientId.isEmpty() && trustedProxies.contains(remote)) {
+            return clientId;
+        }
+        return remote;
+    }
+    private static String addressOf(InetSocketAddress remote) {
+        if (remote == null) {
+            return "unknown";
+        }
+        // Unresolved addresses carry only the host name
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, byte[] body,
+                                     long retryAfterSeconds) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+    private static byte[] body(ObjectMapper objectMapper, HttpStatus status, String message) {
+        try {
+            return objectMapper.writeValueAsBytes(BaseResponse.builder()
+                    .status(status.value())
+                    .message(message)
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("customer.admission.requests")
+                .description("Customer API requests by admission decision")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refills continuously at the configured rate up to the burst size.
+     */
+    static final class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double tokensPerSecond, long capacity) {
+            this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+        /**
+         * Takes a token, returning 0, or returns the nanoseconds until one is available.
+         */
+        synchronized long tryAcquire(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
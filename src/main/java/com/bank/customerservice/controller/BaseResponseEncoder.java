@@ -0,0 +1,107 @@
+package com.bank.customerservice.controller;
+
+import com.bank.customerservice.dto.BaseResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * JSON encoder for {@link BaseResponse} bodies, registered ahead of the default Jackson encoder.
+ * <p>
+ * Constant responses (the same instance returned on every request, such as the 404 body) are
+ * serialized once up front and written by wrapping the cached bytes. Everything else is
+ * generated straight into a buffer from the server's (pooled) buffer factory: the envelope is
+ * written field by field and only {@code data} goes through Jackson, so there is no
+ * intermediate byte array to copy from as with the default encoder.
+ */
+public class BaseResponseEncoder extends AbstractEncoder<BaseResponse<?>> {
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString DATA = new SerializedString("data");
+    private final ObjectMapper objectMapper;
+    private final Map<BaseResponse<?>, byte[]> constants = new IdentityHashMap<>();
+    private final boolean writeNulls;
+
+    public BaseResponseEncoder(ObjectMapper objectMapper, Collection<? extends BaseResponse<?>> constantResponses) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+        JsonInclude.Include inclusion = objectMapper.getSerializationConfig()
+                .getDefaultPropertyInclusion().getValueInclusion();
+        this.writeNulls = inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+        for (BaseResponse<?> response : constantResponses) {
+            try {
+                constants.put(response, objectMapper.writeValueAsBytes(response));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        Class<?> type = elementType.toClass();
+        return BaseResponse.class.isAssignableFrom(type) && super.canEncode(elementType, mimeType);
+    }
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends BaseResponse<?>> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+    }
+    @Override
+    public DataBuffer encodeValue(BaseResponse<?> value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        byte[] constant = constants.get(value);
+        if (constant != null) {
+            return bufferFactory.wrap(constant);
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(INITIAL_BUFFER_SIZE);
+        try {
+            writeTo(buffer, value);
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new EncodingException("JSON encoding error: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+        return buffer;
+    }
+    private void writeTo(DataBuffer buffer, BaseResponse<?> value) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(buffer.asOutputStream(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName(STATUS);
+            generator.writeNumber(value.getStatus());
+            if (value.getMessage() != null || writeNulls) {
+                generator.writeFieldName(MESSAGE);
+                generator.writeString(value.getMessage());
+            }
+            if (value.getData() != null) {
+                generator.writeFieldName(DATA);
+                objectMapper.writeValue(generator, value.getData());
+            } else if (writeNulls) {
+                generator.writeFieldName(DATA);
+                generator.writeNull();
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -1,24 +1,68 @@
 package com.bank.customerservice.controller;
 
 import com.bank.customerservice.dto.BaseResponse;
+import com.bank.customerservice.dto.BatchItemResult;
+import com.bank.customerservice.dto.CustomerLookup;
+import com.bank.customerservice.dto.CustomerLookupRequest;
+import com.bank.customerservice.dto.CustomerPage;
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.importer.CustomerImporter;
 import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerImport;
 import com.bank.customerservice.model.customer.CustomerType;
 import com.bank.customerservice.service.CustomerService;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/customers")
 public class CustomerController {
+    private static final BaseResponse<Customer> CUSTOMER_NOT_FOUND_BODY = BaseResponse.<Customer>builder()
+            .status(HttpStatus.NOT_FOUND.value())
+            .message("Customer not found")
+            .build();
+    private static final BaseResponse<Map<String, Object>> CUSTOMER_FIELDS_NOT_FOUND_BODY =
+            BaseResponse.<Map<String, Object>>builder()
+                    .status(HttpStatus.NOT_FOUND.value())
+                    .message("Customer not found")
+                    .build();
+    /**
+     * Bodies returned as the same instance on every request, which {@link BaseResponseEncoder}
+     * serializes once at startup. They are shared, so never modify them.
+     */
+    public static final List<BaseResponse<?>> CONSTANT_RESPONSES =
+            List.of(CUSTOMER_NOT_FOUND_BODY, CUSTOMER_FIELDS_NOT_FOUND_BODY);
+    private static final Mono<ResponseEntity<BaseResponse<Customer>>> CUSTOMER_NOT_FOUND =
+            Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(CUSTOMER_NOT_FOUND_BODY));
+    private static final Mono<ResponseEntity<BaseResponse<Map<String, Object>>>> CUSTOMER_FIELDS_NOT_FOUND =
+            Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(CUSTOMER_FIELDS_NOT_FOUND_BODY));
+    // Pages are read whole, so a projection asked for alongside paging would be silently dropped
+    private static final String FIELDS_WITH_PAGING = "fields cannot be combined with size or cursor";
+    // Streams always carry every customer, so paging asked of one would be silently ignored
+    private static final String STREAM_WITH_PAGING = "size and cursor cannot be used when streaming";
     private final CustomerService customerService;
+    private final CustomerExportWriter exportWriter;
+    private final CustomerImporter customerImporter;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, CustomerExportWriter exportWriter,
+                              CustomerImporter customerImporter) {
         this.customerService = customerService;
+        this.exportWriter = exportWriter;
+        this.customerImporter = customerImporter;
     }
 
     @PostMapping
@@ -39,9 +83,28 @@ public class CustomerController {
                                 .data(null)
                                 .build())));
     }
-    @GetMapping
-    public Mono<ResponseEntity<BaseResponse<List<Customer>>>> getAllCustomers() {
-        return customerService.getAllCustomers()
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<BaseResponse<List<BatchItemResult>>>> createCustomers(
+        @RequestBody List<Customer> customers) {
+        return customerService.createCustomers(customers)
+                .map(results -> ResponseEntity.ok(
+                        BaseResponse.<List<BatchItemResult>>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customer batch processed")
+                                .data(results)
+                                .build()))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<List<BatchItemResult>>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())));
+    }
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BaseResponse<List<Customer>>>> getAllCustomers(
+        @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return customerService.getAllCustomers(includeDeleted)
                         .collectList()
                         .map(customers -> ResponseEntity.ok(
                                 BaseResponse.<List<Customer>>builder()
@@ -51,44 +114,176 @@ public class CustomerController {
                                     .build()
                         ));
     }
+    @GetMapping(params = "size", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BaseResponse<CustomerPage>>> getCustomersPage(
+        @RequestParam int size, @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return toPageResponse(customerService.getCustomersPage(cursor, size, includeDeleted));
+    }
+    @GetMapping(value = {"", "/type/{type}"}, params = "size",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<BaseResponse<CustomerPage>>> rejectStreamBySize() {
+        return toPageResponse(Mono.error(new IllegalArgumentException(STREAM_WITH_PAGING)));
+    }
+    @GetMapping(value = {"", "/type/{type}"}, params = {"cursor", "!size"},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<BaseResponse<CustomerPage>>> rejectStreamByCursor() {
+        return toPageResponse(Mono.error(new IllegalArgumentException(STREAM_WITH_PAGING)));
+    }
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Customer> streamAllCustomers(@RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return customerService.getAllCustomers(includeDeleted);
+    }
+    /**
+     * The whole collection as gzip compressed NDJSON or CSV, streamed from a Mongo cursor with
+     * backpressure so memory use does not grow with the number of customers.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> exportCustomers(
+        @RequestParam(defaultValue = "NDJSON") CustomerFileFormat format,
+        @RequestParam(defaultValue = "false") boolean includeDeleted, ServerHttpResponse response) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("customers." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(exportWriter.write(customerService.exportCustomers(includeDeleted), format,
+                        response.bufferFactory()));
+    }
+    /**
+     * Imports an NDJSON or CSV file sent as the request body, which is read as it arrives.
+     * Sending the file again under the same {@code importId} resumes an interrupted import.
+     */
+    @PostMapping("/import")
+    public Mono<ResponseEntity<BaseResponse<CustomerImport>>> importCustomers(
+        @RequestParam String importId, @RequestParam(defaultValue = "NDJSON") CustomerFileFormat format,
+        @RequestBody Flux<DataBuffer> content) {
+        return customerImporter.importCustomers(importId, format, content)
+                .map(result -> ResponseEntity.ok(
+                        BaseResponse.<CustomerImport>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customer import completed")
+                                .data(result)
+                                .build()))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<CustomerImport>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())));
+    }
+    @GetMapping("/import/{importId}")
+    public Mono<ResponseEntity<BaseResponse<CustomerImport>>> getCustomerImport(@PathVariable String importId) {
+        return customerImporter.getImport(importId)
+                .map(progress -> ResponseEntity.ok(
+                        BaseResponse.<CustomerImport>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customer import retrieved successfully")
+                                .data(progress)
+                                .build()))
+                .defaultIfEmpty(ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .body(BaseResponse.<CustomerImport>builder()
+                                .status(HttpStatus.NOT_FOUND.value())
+                                .message("Customer import not found")
+                                .build()));
+    }
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<BaseResponse<CustomerStats>>> getCustomerStats() {
+        return customerService.getCustomerStats()
+                .map(stats -> ResponseEntity.ok(
+                        BaseResponse.<CustomerStats>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customer statistics retrieved successfully")
+                                .data(stats)
+                                .build()));
+    }
+    @GetMapping("/search")
+    public Mono<ResponseEntity<BaseResponse<List<Customer>>>> searchCustomers(@RequestParam String q,
+        @RequestParam(defaultValue = "20") int limit) {
+        return customerService.searchCustomers(q, limit)
+                .map(customers -> ResponseEntity.ok(
+                        BaseResponse.<List<Customer>>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customers retrieved successfully")
+                                .data(customers)
+                                .build()))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<List<Customer>>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())));
+    }
     @GetMapping("/{id}")
-    public Mono<ResponseEntity<BaseResponse<Customer>>> getCustomerById(@PathVariable String id) {
-        return customerService.getCustomerById(id)
-                .map(customer -> ResponseEntity.ok(
+    public Mono<ResponseEntity<BaseResponse<Customer>>> getCustomerById(@PathVariable String id,
+        @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return customerService.getCustomerById(id, includeDeleted)
+                .map(customer -> okWithETag(customer).body(
                         BaseResponse.<Customer>builder()
                                 .status(HttpStatus.OK.value())
                                 .message("Customer details retrieved successfully")
                                 .data(customer)
                                 .build()))
-                .switchIfEmpty(Mono.just(ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
-                        .body(BaseResponse.<Customer>builder()
-                                .status(HttpStatus.NOT_FOUND.value())
-                                .message("Customer not found")
+                .switchIfEmpty(CUSTOMER_NOT_FOUND);
+    }
+    @GetMapping(value = "/{id}", params = "fields")
+    public Mono<ResponseEntity<BaseResponse<Map<String, Object>>>> getCustomerFieldsById(@PathVariable String id,
+        @RequestParam String fields, @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return customerService.getCustomerFieldsById(id, fields, includeDeleted)
+                .map(customer -> ResponseEntity.ok(
+                        BaseResponse.<Map<String, Object>>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customer details retrieved successfully")
+                                .data(customer)
+                                .build()))
+                .switchIfEmpty(CUSTOMER_FIELDS_NOT_FOUND)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<Map<String, Object>>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())));
+    }
+    @PostMapping("/lookup")
+    public Mono<ResponseEntity<BaseResponse<CustomerLookup>>> lookupCustomers(
+        @RequestBody CustomerLookupRequest request) {
+        return customerService.lookupCustomers(request)
+                .map(lookup -> ResponseEntity.ok(
+                        BaseResponse.<CustomerLookup>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customers retrieved successfully")
+                                .data(lookup)
+                                .build()))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<CustomerLookup>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
                                 .data(null)
                                 .build())));
     }
     @GetMapping("/document/{documentNumber}")
     public Mono<ResponseEntity<BaseResponse<Customer>>> getCustomerByDocumentNumber(
-        @PathVariable String documentNumber) {
-        return customerService.getCustomerByDocumentNumber(documentNumber)
-                .map(customer -> ResponseEntity.ok(
+        @PathVariable String documentNumber, @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return customerService.getCustomerByDocumentNumber(documentNumber, includeDeleted)
+                .map(customer -> okWithETag(customer).body(
                         BaseResponse.<Customer>builder()
                                 .status(HttpStatus.OK.value())
                                 .message("Customer details retrieved successfully")
                                 .data(customer)
                                 .build()))
-                .switchIfEmpty(Mono.just(ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
-                        .body(BaseResponse.<Customer>builder()
-                                .status(HttpStatus.NOT_FOUND.value())
-                                .message("Customer not found")
-                                .data(null)
-                                .build())));
+                .switchIfEmpty(CUSTOMER_NOT_FOUND);
     }
-    @GetMapping("/type/{type}")
-    public Mono<ResponseEntity<BaseResponse<List<Customer>>>> getCustomerByType(@PathVariable CustomerType type) {
-        return customerService.getCustomerByType(type)
+    @GetMapping(value = "/type/{type}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BaseResponse<List<Customer>>>> getCustomerByType(@PathVariable CustomerType type,
+        @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return customerService.getCustomerByType(type, includeDeleted)
                 .collectList()
                 .map(customers -> ResponseEntity.ok(
                         BaseResponse.<List<Customer>>builder()
@@ -98,56 +293,164 @@ public class CustomerController {
                                 .build()
                 ));
     }
+    @GetMapping(value = "/type/{type}", params = {"fields", "!size"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BaseResponse<List<Map<String, Object>>>>> getCustomerFieldsByType(
+        @PathVariable CustomerType type, @RequestParam String fields, @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return (cursor != null
+                ? Flux.<Map<String, Object>>error(new IllegalArgumentException(FIELDS_WITH_PAGING))
+                : customerService.getCustomerFieldsByType(type, fields, includeDeleted))
+                .collectList()
+                .map(customers -> ResponseEntity.ok(
+                        BaseResponse.<List<Map<String, Object>>>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customers retrieved successfully")
+                                .data(customers)
+                                .build()))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<List<Map<String, Object>>>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())));
+    }
+    @GetMapping(value = "/type/{type}", params = "size", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BaseResponse<CustomerPage>>> getCustomersPageByType(@PathVariable CustomerType type,
+        @RequestParam int size, @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) String fields, @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        if (fields != null) {
+            return toPageResponse(Mono.error(new IllegalArgumentException(FIELDS_WITH_PAGING)));
+        }
+        return toPageResponse(customerService.getCustomersPageByType(type, cursor, size, includeDeleted));
+    }
+    @GetMapping(value = "/type/{type}",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Customer> streamCustomerByType(@PathVariable CustomerType type,
+        @RequestParam(defaultValue = "false") boolean includeDeleted) {
+        return customerService.getCustomerByType(type, includeDeleted);
+    }
     @PutMapping("/{id}")
     public Mono<ResponseEntity<BaseResponse<Customer>>> updateCustomer(@PathVariable String id,
-                                                                       @RequestBody Customer customer) {
-        return customerService.updateCustomer(id, customer)
-                .map(updatedCustomer -> ResponseEntity.ok(
+        @RequestBody Customer customer, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> customerService.updateCustomer(id, customer, expectedVersion(ifMatch)))
+                .map(updatedCustomer -> okWithETag(updatedCustomer).body(
                         BaseResponse.<Customer>builder()
                                 .status(HttpStatus.OK.value())
                                 .message("Customer successfully update")
                                 .data(updatedCustomer)
                                 .build()))
-                .switchIfEmpty(Mono.just(ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
+                .switchIfEmpty(CUSTOMER_NOT_FOUND)
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.PRECONDITION_FAILED)
                         .body(BaseResponse.<Customer>builder()
-                                .status(HttpStatus.NOT_FOUND.value())
-                                .message("Customer not found")
+                                .status(HttpStatus.PRECONDITION_FAILED.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())));
+    }
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<BaseResponse<Customer>>> patchCustomer(@PathVariable String id,
+        @RequestBody Customer customer, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> customerService.patchCustomer(id, customer, expectedVersion(ifMatch)))
+                .map(updatedCustomer -> okWithETag(updatedCustomer).body(
+                        BaseResponse.<Customer>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customer successfully update")
+                                .data(updatedCustomer)
+                                .build()))
+                .switchIfEmpty(CUSTOMER_NOT_FOUND)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<Customer>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.PRECONDITION_FAILED)
+                        .body(BaseResponse.<Customer>builder()
+                                .status(HttpStatus.PRECONDITION_FAILED.value())
+                                .message(e.getMessage())
                                 .data(null)
                                 .build())));
     }
     @DeleteMapping("/{id}")
-    public Mono<ResponseEntity<BaseResponse<Customer>>> deleteCustomer(@PathVariable String id) {
-        return customerService.deleteCustomer(id)
-                .map(updatedCustomer -> ResponseEntity.ok(
+    public Mono<ResponseEntity<BaseResponse<Customer>>> deleteCustomer(@PathVariable String id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> customerService.deleteCustomer(id, expectedVersion(ifMatch)))
+                .map(updatedCustomer -> okWithETag(updatedCustomer).body(
                         BaseResponse.<Customer>builder()
                                 .status(HttpStatus.OK.value())
                                 .message("Customer successfully deleted (soft delete)")
                                 .data(updatedCustomer)
                                 .build()))
-                .switchIfEmpty(Mono.just(ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
+                .switchIfEmpty(CUSTOMER_NOT_FOUND)
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.PRECONDITION_FAILED)
                         .body(BaseResponse.<Customer>builder()
-                                .status(HttpStatus.NOT_FOUND.value())
-                                .message("Customer not found")
+                                .status(HttpStatus.PRECONDITION_FAILED.value())
+                                .message(e.getMessage())
                                 .data(null)
                                 .build())));
     }
     @PutMapping("/{customerId}/vip-pym/status")
     public Mono<ResponseEntity<BaseResponse<Customer>>> updateVipPymStatus(@PathVariable String customerId,
-                                                                           @RequestParam boolean isVipPym) {
-        return customerService.updateVipPymStatus(customerId, isVipPym)
-                .map(updatedCustomer -> ResponseEntity.ok(
+        @RequestParam boolean isVipPym, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Mono.defer(() -> customerService.updateVipPymStatus(customerId, isVipPym, expectedVersion(ifMatch)))
+                .map(updatedCustomer -> okWithETag(updatedCustomer).body(
                         BaseResponse.<Customer>builder()
                                 .status(HttpStatus.OK.value())
                                 .message("Customer successfully update")
                                 .data(updatedCustomer)
                                 .build()))
-                .switchIfEmpty(Mono.just(ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
+                .switchIfEmpty(CUSTOMER_NOT_FOUND)
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.PRECONDITION_FAILED)
                         .body(BaseResponse.<Customer>builder()
-                                .status(HttpStatus.NOT_FOUND.value())
-                                .message("Customer not found")
+                                .status(HttpStatus.PRECONDITION_FAILED.value())
+                                .message(e.getMessage())
+                                .data(null)
+                                .build())));
+    }
+    private static ResponseEntity.BodyBuilder okWithETag(Customer customer) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (customer.getVersion() != null) {
+            builder.eTag("\"" + customer.getVersion() + "\"");
+        }
+        return builder;
+    }
+    /**
+     * Reads the version a write is conditional on from a strong If-Match ETag; absent or
+     * {@code *} means unconditional. Anything else can never match, so it fails the precondition.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        try {
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the precondition failure below
+        }
+        throw new OptimisticLockingFailureException("If-Match does not match the current customer version");
+    }
+    private Mono<ResponseEntity<BaseResponse<CustomerPage>>> toPageResponse(Mono<CustomerPage> page) {
+        return page
+                .map(customerPage -> ResponseEntity.ok(
+                        BaseResponse.<CustomerPage>builder()
+                                .status(HttpStatus.OK.value())
+                                .message("Customers retrieved successfully")
+                                .data(customerPage)
+                                .build()))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(BaseResponse.<CustomerPage>builder()
+                                .status(HttpStatus.BAD_REQUEST.value())
+                                .message(e.getMessage())
                                 .data(null)
                                 .build())));
     }
@@ -0,0 +1,202 @@
+package com.bank.customerservice.controller;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerField;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes a stream of customers as one gzip member of NDJSON or CSV, a chunk of
+ * {@code customer.export.chunk-size} customers at a time.
+ * <p>
+ * Each chunk is compressed into its own buffer from the server's buffer factory and ends with a
+ * sync flush, so it can be sent as soon as it is ready. The next chunk is only read once the
+ * response asks for more, so memory stays at one chunk and the deflater's window whatever the
+ * number of customers.
+ */
+@Component
+public class CustomerExportWriter {
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    private final ObjectWriter objectWriter;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public CustomerExportWriter(ObjectMapper objectMapper, @Value("${customer.export.chunk-size:500}") int chunkSize) {
+        this.objectMapper = objectMapper;
+        // Flushing after every customer would sync flush the deflater and ruin the compression
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.chunkSize = chunkSize;
+    }
+
+    public Flux<DataBuffer> write(Flux<Customer> customers, CustomerFileFormat format,
+                                  DataBufferFactory bufferFactory) {
+        return Flux.using(() -> new Chunks(format, bufferFactory), chunks -> customers.buffer(chunkSize)
+                .map(chunks::encode)
+                .concatWith(Mono.fromCallable(chunks::finish)), Chunks::close);
+    }
+
+    /**
+     * The compression state shared by the chunks of one export. The deflater's output goes to
+     * whichever buffer the current chunk is written into.
+     */
+    private final class Chunks {
+        private final CustomerFileFormat format;
+        private final DataBufferFactory bufferFactory;
+        private final Target target = new Target();
+        private GZIPOutputStream gzip;
+        private JsonGenerator generator;
+        private Writer writer;
+
+        Chunks(CustomerFileFormat format, DataBufferFactory bufferFactory) {
+            this.format = format;
+            this.bufferFactory = bufferFactory;
+        }
+        DataBuffer encode(List<Customer> customers) {
+            return intoBuffer(() -> {
+                for (Customer customer : customers) {
+                    if (format == CustomerFileFormat.NDJSON) {
+                        objectWriter.writeValue(generator, customer);
+                        generator.writeRaw('\n');
+                    } else {
+                        writeCsvRow(customer);
+                    }
+                }
+                flush();
+            });
+        }
+        DataBuffer finish() {
+            return intoBuffer(() -> {
+                flush();
+                gzip.finish();
+            });
+        }
+        void close() {
+            if (gzip != null) {
+                target.out = OutputStream.nullOutputStream();
+                try {
+                    gzip.close();
+                } catch (IOException e) {
+                    // only the deflater's native memory is released here, nothing is written
+                }
+            }
+        }
+        private DataBuffer intoBuffer(Chunk chunk) {
+            DataBuffer buffer = bufferFactory.allocateBuffer(INITIAL_BUFFER_SIZE);
+            target.out = buffer.asOutputStream();
+            try {
+                if (gzip == null) {
+                    start();
+                }
+                chunk.write();
+                return buffer;
+            } catch (IOException e) {
+                DataBufferUtils.release(buffer);
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                DataBufferUtils.release(buffer);
+                throw e;
+            } finally {
+                target.out = null;
+            }
+        }
+        private void start() throws IOException {
+            gzip = new GZIPOutputStream(target, INITIAL_BUFFER_SIZE, true);
+            if (format == CustomerFileFormat.NDJSON) {
+                generator = objectMapper.getFactory().createGenerator(gzip, JsonEncoding.UTF8)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        // lines are separated by the newline written after each customer, not a space
+                        .setRootValueSeparator(null);
+            } else {
+                writer = new OutputStreamWriter(gzip, StandardCharsets.UTF_8);
+                writeCsvHeader();
+            }
+        }
+        private void flush() throws IOException {
+            if (generator != null) {
+                generator.flush();
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            gzip.flush();
+        }
+        private void writeCsvHeader() throws IOException {
+            CustomerField[] fields = CustomerField.values();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(fields[i].getJsonName());
+            }
+            writer.write("\r\n");
+        }
+        private void writeCsvRow(Customer customer) throws IOException {
+            CustomerField[] fields = CustomerField.values();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = fields[i].getValue(customer);
+                if (value != null) {
+                    writeCsvValue(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+        private void writeCsvValue(String value) throws IOException {
+            boolean quoted = false;
+            for (int i = 0; i < value.length() && !quoted; i++) {
+                char c = value.charAt(i);
+                quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quoted) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        void write() throws IOException;
+    }
+
+    /**
+     * Forwards to the buffer of the chunk being written.
+     */
+    private static final class Target extends OutputStream {
+        private OutputStream out;
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+    }
+}
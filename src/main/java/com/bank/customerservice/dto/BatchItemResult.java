@@ -0,0 +1,14 @@
+package com.bank.customerservice.dto;
+
+import com.bank.customerservice.model.customer.Customer;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchItemResult {
+    private int index;
+    private int status;
+    private String message;
+    private Customer data;
+}
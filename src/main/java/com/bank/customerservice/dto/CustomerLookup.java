@@ -0,0 +1,22 @@
+package com.bank.customerservice.dto;
+
+import com.bank.customerservice.model.customer.Customer;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CustomerLookup {
+    private List<Entry> ids;
+    private List<Entry> documentNumbers;
+
+    @Data
+    @Builder
+    public static class Entry {
+        private String key;
+        private boolean found;
+        private Customer data;
+    }
+}
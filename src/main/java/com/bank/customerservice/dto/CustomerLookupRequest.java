@@ -0,0 +1,17 @@
+package com.bank.customerservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerLookupRequest {
+    private List<String> ids;
+    private List<String> documentNumbers;
+}
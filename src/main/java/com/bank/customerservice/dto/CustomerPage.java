@@ -0,0 +1,15 @@
+package com.bank.customerservice.dto;
+
+import com.bank.customerservice.model.customer.Customer;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CustomerPage {
+    private List<Customer> content;
+    private int size;
+    private String nextCursor;
+}
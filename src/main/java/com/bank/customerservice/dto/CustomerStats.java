@@ -0,0 +1,22 @@
+package com.bank.customerservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Customer counts for reporting. {@code byStatus} and {@code total} cover every customer, the
+ * type and VIP/PYM counts active customers only.
+ */
+@Data
+@Builder
+public class CustomerStats {
+    private long total;
+    private Map<String, Long> byStatus;
+    private Map<String, Long> byType;
+    private long vipCount;
+    private long pymCount;
+    private LocalDateTime reconciledAt;
+}
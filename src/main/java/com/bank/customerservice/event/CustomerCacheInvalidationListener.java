@@ -0,0 +1,83 @@
+package com.bank.customerservice.event;
+
+import com.bank.customerservice.cache.CustomerCache;
+import com.bank.customerservice.config.KafkaConfig;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Evicts local cache entries for customers written on any instance, and applies the written
+ * customer to the local search index. Each instance joins its own consumer group so every node
+ * receives every invalidation, and skips the ones it published itself; the cache TTL still
+ * bounds staleness if the broker is unavailable.
+ * <p>
+ * A new group starts at the latest offset, so writes published before the first partition
+ * assignment are never received; {@link #assigned()} lets readers of Mongo wait for it.
+ */
+@Slf4j
+@Service
+public class CustomerCacheInvalidationListener implements ConsumerSeekAware {
+    private final CustomerCache customerCache;
+    private final CustomerSearchIndex searchIndex;
+    private final EventOrigin origin;
+    private final Timer invalidationLag;
+    private final Sinks.Empty<Void> assigned = Sinks.empty();
+
+    public CustomerCacheInvalidationListener(CustomerCache customerCache, CustomerSearchIndex searchIndex,
+                                             EventOrigin origin, MeterRegistry meterRegistry) {
+        this.customerCache = customerCache;
+        this.searchIndex = searchIndex;
+        this.origin = origin;
+        this.invalidationLag = Timer.builder("customer.cache.invalidation.lag")
+                .description("Time from a write being published to its local cache eviction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Completes once partitions were first assigned, replaying to later subscribers. Every write
+     * published after that is received.
+     */
+    public Mono<Void> assigned() {
+        return assigned.asMono();
+    }
+
+    // The container resolves the start positions before calling back, and later rebalances are ignored
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (assigned.tryEmitEmpty().isSuccess()) {
+            log.info("Cache invalidations assigned {}", assignments.keySet());
+        }
+    }
+
+    @KafkaListener(topics = CustomerEventProducer.CACHE_INVALIDATION_TOPIC,
+            containerFactory = KafkaConfig.CUSTOMER_LISTENER_FACTORY,
+            groupId = "${spring.application.name:customer-service}-cache-${random.uuid}")
+    public void onInvalidation(ConsumerRecord<String, Customer> record) {
+        if (origin.isLocal(record.headers())) {
+            // Written here, and already applied to this instance's cache and search index
+            return;
+        }
+        Customer customer = record.value();
+        customerCache.evict(record.key(), customer != null ? customer.getDocumentNumber() : null);
+        if (customer != null && customer.getId() != null) {
+            // Writes from different instances can arrive out of order; the index keeps the newest version
+            searchIndex.put(customer);
+        }
+        invalidationLag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - record.timestamp())));
+        log.debug("Evicted customer {} from local cache", record.key());
+    }
+}
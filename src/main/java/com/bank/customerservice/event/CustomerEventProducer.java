@@ -1,20 +1,93 @@
 package com.bank.customerservice.event;
 
 import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
 @Slf4j
 @Service
 public class CustomerEventProducer {
+    public static final String CACHE_INVALIDATION_TOPIC = "customer-cache-invalidation";
     private final KafkaTemplate<String, Customer> kafkaTemplate;
+    private final KafkaPublishQueue publishQueue;
+    private final EventOrigin origin;
+    private final MeterRegistry meterRegistry;
 
-    public CustomerEventProducer(KafkaTemplate<String, Customer> kafkaTemplate) {
+    public CustomerEventProducer(KafkaTemplate<String, Customer> kafkaTemplate, KafkaPublishQueue publishQueue,
+                                 EventOrigin origin, MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
+        this.publishQueue = publishQueue;
+        this.origin = origin;
+        this.meterRegistry = meterRegistry;
+    }
+    /**
+     * Sends an outbox event keyed by customer id, completing once the broker acknowledges it.
+     * Errors if the publish queue drops the send; the event then stays in the outbox.
+     */
+    public Mono<Void> publish(OutboxEvent event) {
+        return Mono.create(sink -> publishQueue.submit(() -> {
+            try {
+                send(new ProducerRecord<>(event.getTopic(), event.getAggregateId(), event.getPayload()))
+                        .addCallback(result -> sink.success(), sink::error);
+            } catch (RuntimeException e) {
+                sink.error(e);
+            }
+        }, sink::error));
+    }
+    /**
+     * Sends the written customer to every instance, marked with this instance's {@link EventOrigin}.
+     */
+    public void publishCacheInvalidation(Customer customer) {
+        ProducerRecord<String, Customer> record = new ProducerRecord<>(CACHE_INVALIDATION_TOPIC, customer.getId(),
+                customer);
+        record.headers().add(origin.header());
+        publishQueue.submit(() -> {
+            try {
+                send(record)
+                        .addCallback(result -> log.debug("Cache invalidation sent for customer {}", customer.getId()),
+                            ex -> log.error("Failed to send cache invalidation", ex));
+            } catch (RuntimeException e) {
+                log.error("Failed to send cache invalidation", e);
+            }
+        }, ex -> log.warn("Cache invalidation for customer {} dropped", customer.getId()));
+    }
+    /**
+     * Sends and records the time until the broker acknowledges, or the failure, per topic.
+     */
+    private ListenableFuture<SendResult<String, Customer>> send(ProducerRecord<String, Customer> record) {
+        String topic = record.topic();
+        long start = System.nanoTime();
+        ListenableFuture<SendResult<String, Customer>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            recordFailure(topic, start, e);
+            throw e;
+        }
+        future.addCallback(result -> sendTimer(topic, "SUCCESS").record(System.nanoTime() - start,
+                TimeUnit.NANOSECONDS), ex -> recordFailure(topic, start, ex));
+        return future;
+    }
+    private void recordFailure(String topic, long start, Throwable e) {
+        sendTimer(topic, "FAILURE").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("customer.kafka.send.failures", "topic", topic,
+                "exception", e.getClass().getSimpleName()).increment();
     }
-    public void publishCustomerCreated(Customer customer) {
-        kafkaTemplate.send("customer-created", customer.getId(), customer)
-                .addCallback(result -> log.info("Message sent successfully"),
-                    ex -> log.error("Failed to send message", ex));
+    private Timer sendTimer(String topic, String outcome) {
+        return Timer.builder("customer.kafka.send")
+                .description("Time from handing a record to the producer until the broker acknowledges it")
+                .tag("topic", topic)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
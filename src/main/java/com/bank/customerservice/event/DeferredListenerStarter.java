@@ -0,0 +1,40 @@
+package com.bank.customerservice.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the Kafka listener containers left stopped by {@code customer.kafka.listener.defer} once
+ * the application is ready. The local cache starts empty, so it misses nothing published before
+ * then; the search index is only read from Mongo once the invalidation listener has its
+ * partitions, see {@link com.bank.customerservice.search.CustomerSearchIndexLoader}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("customer.kafka.listener.defer")
+public class DeferredListenerStarter {
+    private final KafkaListenerEndpointRegistry registry;
+
+    public DeferredListenerStarter(KafkaListenerEndpointRegistry registry) {
+        this.registry = registry;
+    }
+
+    // After the readiness work that blocks, such as ensuring indexes
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            if (!container.isRunning()) {
+                container.start();
+                log.info("Started deferred Kafka listener {}", container.getListenerId());
+            }
+        }
+    }
+}
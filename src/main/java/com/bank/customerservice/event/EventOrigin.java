@@ -0,0 +1,28 @@
+package com.bank.customerservice.event;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Identifies this instance on the cache invalidations it publishes, in the {@link #HEADER}
+ * record header, so it can skip its own when they come back: it applied those writes locally.
+ */
+@Component
+public class EventOrigin {
+    public static final String HEADER = "customer-event-origin";
+    private final byte[] id = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    public Header header() {
+        return new RecordHeader(HEADER, id);
+    }
+    public boolean isLocal(Headers headers) {
+        Header origin = headers.lastHeader(HEADER);
+        return origin != null && Arrays.equals(origin.value(), id);
+    }
+}
@@ -0,0 +1,112 @@
+package com.bank.customerservice.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off between request threads and {@code KafkaTemplate.send}, which can block for
+ * up to {@code max.block.ms} on metadata fetches or a full producer buffer. Sends run on
+ * dedicated {@code customer-events} threads; callers only enqueue and never wait. When the
+ * queue is full the overflow policy drops either the new task or the oldest queued one, and
+ * the dropped task is told so it can fail its caller.
+ */
+@Slf4j
+@Component
+public class KafkaPublishQueue {
+    public enum OverflowPolicy {
+        DROP_NEWEST, DROP_OLDEST
+    }
+
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+    private final OverflowPolicy overflowPolicy;
+    private final Counter dropped;
+
+    public KafkaPublishQueue(MeterRegistry meterRegistry,
+                             @Value("${customer.events.queue-capacity:10000}") int capacity,
+                             @Value("${customer.events.publisher-threads:1}") int threads,
+                             @Value("${customer.events.overflow-policy:drop-oldest}") String overflowPolicy) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().replace('-', '_')
+                .toUpperCase(Locale.ROOT));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "customer-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (task, pool) -> overflow(task));
+        this.dropped = Counter.builder("customer.events.dropped")
+                .description("Publish tasks dropped because the queue was full")
+                .tag("policy", this.overflowPolicy.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        Gauge.builder("customer.events.queue.depth", queue, BlockingQueue::size)
+                .description("Publish tasks waiting for a customer-events thread")
+                .register(meterRegistry);
+    }
+    /**
+     * Queues {@code send} without blocking. {@code onDropped} runs instead if the overflow
+     * policy discards the task, either now or later when a newer task displaces it.
+     */
+    public void submit(Runnable send, Consumer<RejectedExecutionException> onDropped) {
+        if (executor.isShutdown()) {
+            onDropped.accept(new RejectedExecutionException("Kafka publish queue is shut down"));
+            return;
+        }
+        executor.execute(new Task(send, onDropped));
+    }
+    public int depth() {
+        return queue.size();
+    }
+    private void overflow(Runnable task) {
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST && !executor.isShutdown()) {
+            Runnable oldest = queue.poll();
+            if (oldest != null) {
+                drop(oldest);
+            }
+            if (queue.offer(task)) {
+                return;
+            }
+        }
+        drop(task);
+    }
+    private void drop(Runnable task) {
+        dropped.increment();
+        log.warn("Kafka publish queue full, dropping a task ({})", overflowPolicy);
+        ((Task) task).onDropped.accept(new RejectedExecutionException("Kafka publish queue is full"));
+    }
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow().forEach(this::drop);
+        }
+    }
+
+    private static final class Task implements Runnable {
+        private final Runnable send;
+        private final Consumer<RejectedExecutionException> onDropped;
+
+        Task(Runnable send, Consumer<RejectedExecutionException> onDropped) {
+            this.send = send;
+            this.onDropped = onDropped;
+        }
+        @Override
+        public void run() {
+            send.run();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.customerservice.event;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Time-bound lease that lets a single instance relay the outbox at a time, which keeps
+ * per-customer ordering intact when several instances are running.
+ */
+@Component
+public class OutboxLease {
+    private static final String COLLECTION = "customer_outbox_lease";
+    private static final String LEASE_ID = "customer-outbox-relay";
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Duration duration;
+    private final String owner = UUID.randomUUID().toString();
+
+    public OutboxLease(ReactiveMongoTemplate mongoTemplate,
+                       @Value("${customer.outbox.lease-duration:10s}") Duration duration) {
+        this.mongoTemplate = mongoTemplate;
+        this.duration = duration;
+    }
+
+    /**
+     * Takes or renews the lease; emits false while another live instance holds it.
+     */
+    public Mono<Boolean> acquire() {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = Query.query(Criteria.where("_id").is(LEASE_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(now)));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("expiresAt", now.plus(duration));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, COLLECTION)
+                .map(lease -> owner.equals(lease.getString("owner")))
+                .defaultIfEmpty(false)
+                // The upsert collides on _id when the lease exists and someone else holds it
+                .onErrorReturn(DuplicateKeyException.class, false);
+    }
+}
@@ -0,0 +1,243 @@
+package com.bank.customerservice.event;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the customer outbox to Kafka in batches. Events of one customer are sent one after
+ * the other in version order and a failure holds back that customer's later events until the
+ * next round, while different customers are sent concurrently. Batches are read in customer and
+ * version order rather than by id: ids from different instances, or from hosts whose clocks
+ * disagree, do not follow the order the writes were made in.
+ * <p>
+ * Each round first writes the events still owed for customers whose
+ * {@link com.bank.customerservice.model.outbox.OutboxMark} is older than
+ * {@code customer.outbox.recovery-delay}, as left behind when a bulk write dies before
+ * releasing its marks. The lease is renewed before every batch, so a long drain cannot outlive
+ * it and let another instance relay at the same time.
+ * <p>
+ * An event that still fails after {@code customer.outbox.max-attempts}, such as one that cannot
+ * be serialized or exceeds the record size limit, is parked in
+ * {@value com.bank.customerservice.repository.OutboxEventRepositoryCustomImpl#PARKED_COLLECTION}
+ * so it no longer holds back the events behind it. Failures that pass once the broker or the
+ * publish queue recover never park an event.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    /**
+     * One customer's events by version, then by id for events written without one, such as the
+     * created events of bulk writes, which come first as MongoDB sorts missing values lowest.
+     */
+    public static final Sort RELAY_ORDER = Sort.by(Sort.Direction.ASC, "aggregateId", "aggregateVersion", "id");
+    private final OutboxEventRepository outboxRepository;
+    private final CustomerRepository customerRepository;
+    private final CustomerEventProducer eventProducer;
+    private final OutboxLease lease;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration pollInterval;
+    private final Duration recoveryDelay;
+    private final boolean enabled;
+    private final Counter published;
+    private final Counter failed;
+    private final Counter parked;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private Disposable subscription;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository, CustomerRepository customerRepository,
+                       CustomerEventProducer eventProducer, OutboxLease lease, MeterRegistry meterRegistry,
+                       @Value("${customer.outbox.batch-size:500}") int batchSize,
+                       @Value("${customer.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${customer.outbox.poll-interval:200ms}") Duration pollInterval,
+                       @Value("${customer.outbox.recovery-delay:1m}") Duration recoveryDelay,
+                       @Value("${customer.outbox.relay.enabled:true}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.customerRepository = customerRepository;
+        this.eventProducer = eventProducer;
+        this.lease = lease;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollInterval = pollInterval;
+        this.recoveryDelay = recoveryDelay;
+        this.enabled = enabled;
+        this.published = meterRegistry.counter("customer.outbox.published");
+        this.failed = meterRegistry.counter("customer.outbox.failed");
+        this.parked = Counter.builder("customer.outbox.parked")
+                .description("Events moved out of the outbox after failing max-attempts times")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("customer.outbox.batch")
+                .description("Time to relay one outbox batch")
+                .register(meterRegistry);
+        Gauge.builder("customer.outbox.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest event still waiting in the outbox")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        subscription = Flux.interval(pollInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> lease.acquire()
+                        .filter(Boolean::booleanValue)
+                        .flatMap(held -> recoverMarked().then(drainAll()))
+                        .onErrorResume(e -> {
+                            log.error("Outbox relay round failed", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Relays batches back to back while each one goes out in full and the lease is still held; a
+     * short batch, a failure or a lost lease leaves the rest to the next poll.
+     */
+    Mono<Integer> drainAll() {
+        return drainBatch()
+                .expand(count -> count == batchSize
+                        ? lease.acquire().filter(Boolean::booleanValue).flatMap(held -> drainBatch())
+                        : Mono.empty())
+                .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Writes the events of one batch of customers whose marks were abandoned.
+     *
+     * @return the number of customers whose events were written
+     */
+    Mono<Integer> recoverMarked() {
+        return customerRepository.findOutboxMarkedBefore(LocalDateTime.now().minus(recoveryDelay), batchSize)
+                .collectMultimap(customer -> customer.getOutboxMark().getOwner(), Customer::getId)
+                .flatMapIterable(Map::entrySet)
+                .concatMap(owned -> customerRepository.releaseOutboxMarks(owned.getValue(), owned.getKey()))
+                .count()
+                .map(Long::intValue)
+                .doOnNext(count -> {
+                    if (count > 0) {
+                        log.warn("Wrote the outbox events of {} customers left marked by interrupted writes", count);
+                    }
+                });
+    }
+
+    /**
+     * Relays one batch and removes the events the broker acknowledged.
+     *
+     * @return the number of events sent
+     */
+    Mono<Integer> drainBatch() {
+        long start = System.nanoTime();
+        return outboxRepository.findAllBy(PageRequest.of(0, batchSize, RELAY_ORDER))
+                .collectList()
+                .flatMap(events -> {
+                    if (events.isEmpty()) {
+                        lagMillis.set(0);
+                        return Mono.just(0);
+                    }
+                    Map<String, List<OutboxEvent>> byCustomer = events.stream()
+                            .collect(Collectors.groupingBy(OutboxEvent::getAggregateId, LinkedHashMap::new,
+                                    Collectors.toList()));
+                    return Flux.fromIterable(byCustomer.values())
+                            .flatMap(this::publishInOrder)
+                            .flatMapIterable(sent -> sent)
+                            .map(OutboxEvent::getId)
+                            .collectList()
+                            .flatMap(sentIds -> sentIds.isEmpty()
+                                    ? Mono.just(0)
+                                    : outboxRepository.deleteByIdIn(sentIds).thenReturn(sentIds.size()))
+                            .flatMap(count -> recordLag().thenReturn(count));
+                })
+                .doOnSuccess(count -> batchTimer.record(Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    // The batch is not in creation order, so the oldest event left is looked up by its own index
+    private Mono<Void> recordLag() {
+        return outboxRepository.findFirstByOrderByCreatedAtAsc()
+                .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis())
+                .defaultIfEmpty(0L)
+                .doOnNext(lagMillis::set)
+                .then();
+    }
+
+    private Mono<List<OutboxEvent>> publishInOrder(List<OutboxEvent> events) {
+        List<OutboxEvent> sent = new ArrayList<>();
+        return Flux.fromIterable(events)
+                .concatMap(event -> eventProducer.publish(event)
+                        .doOnSuccess(ack -> {
+                            sent.add(event);
+                            published.increment();
+                        })
+                        .onErrorResume(e -> recordFailure(event, e)))
+                .then()
+                .onErrorResume(e -> Mono.empty())
+                .then(Mono.fromSupplier(() -> sent));
+    }
+
+    private Mono<Void> recordFailure(OutboxEvent event, Throwable e) {
+        failed.increment();
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(e.getMessage());
+        if (event.getAttempts() >= maxAttempts && !isTransient(e)) {
+            parked.increment();
+            log.error("Parked outbox event {} for customer {} after {} attempts", event.getId(),
+                    event.getAggregateId(), event.getAttempts(), e);
+            // Completes, so the customer's later events go out; this one would only ever fail again
+            return outboxRepository.park(event);
+        }
+        log.warn("Outbox event {} for customer {} failed (attempt {})", event.getId(), event.getAggregateId(),
+                event.getAttempts(), e);
+        // Propagate so the customer's later events in this batch are not sent ahead of it
+        return outboxRepository.save(event).then(Mono.error(e));
+    }
+
+    /**
+     * A broker the producer retries against, or a publish queue that is full or shutting down.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException || cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
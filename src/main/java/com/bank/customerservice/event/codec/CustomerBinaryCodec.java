@@ -0,0 +1,207 @@
+package com.bank.customerservice.event.codec;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerType;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of {@link Customer} for Kafka events.
+ * <p>
+ * Layout: magic byte, schema version, a varint bitmask of present fields and flags, then each
+ * present field in declaration order. Strings are varint-length UTF-8, timestamps are UTC epoch
+ * seconds (zig-zag varint) plus nanos, and well known statuses take a single byte. Customer
+ * types are written by ordinal, so new {@link CustomerType} constants must only be appended.
+ */
+public final class CustomerBinaryCodec {
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte SCHEMA_VERSION = 1;
+    private static final int ID = 1;
+    private static final int FULL_NAME = 1 << 1;
+    private static final int DOCUMENT_NUMBER = 1 << 2;
+    private static final int CUSTOMER_TYPE = 1 << 3;
+    private static final int EMAIL = 1 << 4;
+    private static final int PHONE = 1 << 5;
+    private static final int CREATED_AT = 1 << 6;
+    private static final int MODIFIED_AT = 1 << 7;
+    private static final int STATUS = 1 << 8;
+    private static final int VERSION = 1 << 9;
+    private static final int VIP = 1 << 10;
+    private static final int PYM = 1 << 11;
+    private static final String[] KNOWN_STATUSES = {"ACTIVE", "DELETED"};
+    private static final CustomerType[] CUSTOMER_TYPES = CustomerType.values();
+
+    private CustomerBinaryCodec() {
+    }
+    public static byte[] encode(Customer customer) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(SCHEMA_VERSION);
+        out.writeVarLong(presence(customer));
+        out.writeString(customer.getId());
+        out.writeString(customer.getFullName());
+        out.writeString(customer.getDocumentNumber());
+        if (customer.getCustomerType() != null) {
+            out.writeByte((byte) customer.getCustomerType().ordinal());
+        }
+        out.writeString(customer.getEmail());
+        out.writeString(customer.getPhone());
+        out.writeTimestamp(customer.getCreatedAt());
+        out.writeTimestamp(customer.getModifiedAt());
+        if (customer.getStatus() != null) {
+            int code = Arrays.asList(KNOWN_STATUSES).indexOf(customer.getStatus()) + 1;
+            out.writeByte((byte) code);
+            if (code == 0) {
+                out.writeString(customer.getStatus());
+            }
+        }
+        if (customer.getVersion() != null) {
+            out.writeVarLong(zigZag(customer.getVersion()));
+        }
+        return out.toByteArray();
+    }
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+    public static Customer decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Not a binary customer payload");
+        }
+        if (data[1] > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported customer schema version " + data[1]);
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data, 2, data.length - 2);
+            int presence = (int) readVarLong(in);
+            Customer.CustomerBuilder customer = Customer.builder()
+                    .isVip((presence & VIP) != 0)
+                    .isPym((presence & PYM) != 0);
+            if ((presence & ID) != 0) {
+                customer.id(readString(in));
+            }
+            if ((presence & FULL_NAME) != 0) {
+                customer.fullName(readString(in));
+            }
+            if ((presence & DOCUMENT_NUMBER) != 0) {
+                customer.documentNumber(readString(in));
+            }
+            if ((presence & CUSTOMER_TYPE) != 0) {
+                customer.customerType(CUSTOMER_TYPES[in.get()]);
+            }
+            if ((presence & EMAIL) != 0) {
+                customer.email(readString(in));
+            }
+            if ((presence & PHONE) != 0) {
+                customer.phone(readString(in));
+            }
+            if ((presence & CREATED_AT) != 0) {
+                customer.createdAt(readTimestamp(in));
+            }
+            if ((presence & MODIFIED_AT) != 0) {
+                customer.modifiedAt(readTimestamp(in));
+            }
+            if ((presence & STATUS) != 0) {
+                int code = in.get();
+                customer.status(code == 0 ? readString(in) : KNOWN_STATUSES[code - 1]);
+            }
+            if ((presence & VERSION) != 0) {
+                customer.version(unZigZag(readVarLong(in)));
+            }
+            return customer.build();
+        } catch (RuntimeException e) {
+            throw new SerializationException("Malformed binary customer payload", e);
+        }
+    }
+    private static int presence(Customer customer) {
+        int presence = 0;
+        presence |= customer.getId() != null ? ID : 0;
+        presence |= customer.getFullName() != null ? FULL_NAME : 0;
+        presence |= customer.getDocumentNumber() != null ? DOCUMENT_NUMBER : 0;
+        presence |= customer.getCustomerType() != null ? CUSTOMER_TYPE : 0;
+        presence |= customer.getEmail() != null ? EMAIL : 0;
+        presence |= customer.getPhone() != null ? PHONE : 0;
+        presence |= customer.getCreatedAt() != null ? CREATED_AT : 0;
+        presence |= customer.getModifiedAt() != null ? MODIFIED_AT : 0;
+        presence |= customer.getStatus() != null ? STATUS : 0;
+        presence |= customer.getVersion() != null ? VERSION : 0;
+        presence |= customer.isVip() ? VIP : 0;
+        presence |= customer.isPym() ? PYM : 0;
+        return presence;
+    }
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Varint too long");
+    }
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+    private static LocalDateTime readTimestamp(ByteBuffer in) {
+        long seconds = unZigZag(readVarLong(in));
+        int nanos = (int) readVarLong(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int size;
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[size++] = value;
+        }
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+        void writeString(String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+        void writeTimestamp(LocalDateTime value) {
+            if (value == null) {
+                return;
+            }
+            writeVarLong(zigZag(value.toEpochSecond(ZoneOffset.UTC)));
+            writeVarLong(value.getNano());
+        }
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.bank.customerservice.event.codec;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads customer events in either format. The format header wins when present; records from
+ * producers that predate it are recognised by the binary magic byte and otherwise read as JSON.
+ */
+public class CustomerDeserializer implements Deserializer<Customer> {
+    private static final ObjectMapper MAPPER = JacksonUtils.enhancedObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public Customer deserialize(String topic, Headers headers, byte[] data) {
+        Header header = headers.lastHeader(CustomerEventFormat.HEADER);
+        if (header == null || data == null) {
+            return deserialize(topic, data);
+        }
+        CustomerEventFormat format = CustomerEventFormat.of(new String(header.value(), StandardCharsets.UTF_8));
+        return format == CustomerEventFormat.BINARY ? CustomerBinaryCodec.decode(data) : readJson(data);
+    }
+    @Override
+    public Customer deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        return CustomerBinaryCodec.isBinary(data) ? CustomerBinaryCodec.decode(data) : readJson(data);
+    }
+    private Customer readJson(byte[] data) {
+        try {
+            return MAPPER.readValue(data, Customer.class);
+        } catch (IOException e) {
+            throw new SerializationException("Can't deserialize customer", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.bank.customerservice.event.codec;
+
+import java.util.Locale;
+
+/**
+ * Wire format of customer event payloads, carried in the {@link #HEADER} record header so
+ * consumers can decode either one.
+ */
+public enum CustomerEventFormat {
+    BINARY, JSON;
+
+    public static final String HEADER = "customer-event-format";
+
+    public static CustomerEventFormat of(String value) {
+        return value == null ? JSON : valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.customerservice.event.codec;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Writes customer events in the configured {@link CustomerEventFormat}, JSON by default as
+ * existing consumers of the topics expect. Binary is opted into with
+ * {@code customer.events.format=binary} once every consumer decodes it.
+ */
+public class CustomerSerializer implements Serializer<Customer> {
+    public static final String FORMAT_CONFIG = "customer.events.format";
+    private static final ObjectMapper MAPPER = JacksonUtils.enhancedObjectMapper();
+    private CustomerEventFormat format;
+    private byte[] formatHeader;
+
+    public CustomerSerializer() {
+        this(CustomerEventFormat.JSON);
+    }
+    public CustomerSerializer(CustomerEventFormat format) {
+        setFormat(format);
+    }
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object value = configs.get(FORMAT_CONFIG);
+        if (value != null) {
+            setFormat(CustomerEventFormat.of(value.toString()));
+        }
+    }
+    @Override
+    public byte[] serialize(String topic, Headers headers, Customer data) {
+        if (data != null) {
+            headers.remove(CustomerEventFormat.HEADER).add(CustomerEventFormat.HEADER, formatHeader);
+        }
+        return serialize(topic, data);
+    }
+    @Override
+    public byte[] serialize(String topic, Customer data) {
+        if (data == null) {
+            return null;
+        }
+        if (format == CustomerEventFormat.BINARY) {
+            return CustomerBinaryCodec.encode(data);
+        }
+        try {
+            return MAPPER.writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Can't serialize customer " + data.getId(), e);
+        }
+    }
+    private void setFormat(CustomerEventFormat format) {
+        this.format = format;
+        this.formatHeader = format.name().getBytes(StandardCharsets.UTF_8);
+    }
+}
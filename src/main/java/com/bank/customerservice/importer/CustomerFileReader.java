@@ -0,0 +1,228 @@
+package com.bank.customerservice.importer;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerField;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses an NDJSON or CSV customer file as it is read, one record per line; CSV values in quotes
+ * may span lines. Only the record being parsed is held in memory.
+ * <p>
+ * A record that cannot be parsed is emitted with its error instead of failing the file, so the
+ * importer can report it and carry on. A CSV header naming an unknown field fails the file.
+ */
+@Component
+public class CustomerFileReader {
+    static final int MAX_RECORD_LENGTH = 1024 * 1024;
+    private static final ResolvableType STRING = ResolvableType.forClass(String.class);
+    private final ObjectMapper objectMapper;
+    private final StringDecoder lineDecoder;
+
+    public CustomerFileReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Split on \n only, so a \r\n inside a quoted CSV value survives the split
+        this.lineDecoder = StringDecoder.textPlainOnly(List.of("\n"), true);
+        this.lineDecoder.setMaxInMemorySize(MAX_RECORD_LENGTH);
+    }
+
+    public Flux<Record> read(Flux<DataBuffer> content, CustomerFileFormat format) {
+        Flux<String> lines = lineDecoder.decode(content, STRING, null, Collections.emptyMap());
+        return Flux.defer(() -> {
+            Parser parser = format == CustomerFileFormat.NDJSON ? new NdjsonParser() : new CsvParser();
+            return lines.<Record>handle(parser)
+                    .concatWith(Mono.fromSupplier(parser::finish));
+        });
+    }
+
+    /**
+     * A customer read from the file, or the reason it could not be read.
+     */
+    public static final class Record {
+        private final long number;
+        private final Customer customer;
+        private final String error;
+
+        private Record(long number, Customer customer, String error) {
+            this.number = number;
+            this.customer = customer;
+            this.error = error;
+        }
+        static Record of(long number, Customer customer) {
+            return new Record(number, customer, null);
+        }
+        static Record invalid(long number, String error) {
+            return new Record(number, null, error);
+        }
+        /**
+         * The record's number in the file, counting from 1 and not counting a CSV header.
+         */
+        public long getNumber() {
+            return number;
+        }
+        public Customer getCustomer() {
+            return customer;
+        }
+        public String getError() {
+            return error;
+        }
+    }
+
+    private abstract static class Parser implements BiConsumer<String, SynchronousSink<Record>> {
+        private boolean started;
+        long records;
+
+        @Override
+        public void accept(String line, SynchronousSink<Record> sink) {
+            if (!started) {
+                started = true;
+                // Files saved by Windows tools often start with a byte order mark
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+            }
+            parse(line, sink);
+        }
+        abstract void parse(String line, SynchronousSink<Record> sink);
+        /**
+         * The record left incomplete at the end of the file, if any.
+         */
+        Record finish() {
+            return null;
+        }
+    }
+
+    private final class NdjsonParser extends Parser {
+        @Override
+        void parse(String line, SynchronousSink<Record> sink) {
+            if (line.isBlank()) {
+                return;
+            }
+            long number = ++records;
+            try {
+                sink.next(Record.of(number, objectMapper.readValue(line, Customer.class)));
+            } catch (JsonProcessingException e) {
+                sink.next(Record.invalid(number, "Malformed JSON: " + e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private final class CsvParser extends Parser {
+        private final StringBuilder pending = new StringBuilder();
+        private List<CustomerField> columns;
+        private boolean inQuotes;
+
+        @Override
+        void parse(String line, SynchronousSink<Record> sink) {
+            if (inQuotes) {
+                pending.append('\n');
+            }
+            pending.append(line);
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == '"') {
+                    inQuotes = !inQuotes;
+                }
+            }
+            if (inQuotes && pending.length() <= MAX_RECORD_LENGTH) {
+                return;
+            }
+            String record = stripCarriageReturn(pending);
+            pending.setLength(0);
+            if (inQuotes) {
+                inQuotes = false;
+                sink.next(Record.invalid(++records, "Quoted value is not closed"));
+            } else if (columns == null) {
+                try {
+                    columns = header(record);
+                } catch (IllegalArgumentException e) {
+                    sink.error(e);
+                }
+            } else if (!record.isEmpty()) {
+                sink.next(toRecord(++records, split(record)));
+            }
+        }
+        @Override
+        Record finish() {
+            return inQuotes ? Record.invalid(++records, "Quoted value is not closed") : null;
+        }
+        private List<CustomerField> header(String record) {
+            List<CustomerField> fields = new ArrayList<>();
+            for (String name : split(record)) {
+                fields.add(CustomerField.of(name.trim()));
+            }
+            return fields;
+        }
+        private Record toRecord(long number, List<String> values) {
+            if (values.size() != columns.size()) {
+                return Record.invalid(number, "Expected " + columns.size() + " values but found " + values.size());
+            }
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                if (!values.get(i).isEmpty()) {
+                    fields.put(columns.get(i).getJsonName(), values.get(i));
+                }
+            }
+            try {
+                // Jackson converts the text to each property's type as it would a JSON string
+                return Record.of(number, objectMapper.convertValue(fields, Customer.class));
+            } catch (IllegalArgumentException e) {
+                return Record.invalid(number, e.getCause() instanceof JsonProcessingException
+                        ? ((JsonProcessingException) e.getCause()).getOriginalMessage()
+                        : e.getMessage());
+            }
+        }
+    }
+
+    private static String stripCarriageReturn(StringBuilder record) {
+        int length = record.length();
+        return length > 0 && record.charAt(length - 1) == '\r'
+                ? record.substring(0, length - 1)
+                : record.toString();
+    }
+
+    /**
+     * Splits a CSV record into its values as RFC 4180 quotes them.
+     */
+    static List<String> split(String record) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
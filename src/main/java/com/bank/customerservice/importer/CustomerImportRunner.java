@@ -0,0 +1,91 @@
+package com.bank.customerservice.importer;
+
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerImport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports the file named by {@code customer.import.file} once the application is ready, then
+ * exits with status 0 if it completed and 1 otherwise, e.g.
+ * {@code java -jar customer-service.jar --customer.import.file=/data/customers.csv.gz}.
+ * <p>
+ * The format is taken from the file extension unless {@code customer.import.format} is set, and
+ * gzip files ending in {@code .gz} are decompressed as they are read. The import id defaults to
+ * the file name, so running the same command again resumes an interrupted import.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("customer.import.file")
+public class CustomerImportRunner {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private final CustomerImporter importer;
+    private final ApplicationContext context;
+    private final Path file;
+    private final String importId;
+    private final String format;
+    private final boolean exit;
+
+    public CustomerImportRunner(CustomerImporter importer, ApplicationContext context,
+                                @Value("${customer.import.file}") Path file,
+                                @Value("${customer.import.id:}") String importId,
+                                @Value("${customer.import.format:}") String format,
+                                @Value("${customer.import.exit:true}") boolean exit) {
+        this.importer = importer;
+        this.context = context;
+        this.file = file;
+        this.importId = importId;
+        this.format = format;
+        this.exit = exit;
+    }
+
+    // After the indexes the upserts rely on are ensured
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        int status = importFile() ? 0 : 1;
+        if (exit) {
+            System.exit(SpringApplication.exit(context, () -> status));
+        }
+    }
+
+    boolean importFile() {
+        String fileName = file.getFileName().toString();
+        try {
+            CustomerFileFormat fileFormat = format.isEmpty()
+                    ? CustomerFileFormat.ofFileName(fileName)
+                    : CustomerFileFormat.valueOf(format.toUpperCase(Locale.ROOT));
+            CustomerImport result = importer.importCustomers(importId.isEmpty() ? fileName : importId, fileFormat,
+                    read()).block();
+            return result != null && CustomerImport.STATE_COMPLETED.equals(result.getState());
+        } catch (RuntimeException e) {
+            log.error("Importing {} failed", file, e);
+            return false;
+        }
+    }
+    private Flux<DataBuffer> read() {
+        DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            return DataBufferUtils.readInputStream(() -> new GZIPInputStream(Files.newInputStream(file),
+                    READ_BUFFER_SIZE), bufferFactory, READ_BUFFER_SIZE);
+        }
+        return DataBufferUtils.read(file, bufferFactory, READ_BUFFER_SIZE);
+    }
+}
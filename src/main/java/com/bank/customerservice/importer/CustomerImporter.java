@@ -0,0 +1,271 @@
+package com.bank.customerservice.importer;
+
+import com.bank.customerservice.event.CustomerEventProducer;
+import com.bank.customerservice.importer.CustomerFileReader.Record;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerImport;
+import com.bank.customerservice.model.outbox.OutboxMark;
+import com.bank.customerservice.repository.CustomerImportRepository;
+import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import com.bank.customerservice.service.CustomerStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Imports customer files of any size, such as migrations from legacy systems.
+ * <p>
+ * Records are validated and written {@code customer.import.batch-size} at a time as unordered
+ * bulk upserts keyed on the document number, so a customer whose document number is already
+ * stored, or appears earlier in the file, is counted as a duplicate instead of being written.
+ * Up to {@code customer.import.parallelism} batches are written concurrently; no more are read
+ * ahead, so memory stays bounded whatever the file size.
+ * <p>
+ * Progress is checkpointed in {@link CustomerImport} after each batch, in file order. Imported
+ * customers are stored with an {@link OutboxMark} owned by the import, and each checkpoint
+ * writes the created events of its batch and clears their marks in the same transaction.
+ * Importing the same file under the id of an interrupted import skips the records before the
+ * checkpoint; batches written after it are written again, and customers still marked by the
+ * import count as created, so their events are written once whatever attempt inserted them.
+ */
+@Slf4j
+@Component
+public class CustomerImporter {
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final long PROGRESS_LOG_INTERVAL = 100_000;
+    private final CustomerFileReader reader;
+    private final CustomerRepository customerRepository;
+    private final CustomerImportRepository importRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final CustomerStatistics statistics;
+    private final CustomerSearchIndex searchIndex;
+    private final CustomerEventProducer eventProducer;
+    private final int batchSize;
+    private final int parallelism;
+    private final Counter created;
+    private final Counter duplicates;
+    private final Counter invalid;
+    private final Counter failed;
+
+    public CustomerImporter(CustomerFileReader reader, CustomerRepository customerRepository,
+                            CustomerImportRepository importRepository, TransactionalOperator transactionalOperator,
+                            CustomerStatistics statistics, CustomerSearchIndex searchIndex,
+                            CustomerEventProducer eventProducer, MeterRegistry meterRegistry,
+                            @Value("${customer.import.batch-size:1000}") int batchSize,
+                            @Value("${customer.import.parallelism:4}") int parallelism) {
+        this.reader = reader;
+        this.customerRepository = customerRepository;
+        this.importRepository = importRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.statistics = statistics;
+        this.searchIndex = searchIndex;
+        this.eventProducer = eventProducer;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.created = outcome(meterRegistry, "created");
+        this.duplicates = outcome(meterRegistry, "duplicate");
+        this.invalid = outcome(meterRegistry, "invalid");
+        this.failed = outcome(meterRegistry, "failed");
+    }
+
+    /**
+     * Imports {@code content}, resuming the import with this id unless it has completed, in
+     * which case the content is not read and the completed import is returned.
+     */
+    public Mono<CustomerImport> importCustomers(String importId, CustomerFileFormat format,
+                                                Flux<DataBuffer> content) {
+        return importRepository.findById(importId)
+                .switchIfEmpty(Mono.fromSupplier(() -> CustomerImport.builder()
+                        .id(importId)
+                        .startedAt(LocalDateTime.now())
+                        .build()))
+                .flatMap(progress -> CustomerImport.STATE_COMPLETED.equals(progress.getState())
+                        ? Mono.just(progress)
+                        : run(progress, format, content));
+    }
+    public Mono<CustomerImport> getImport(String importId) {
+        return importRepository.findById(importId);
+    }
+    private Mono<CustomerImport> run(CustomerImport progress, CustomerFileFormat format, Flux<DataBuffer> content) {
+        progress.setFormat(format);
+        if (progress.getPosition() > 0) {
+            log.info("Resuming import {} after record {}", progress.getId(), progress.getPosition());
+        }
+        return reader.read(content, format)
+                .skip(progress.getPosition())
+                .buffer(batchSize)
+                .flatMapSequential(records -> write(progress.getId(), records), parallelism, 1)
+                .concatMap(batch -> checkpoint(progress, batch))
+                .then(Mono.defer(() -> save(progress, CustomerImport.STATE_COMPLETED)))
+                .doOnNext(completed -> log.info("Import {} completed: {}", completed.getId(), summary(completed)))
+                .onErrorResume(e -> {
+                    log.error("Import {} failed after record {}", progress.getId(), progress.getPosition(), e);
+                    return save(progress, CustomerImport.STATE_FAILED).then(Mono.error(e));
+                });
+    }
+    private Mono<Batch> write(String importId, List<Record> records) {
+        OutboxMark mark = OutboxMark.of(importId);
+        Batch batch = new Batch(records.get(records.size() - 1).getNumber());
+        List<Customer> customers = new ArrayList<>(records.size());
+        List<Long> numbers = new ArrayList<>(records.size());
+        Set<String> documentNumbers = new HashSet<>();
+        for (Record record : records) {
+            String error = record.getError() != null ? record.getError() : validate(record.getCustomer());
+            if (error != null) {
+                batch.invalid++;
+                batch.error(record.getNumber(), error);
+            } else if (!documentNumbers.add(record.getCustomer().getDocumentNumber())) {
+                batch.duplicates++;
+            } else {
+                Customer customer = initImportedCustomer(record.getCustomer());
+                customer.setOutboxMark(mark);
+                customers.add(customer);
+                numbers.add(record.getNumber());
+            }
+        }
+        return customerRepository.upsertAllByDocumentNumber(customers)
+                .map(failures -> complete(batch, customers, numbers, failures));
+    }
+    private Batch complete(Batch batch, List<Customer> customers, List<Long> numbers,
+                                 Map<Integer, Integer> failures) {
+        for (int i = 0; i < customers.size(); i++) {
+            Integer errorCode = failures.get(i);
+            if (errorCode == null) {
+                batch.created.add(customers.get(i));
+            } else if (errorCode == DUPLICATE_KEY_ERROR) {
+                batch.duplicates++;
+            } else {
+                batch.failed++;
+                batch.error(numbers.get(i), "Customer could not be created (error " + errorCode + ")");
+            }
+        }
+        return batch;
+    }
+    private Mono<CustomerImport> checkpoint(CustomerImport progress, Batch batch) {
+        long previous = progress.getPosition();
+        progress.setPosition(batch.position);
+        progress.setCreated(progress.getCreated() + batch.created.size());
+        progress.setDuplicates(progress.getDuplicates() + batch.duplicates);
+        progress.setInvalid(progress.getInvalid() + batch.invalid);
+        progress.setFailed(progress.getFailed() + batch.failed);
+        List<CustomerImport.RecordError> errors = progress.getErrors();
+        for (int i = 0; i < batch.errors.size() && errors.size() < MAX_REPORTED_ERRORS; i++) {
+            errors.add(batch.errors.get(i));
+        }
+        List<String> createdIds = new ArrayList<>(batch.created.size());
+        batch.created.forEach(customer -> createdIds.add(customer.getId()));
+        return customerRepository.releaseOutboxMarks(createdIds, progress.getId())
+                .then(save(progress, CustomerImport.STATE_RUNNING))
+                .as(transactionalOperator::transactional)
+                .doOnNext(saved -> {
+                    for (Customer customer : batch.created) {
+                        customer.setOutboxMark(null);
+                        statistics.recordCreated(customer);
+                        searchIndex.put(customer);
+                        eventProducer.publishCacheInvalidation(customer);
+                    }
+                    created.increment(batch.created.size());
+                    duplicates.increment(batch.duplicates);
+                    invalid.increment(batch.invalid);
+                    failed.increment(batch.failed);
+                    if (previous / PROGRESS_LOG_INTERVAL != batch.position / PROGRESS_LOG_INTERVAL) {
+                        log.info("Import {}: {}", progress.getId(), summary(progress));
+                    }
+                });
+    }
+    private Mono<CustomerImport> save(CustomerImport progress, String state) {
+        progress.setState(state);
+        progress.setUpdatedAt(LocalDateTime.now());
+        return importRepository.save(progress);
+    }
+    private static String summary(CustomerImport progress) {
+        return progress.getPosition() + " records read, " + progress.getCreated() + " created, "
+                + progress.getDuplicates() + " duplicates, " + progress.getInvalid() + " invalid, "
+                + progress.getFailed() + " failed";
+    }
+    /**
+     * Why the customer cannot be imported, or null if it can.
+     */
+    static String validate(Customer customer) {
+        if (customer == null) {
+            return "record is not a customer";
+        }
+        if (isBlank(customer.getFullName())) {
+            return "fullName is required";
+        }
+        if (isBlank(customer.getDocumentNumber())) {
+            return "documentNumber is required";
+        }
+        if (customer.getCustomerType() == null) {
+            return "customerType is required";
+        }
+        if (customer.getEmail() != null && customer.getEmail().indexOf('@') < 1) {
+            return "email is not valid";
+        }
+        if (customer.getStatus() != null && !Customer.STATUS_ACTIVE.equals(customer.getStatus())
+                && !Customer.STATUS_DELETED.equals(customer.getStatus())) {
+            return "status must be " + Customer.STATUS_ACTIVE + " or " + Customer.STATUS_DELETED;
+        }
+        return null;
+    }
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    private static Customer initImportedCustomer(Customer customer) {
+        // Migrated customers keep their creation date and status, when the file has them
+        if (customer.getCreatedAt() == null) {
+            customer.setCreatedAt(LocalDateTime.now());
+        }
+        if (customer.getStatus() == null) {
+            customer.setStatus(Customer.STATUS_ACTIVE);
+        }
+        customer.setVersion(0L);
+        return customer;
+    }
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("customer.import.records")
+                .description("Imported customer records by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The outcome of one batch, ending with record {@code position}.
+     */
+    private static final class Batch {
+        private final long position;
+        private final List<CustomerImport.RecordError> errors = new ArrayList<>();
+        private final List<Customer> created = new ArrayList<>();
+        private long duplicates;
+        private long invalid;
+        private long failed;
+
+        Batch(long position) {
+            this.position = position;
+        }
+        void error(long record, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(CustomerImport.RecordError.builder()
+                        .record(record)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
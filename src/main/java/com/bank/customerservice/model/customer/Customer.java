@@ -1,17 +1,22 @@
 package com.bank.customerservice.model.customer;
 
+import com.bank.customerservice.model.outbox.OutboxMark;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
-import nonapi.io.github.classgraph.json.Id;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "customers")
 public class Customer {
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_DELETED = "DELETED";
     @Id
     private String id;
     private String fullName;
@@ -22,8 +27,13 @@ public class Customer {
     private LocalDateTime createdAt;
     private LocalDateTime modifiedAt;
     private String status;
+    @Version
+    private Long version;
 
     //Only for special profiles
     private boolean isVip;
     private boolean isPym;
+    // Internal bookkeeping of bulk writes, never part of the API or the events
+    @JsonIgnore
+    private OutboxMark outboxMark;
 }
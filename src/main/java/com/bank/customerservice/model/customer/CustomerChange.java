@@ -0,0 +1,14 @@
+package com.bank.customerservice.model.customer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A customer as it was stored right before an update and right after it.
+ */
+@Data
+@AllArgsConstructor
+public class CustomerChange {
+    private Customer before;
+    private Customer after;
+}
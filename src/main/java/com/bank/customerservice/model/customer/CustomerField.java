@@ -0,0 +1,87 @@
+package com.bank.customerservice.model.customer;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Customer fields a client can select with {@code fields=}, by the name they have in the JSON
+ * response. Each maps to the entity property a Mongo projection includes.
+ */
+public enum CustomerField {
+    ID("id", "id", Customer::getId),
+    FULL_NAME("fullName", "fullName", Customer::getFullName),
+    DOCUMENT_NUMBER("documentNumber", "documentNumber", Customer::getDocumentNumber),
+    CUSTOMER_TYPE("customerType", "customerType", Customer::getCustomerType),
+    EMAIL("email", "email", Customer::getEmail),
+    PHONE("phone", "phone", Customer::getPhone),
+    CREATED_AT("createdAt", "createdAt", Customer::getCreatedAt),
+    MODIFIED_AT("modifiedAt", "modifiedAt", Customer::getModifiedAt),
+    STATUS("status", "status", Customer::getStatus),
+    VERSION("version", "version", Customer::getVersion),
+    VIP("vip", "isVip", Customer::isVip),
+    PYM("pym", "isPym", Customer::isPym);
+
+    private final String jsonName;
+    private final String property;
+    private final Function<Customer, Object> accessor;
+
+    CustomerField(String jsonName, String property, Function<Customer, Object> accessor) {
+        this.jsonName = jsonName;
+        this.property = property;
+        this.accessor = accessor;
+    }
+    public String getJsonName() {
+        return jsonName;
+    }
+    public String getProperty() {
+        return property;
+    }
+    public Object getValue(Customer customer) {
+        return accessor.apply(customer);
+    }
+    /**
+     * Parses a comma separated {@code fields=} value, ignoring case and blank entries.
+     *
+     * @throws IllegalArgumentException if a name is not a customer field or none is given
+     */
+    public static Set<CustomerField> parse(String fields) {
+        Set<CustomerField> selected = EnumSet.noneOf(CustomerField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                selected.add(of(trimmed));
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one customer field");
+        }
+        return selected;
+    }
+    /**
+     * The field with the given JSON name, ignoring case.
+     *
+     * @throws IllegalArgumentException if the name is not a customer field
+     */
+    public static CustomerField of(String name) {
+        for (CustomerField field : values()) {
+            if (field.jsonName.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown customer field " + name);
+    }
+    /**
+     * The selected fields of {@code customer} keyed by JSON name, in declaration order.
+     */
+    public static Map<String, Object> project(Customer customer, Collection<CustomerField> fields) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (CustomerField field : fields) {
+            projected.put(field.jsonName, field.getValue(customer));
+        }
+        return projected;
+    }
+}
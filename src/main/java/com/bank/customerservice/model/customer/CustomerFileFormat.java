@@ -0,0 +1,46 @@
+package com.bank.customerservice.model.customer;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * File formats customers are exported to and imported from. CSV files start with a header row
+ * naming a {@link CustomerField} per column.
+ */
+public enum CustomerFileFormat {
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    CustomerFileFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+    public String getExtension() {
+        return extension;
+    }
+    /**
+     * The format a file name's extension stands for, ignoring a trailing {@code .gz}.
+     *
+     * @throws IllegalArgumentException if the extension is not one of the formats
+     */
+    public static CustomerFileFormat ofFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        for (CustomerFileFormat format : values()) {
+            if (name.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown customer file format of " + fileName);
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.customerservice.model.customer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a bulk import, saved after every written batch. {@code position} is the number of
+ * records from the start of the file that have been handled, so an interrupted import resumes
+ * after them when the same file is imported again under the same id.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "customer_imports")
+public class CustomerImport {
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_COMPLETED = "COMPLETED";
+    public static final String STATE_FAILED = "FAILED";
+    @Id
+    private String id;
+    private CustomerFileFormat format;
+    private String state;
+    private long position;
+    private long created;
+    private long duplicates;
+    private long invalid;
+    private long failed;
+    /**
+     * The first rejected records, up to a fixed number.
+     */
+    @Builder.Default
+    private List<RecordError> errors = new ArrayList<>();
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordError {
+        /**
+         * The record's number in the file, counting from 1 and not counting a CSV header.
+         */
+        private long record;
+        private String message;
+    }
+}
@@ -0,0 +1,54 @@
+package com.bank.customerservice.model.outbox;
+
+import com.bank.customerservice.model.customer.Customer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "customer_outbox")
+public class OutboxEvent {
+    @Id
+    private String id;
+    private String aggregateId;
+    /**
+     * The customer's version written with the event, which orders one customer's events
+     * regardless of which instance wrote them; null for customers bulk-created without one.
+     */
+    private Long aggregateVersion;
+    private String topic;
+    private Customer payload;
+    private LocalDateTime createdAt;
+    private int attempts;
+    private String lastError;
+
+    public static OutboxEvent customerCreated(Customer customer) {
+        return of("customer-created", customer);
+    }
+    public static OutboxEvent customerUpdated(Customer customer) {
+        return of("customer-updated", customer);
+    }
+    public static OutboxEvent customerDeleted(Customer customer) {
+        return of("customer-deleted", customer);
+    }
+    public static OutboxEvent customerVipPymChanged(Customer customer) {
+        return of("customer-vip-pym-changed", customer);
+    }
+    private static OutboxEvent of(String topic, Customer customer) {
+        return OutboxEvent.builder()
+                .aggregateId(customer.getId())
+                .aggregateVersion(customer.getVersion())
+                .topic(topic)
+                .payload(customer)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
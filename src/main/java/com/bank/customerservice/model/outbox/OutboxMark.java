@@ -0,0 +1,31 @@
+package com.bank.customerservice.model.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a customer written by a bulk write whose customer-created event is not in the outbox yet.
+ * The mark is written with the customer itself, so it is stored if and only if the customer is;
+ * the event is written and the mark cleared together in one transaction afterwards. Marks left
+ * behind by a crash are picked up by the outbox relay once they are older than
+ * {@code customer.outbox.recovery-delay}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMark {
+    /**
+     * The write that owes the event: a batch request, or an import by its id.
+     */
+    private String owner;
+    private LocalDateTime markedAt;
+
+    public static OutboxMark of(String owner) {
+        return new OutboxMark(owner, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,7 @@
+package com.bank.customerservice.repository;
+
+import com.bank.customerservice.model.customer.CustomerImport;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface CustomerImportRepository extends ReactiveMongoRepository<CustomerImport, String> {
+}
@@ -2,12 +2,32 @@ package com.bank.customerservice.repository;
 
 import com.bank.customerservice.model.customer.Customer;
 import com.bank.customerservice.model.customer.CustomerType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface CustomerRepository extends ReactiveMongoRepository<Customer, String> {
+import java.util.Collection;
+
+/**
+ * The {@code ...Status...} variants back the default, live-customer reads: queried with
+ * {@link Customer#STATUS_ACTIVE} they are served by the partial indexes on active customers.
+ * The others also return soft-deleted customers.
+ */
+public interface CustomerRepository extends ReactiveMongoRepository<Customer, String>, CustomerRepositoryCustom {
+    Flux<Customer> findByStatus(String status);
+    Flux<Customer> findByCustomerTypeAndStatus(CustomerType customerType, String status);
+    Flux<Customer> findByStatus(String status, Pageable pageable);
+    Flux<Customer> findByStatusAndIdGreaterThan(String status, String id, Pageable pageable);
+    Flux<Customer> findByCustomerTypeAndStatus(CustomerType customerType, String status, Pageable pageable);
+    Flux<Customer> findByCustomerTypeAndStatusAndIdGreaterThan(CustomerType customerType, String status, String id,
+                                                               Pageable pageable);
     Flux<Customer> findByCustomerType(CustomerType customerType);
     Mono<Customer> findByDocumentNumber(String documentNumber);
+    Flux<Customer> findByDocumentNumberIn(Collection<String> documentNumbers);
     Mono<Customer> findById(String id);
+    Flux<Customer> findAllBy(Pageable pageable);
+    Flux<Customer> findByIdGreaterThan(String id, Pageable pageable);
+    Flux<Customer> findByCustomerType(CustomerType customerType, Pageable pageable);
+    Flux<Customer> findByCustomerTypeAndIdGreaterThan(CustomerType customerType, String id, Pageable pageable);
 }
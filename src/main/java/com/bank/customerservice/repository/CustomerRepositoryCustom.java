@@ -0,0 +1,95 @@
+package com.bank.customerservice.repository;
+
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerChange;
+import com.bank.customerservice.model.customer.CustomerField;
+import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+public interface CustomerRepositoryCustom {
+    /**
+     * Inserts the customer and the event derived from it in one transaction, so the event is
+     * stored if and only if the customer is.
+     */
+    Mono<Customer> insertWithEvent(Customer customer, Function<Customer, OutboxEvent> event);
+    /**
+     * Inserts all customers in one unordered bulk write, so one rejected document does not stop
+     * the rest. Inserted customers get their generated id assigned. Their events are not written
+     * here: mark the customers with an {@link com.bank.customerservice.model.outbox.OutboxMark}
+     * and call {@link #releaseOutboxMarks} once the write is done.
+     *
+     * @return the Mongo error code of every rejected document, keyed by its index in the input
+     */
+    Mono<Map<Integer, Integer>> insertAllUnordered(List<Customer> customers);
+    /**
+     * Inserts the customers whose document number is not stored yet, in one unordered bulk write
+     * of upserts keyed on the document number. Writing the same customers again inserts nothing,
+     * so a partly written batch can be retried. Inserted customers get their id assigned.
+     * <p>
+     * A customer already stored with the same outbox mark owner was inserted by an earlier
+     * attempt of the same write whose events are still owed, so it is reported as inserted again.
+     *
+     * @return the Mongo error code of every customer not inserted, keyed by its index in the
+     * input; a document number that already exists is reported as a duplicate key error (11000)
+     */
+    Mono<Map<Integer, Integer>> upsertAllByDocumentNumber(List<Customer> customers);
+    /**
+     * Writes the customer-created events of the customers among {@code ids} still marked by
+     * {@code owner}, and clears their marks, in one transaction. A customer whose mark another
+     * writer cleared first makes the transaction fail with a write conflict, so each event is
+     * written exactly once.
+     *
+     * @return the customers whose events were written
+     */
+    Flux<Customer> releaseOutboxMarks(Collection<String> ids, String owner);
+    /**
+     * Customers whose outbox mark was set before {@code markedBefore}, so the write that set it
+     * has most likely died before releasing it.
+     */
+    Flux<Customer> findOutboxMarkedBefore(LocalDateTime markedBefore, int limit);
+    /**
+     * Applies the update server side in a single findAndModify and stores the event derived from
+     * the updated customer in the same transaction. {@code applied} makes the same change to a
+     * copy of the customer as it was, so the updated customer is not read back. When
+     * {@code expectedVersion} is not null the update only applies if the stored version still
+     * matches it.
+     *
+     * @return the customer as it was before and as it is after the update, or empty if no
+     * customer matched
+     */
+    Mono<CustomerChange> findAndModifyById(String id, Long expectedVersion, UpdateDefinition update,
+                                           UnaryOperator<Customer> applied, Function<Customer, OutboxEvent> event);
+    /**
+     * Reads only the given fields of the customer; the others are left unset. A null
+     * {@code status} matches customers in any status.
+     */
+    Mono<Customer> findProjectedById(String id, String status, Collection<CustomerField> fields);
+    /**
+     * Reads only the given fields of the customers of a type. With an active status and fields
+     * out of the summary index (id, fullName, customerType, VIP/PYM flags) the query is covered
+     * and never reads the documents themselves.
+     */
+    Flux<Customer> findProjectedByCustomerType(CustomerType customerType, String status,
+                                               Collection<CustomerField> fields);
+    /**
+     * Reads every customer through one cursor, fetching {@code customer.export.batch-size}
+     * documents per round trip and only as fast as they are consumed. A null {@code status}
+     * matches customers in any status.
+     */
+    Flux<Customer> findAllForExport(String status);
+    /**
+     * Counts customers by status, and active customers by type and VIP/PYM flag, in one pass.
+     */
+    Mono<CustomerStats> aggregateStats();
+}
@@ -0,0 +1,290 @@
+package com.bank.customerservice.repository;
+
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerChange;
+import com.bank.customerservice.model.customer.CustomerField;
+import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import com.bank.customerservice.model.outbox.OutboxMark;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+public class CustomerRepositoryCustomImpl implements CustomerRepositoryCustom {
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final String OUTBOX_MARK_OWNER = "outboxMark.owner";
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TransactionalOperator transactionalOperator;
+    private final int exportBatchSize;
+
+    public CustomerRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate,
+                                        TransactionalOperator transactionalOperator,
+                                        @Value("${customer.export.batch-size:1000}") int exportBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.transactionalOperator = transactionalOperator;
+        this.exportBatchSize = exportBatchSize;
+    }
+
+    @Override
+    public Mono<Customer> insertWithEvent(Customer customer, Function<Customer, OutboxEvent> event) {
+        return mongoTemplate.insert(customer)
+                .flatMap(saved -> mongoTemplate.insert(event.apply(saved)).thenReturn(saved))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<Map<Integer, Integer>> insertAllUnordered(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        List<Document> documents = customers.stream()
+                .map(this::toDocument)
+                .collect(Collectors.toList());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Customer.class))
+                .flatMap(collection -> Mono.from(collection.insertMany(documents,
+                        new InsertManyOptions().ordered(false))))
+                .map(result -> Collections.<Integer, Integer>emptyMap())
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(e.getWriteErrors().stream()
+                        .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getCode))))
+                .doOnNext(failures -> {
+                    for (int i = 0; i < customers.size(); i++) {
+                        if (!failures.containsKey(i)) {
+                            customers.get(i).setId(documents.get(i).get("_id").toString());
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Map<Integer, Integer>> upsertAllByDocumentNumber(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        List<Document> documents = new ArrayList<>(customers.size());
+        List<WriteModel<Document>> upserts = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            Document document = toDocument(customer);
+            // The id is chosen here rather than by the server so inserted customers can be told apart
+            document.putIfAbsent("_id", new ObjectId());
+            documents.add(document);
+            upserts.add(new UpdateOneModel<>(Filters.eq("documentNumber", customer.getDocumentNumber()),
+                    new Document("$setOnInsert", document), new UpdateOptions().upsert(true)));
+        }
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Customer.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(upserts, new BulkWriteOptions().ordered(false))))
+                .map(result -> notInserted(customers.size(), result.getUpserts(), Collections.emptyList()))
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(
+                        notInserted(customers.size(), e.getWriteResult().getUpserts(), e.getWriteErrors())))
+                .flatMap(failures -> insertedEarlier(customers, documents, failures))
+                .doOnNext(failures -> {
+                    for (int i = 0; i < customers.size(); i++) {
+                        if (!failures.containsKey(i)) {
+                            customers.get(i).setId(documents.get(i).get("_id").toString());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Counts customers matched by the upsert as inserted when they carry the same outbox mark
+     * owner, as an earlier attempt of the same write inserted them.
+     */
+    private Mono<Map<Integer, Integer>> insertedEarlier(List<Customer> customers, List<Document> documents,
+                                                         Map<Integer, Integer> failures) {
+        Map<String, Map<String, Integer>> matched = new HashMap<>();
+        failures.forEach((index, errorCode) -> {
+            OutboxMark mark = customers.get(index).getOutboxMark();
+            if (errorCode == DUPLICATE_KEY_ERROR && mark != null) {
+                matched.computeIfAbsent(mark.getOwner(), owner -> new HashMap<>())
+                        .put(customers.get(index).getDocumentNumber(), index);
+            }
+        });
+        if (matched.isEmpty()) {
+            return Mono.just(failures);
+        }
+        return Flux.fromIterable(matched.entrySet())
+                .concatMap(byOwner -> mongoTemplate.find(Query.query(Criteria.where("documentNumber")
+                        .in(byOwner.getValue().keySet())
+                        .and(OUTBOX_MARK_OWNER).is(byOwner.getKey())), Customer.class)
+                        .doOnNext(stored -> {
+                            int index = byOwner.getValue().get(stored.getDocumentNumber());
+                            failures.remove(index);
+                            documents.get(index).put("_id", stored.getId());
+                        }))
+                .then(Mono.just(failures));
+    }
+
+    @Override
+    public Flux<Customer> releaseOutboxMarks(Collection<String> ids, String owner) {
+        Criteria marked = Criteria.where("id").in(ids).and(OUTBOX_MARK_OWNER).is(owner);
+        return mongoTemplate.find(Query.query(marked), Customer.class)
+                .collectList()
+                .filter(customers -> !customers.isEmpty())
+                .flatMapMany(customers -> {
+                    List<String> markedIds = customers.stream()
+                            .map(Customer::getId)
+                            .collect(Collectors.toList());
+                    List<OutboxEvent> events = new ArrayList<>(customers.size());
+                    for (Customer customer : customers) {
+                        customer.setOutboxMark(null);
+                        events.add(OutboxEvent.customerCreated(customer));
+                    }
+                    // Fails on a write conflict if a concurrent release cleared any of these marks first
+                    return mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(markedIds)
+                            .and(OUTBOX_MARK_OWNER).is(owner)), new Update().unset("outboxMark"), Customer.class)
+                            .then(mongoTemplate.insertAll(events).then())
+                            .thenMany(Flux.fromIterable(customers));
+                })
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Flux<Customer> findOutboxMarkedBefore(LocalDateTime markedBefore, int limit) {
+        return mongoTemplate.find(Query.query(Criteria.where("outboxMark.markedAt").lt(markedBefore)).limit(limit),
+                Customer.class);
+    }
+
+    private static Map<Integer, Integer> notInserted(int size, List<BulkWriteUpsert> upserts,
+                                                     List<BulkWriteError> errors) {
+        Set<Integer> inserted = new HashSet<>();
+        upserts.forEach(upsert -> inserted.add(upsert.getIndex()));
+        Map<Integer, Integer> failures = new HashMap<>();
+        errors.forEach(error -> failures.put(error.getIndex(), error.getCode()));
+        for (int i = 0; i < size; i++) {
+            if (!inserted.contains(i)) {
+                // Matched an existing customer, so nothing was written
+                failures.putIfAbsent(i, DUPLICATE_KEY_ERROR);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Mono<CustomerChange> findAndModifyById(String id, Long expectedVersion, UpdateDefinition update,
+                                                  UnaryOperator<Customer> applied,
+                                                  Function<Customer, OutboxEvent> event) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return mongoTemplate.findAndModify(Query.query(criteria), update,
+                FindAndModifyOptions.options().returnNew(false), Customer.class)
+                .map(before -> new CustomerChange(before, applied.apply(before.toBuilder().build())))
+                .flatMap(change -> mongoTemplate.insert(event.apply(change.getAfter())).thenReturn(change))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<Customer> findProjectedById(String id, String status, Collection<CustomerField> fields) {
+        return mongoTemplate.findOne(projected(Criteria.where("id").is(id), status, fields), Customer.class);
+    }
+
+    @Override
+    public Flux<Customer> findProjectedByCustomerType(CustomerType customerType, String status,
+                                                      Collection<CustomerField> fields) {
+        return mongoTemplate.find(projected(Criteria.where("customerType").is(customerType), status, fields),
+                Customer.class);
+    }
+
+    @Override
+    public Flux<Customer> findAllForExport(String status) {
+        Query query = status != null ? Query.query(Criteria.where("status").is(status)) : new Query();
+        return mongoTemplate.find(query.cursorBatchSize(exportBatchSize), Customer.class);
+    }
+
+    @Override
+    public Mono<CustomerStats> aggregateStats() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.facet(Aggregation.group("status").count().as("count")).as("byStatus")
+                        .and(Aggregation.match(Criteria.where("status").is(Customer.STATUS_ACTIVE)),
+                                Aggregation.group("customerType").count().as("count")
+                                        .sum(ConditionalOperators.when("isVip").then(1).otherwise(0)).as("vip")
+                                        .sum(ConditionalOperators.when("isPym").then(1).otherwise(0)).as("pym"))
+                        .as("active"));
+        return mongoTemplate.aggregate(aggregation, Customer.class, Document.class)
+                .next()
+                .map(CustomerRepositoryCustomImpl::toStats);
+    }
+
+    private static CustomerStats toStats(Document counted) {
+        // Customers without a status or type are left out of those breakdowns, as in CustomerStatistics
+        Map<String, Long> byStatus = new TreeMap<>();
+        for (Document group : counted.getList("byStatus", Document.class)) {
+            if (group.get("_id") != null) {
+                byStatus.put(group.get("_id").toString(), count(group, "count"));
+            }
+        }
+        Map<String, Long> byType = new TreeMap<>();
+        long vip = 0;
+        long pym = 0;
+        for (Document group : counted.getList("active", Document.class)) {
+            if (group.get("_id") != null) {
+                byType.put(group.get("_id").toString(), count(group, "count"));
+            }
+            vip += count(group, "vip");
+            pym += count(group, "pym");
+        }
+        return CustomerStats.builder()
+                .total(byStatus.values().stream().mapToLong(Long::longValue).sum())
+                .byStatus(byStatus)
+                .byType(byType)
+                .vipCount(vip)
+                .pymCount(pym)
+                .reconciledAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static long count(Document group, String field) {
+        return ((Number) group.get(field)).longValue();
+    }
+
+    private static Query projected(Criteria criteria, String status, Collection<CustomerField> fields) {
+        if (status != null) {
+            criteria = criteria.and("status").is(status);
+        }
+        Query query = Query.query(criteria);
+        fields.forEach(field -> query.fields().include(field.getProperty()));
+        return query;
+    }
+
+    private Document toDocument(Customer customer) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(customer, document);
+        return document;
+    }
+}
@@ -0,0 +1,16 @@
+package com.bank.customerservice.repository;
+
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface OutboxEventRepository extends ReactiveMongoRepository<OutboxEvent, String>,
+        OutboxEventRepositoryCustom {
+    Flux<OutboxEvent> findAllBy(Pageable pageable);
+    Mono<OutboxEvent> findFirstByOrderByCreatedAtAsc();
+    Mono<Long> deleteByIdIn(Collection<String> ids);
+}
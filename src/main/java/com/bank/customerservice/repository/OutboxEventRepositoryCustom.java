@@ -0,0 +1,12 @@
+package com.bank.customerservice.repository;
+
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import reactor.core.publisher.Mono;
+
+public interface OutboxEventRepositoryCustom {
+    /**
+     * Moves the event from the outbox to the parked collection in one transaction, so it is no
+     * longer relayed but is kept, with its attempts and last error, to be inspected or replayed.
+     */
+    Mono<Void> park(OutboxEvent event);
+}
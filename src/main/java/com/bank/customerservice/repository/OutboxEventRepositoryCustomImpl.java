@@ -0,0 +1,28 @@
+package com.bank.customerservice.repository;
+
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+public class OutboxEventRepositoryCustomImpl implements OutboxEventRepositoryCustom {
+    public static final String PARKED_COLLECTION = "customer_outbox_parked";
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final TransactionalOperator transactionalOperator;
+
+    public OutboxEventRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate,
+                                           TransactionalOperator transactionalOperator) {
+        this.mongoTemplate = mongoTemplate;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    @Override
+    public Mono<Void> park(OutboxEvent event) {
+        return mongoTemplate.save(event, PARKED_COLLECTION)
+                .then(mongoTemplate.remove(Query.query(Criteria.where("id").is(event.getId())), OutboxEvent.class))
+                .then()
+                .as(transactionalOperator::transactional);
+    }
+}
@@ -0,0 +1,493 @@
+package com.bank.customerservice.search;
+
+import com.bank.customerservice.model.customer.Customer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory trigram index over the full name, the local part of the email and the phone digits
+ * of active customers, answering partial and slightly misspelled queries with the ids of the
+ * best matches.
+ * <p>
+ * Each customer gets a dense document number and every trigram a slot in a fixed table of
+ * posting lists, which are plain {@code int} arrays kept sorted by appending: a changed customer
+ * is removed and re-added under a new document number. Removed documents stay in the lists until
+ * they make up a quarter of the index, when it is compacted: the write that crosses that line
+ * rebuilds the lists from a copy of the live documents without holding the lock, so searches and
+ * other writes go on meanwhile, and only swaps the result in, replaying the writes made since.
+ * <p>
+ * A query matches documents sharing enough of its trigrams to be within one edit (each edit
+ * breaks at most three trigrams) per query word of five or more letters, two at most; numbers
+ * must match exactly.
+ * Candidates are drawn only from the shortest posting lists (a document missing from all of them
+ * cannot reach the required count), and at most {@code customer.search.max-candidates} are
+ * scored, so very unselective queries return good matches rather than the best ones. The scan
+ * also ends once {@code limit} documents match every query word at a word start.
+ */
+@Component
+public class CustomerSearchIndex implements MeterBinder {
+    static final int MIN_TOKEN_LENGTH = 3;
+    private static final int FUZZY_TOKEN_LENGTH = 5;
+    private static final int MAX_EDITS = 2;
+    private static final int ALPHABET = 36;
+    private static final int GRAMS = ALPHABET * ALPHABET * ALPHABET;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern PHONE_QUERY = Pattern.compile("[+\\d\\s().-]+");
+    private final int maxCandidates;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<String> removedWhileLoading = new HashSet<>();
+    private final List<Integer> removedWhileCompacting = new ArrayList<>();
+    // Kept for removed customers too, so a late copy of an older version cannot bring one back
+    private final Map<String, Long> versions = new HashMap<>();
+    private Map<String, Integer> documents = new HashMap<>();
+    private int[][] postings = new int[GRAMS][];
+    private int[] postingSizes = new int[GRAMS];
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private int size;
+    private int live;
+    private boolean loading;
+    private boolean compacting;
+
+    public CustomerSearchIndex(@Value("${customer.search.max-candidates:20000}") int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Indexes the customer as written, replacing any earlier version; customers that are not
+     * active are removed. A version older than the one indexed, as when writes made on different
+     * instances arrive out of order, is ignored.
+     */
+    public void put(Customer customer) {
+        Compaction compaction = null;
+        lock.writeLock().lock();
+        try {
+            Long indexed = versions.get(customer.getId());
+            if (indexed != null && versionOf(customer) < indexed) {
+                return;
+            }
+            versions.put(customer.getId(), versionOf(customer));
+            remove(customer.getId());
+            if (Customer.STATUS_ACTIVE.equals(customer.getStatus())) {
+                add(customer);
+            } else if (loading) {
+                removedWhileLoading.add(customer.getId());
+            }
+            if (!compacting && size > INITIAL_CAPACITY && size - live > live / 3) {
+                compaction = beginCompaction();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compaction != null) {
+            compact(compaction);
+        }
+    }
+    /**
+     * Starts the initial load. Until {@link #endLoad()}, {@link #load} never overwrites a
+     * customer written through {@link #put}, whose state is newer than the one being read.
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public void load(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            if (!documents.containsKey(customer.getId()) && !removedWhileLoading.contains(customer.getId())
+                    && Customer.STATUS_ACTIVE.equals(customer.getStatus())) {
+                versions.put(customer.getId(), versionOf(customer));
+                add(customer);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            removedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    /**
+     * Ids of up to {@code limit} customers matching {@code query}, best match first.
+     *
+     * @throws IllegalArgumentException if the query has no run of three letters or digits
+     */
+    public List<String> search(String query, int limit) {
+        String normalized = normalizeQuery(query);
+        String[] tokens = normalized.isEmpty() ? new String[0] : normalized.split(" ");
+        int[] grams = grams(tokens);
+        if (grams.length == 0) {
+            throw new IllegalArgumentException("Search query must contain at least " + MIN_TOKEN_LENGTH
+                    + " consecutive letters or digits");
+        }
+        int allowedEdits = (int) Math.min(MAX_EDITS, Arrays.stream(tokens)
+                .filter(token -> token.length() >= FUZZY_TOKEN_LENGTH && !DIGITS.matcher(token).matches())
+                .count());
+        int minHits = Math.max(1, grams.length - 3 * allowedEdits);
+        lock.readLock().lock();
+        try {
+            return collect(tokens, grams, minHits, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String> collect(String[] tokens, int[] grams, int minHits, int limit) {
+        int[][] lists = new int[grams.length][];
+        int[] lengths = new int[grams.length];
+        Integer[] order = new Integer[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> postingSizes[grams[i]]));
+        for (int i = 0; i < grams.length; i++) {
+            int gram = grams[order[i]];
+            lists[i] = postings[gram] != null ? postings[gram] : new int[0];
+            lengths[i] = postingSizes[gram];
+        }
+        // Any document with minHits of the grams appears in at least one of the shortest
+        // grams.length - minHits + 1 lists; the longer ones are only probed
+        int scanned = grams.length - minHits + 1;
+        int[] positions = new int[grams.length];
+        String[] wordStarts = new String[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            wordStarts[i] = ' ' + tokens[i];
+        }
+        int perfectScore = 10 + 10 * tokens.length;
+        PriorityQueue<Match> best = new PriorityQueue<>(Match.WORST_FIRST);
+        int candidates = 0;
+        // Stops early once limit matches have every token at a word start: later ones can only tie
+        while (candidates < maxCandidates && !(best.size() == limit && best.peek().score == perfectScore)) {
+            int document = Integer.MAX_VALUE;
+            for (int i = 0; i < scanned; i++) {
+                if (positions[i] < lengths[i]) {
+                    document = Math.min(document, lists[i][positions[i]]);
+                }
+            }
+            if (document == Integer.MAX_VALUE) {
+                break;
+            }
+            int hits = 0;
+            for (int i = 0; i < scanned; i++) {
+                if (positions[i] < lengths[i] && lists[i][positions[i]] == document) {
+                    hits++;
+                    positions[i]++;
+                }
+            }
+            if (texts[document] == null) {
+                continue;
+            }
+            candidates++;
+            for (int i = scanned; i < grams.length && hits + grams.length - i >= minHits; i++) {
+                int found = Arrays.binarySearch(lists[i], positions[i], lengths[i], document);
+                if (found >= 0) {
+                    hits++;
+                    positions[i] = found + 1;
+                } else {
+                    positions[i] = -found - 1;
+                }
+            }
+            if (hits >= minHits) {
+                offer(best, new Match(document, score(texts[document], tokens, wordStarts, hits, grams.length),
+                        texts[document].length()), limit);
+            }
+        }
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(Collections.reverseOrder(Match.WORST_FIRST));
+        List<String> result = new ArrayList<>(ranked.size());
+        ranked.forEach(match -> result.add(ids[match.document]));
+        return result;
+    }
+    private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+        if (best.size() < limit) {
+            best.add(match);
+        } else if (Match.WORST_FIRST.compare(match, best.peek()) > 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+    /**
+     * Trigram overlap, plus a bonus for each query token found verbatim, larger when it starts a
+     * word so that prefix matches rank first.
+     */
+    private static int score(String text, String[] tokens, String[] wordStarts, int hits, int grams) {
+        int score = hits * 10 / grams;
+        for (int i = 0; i < tokens.length; i++) {
+            int at = text.indexOf(tokens[i]);
+            if (at == 0 || at > 0 && text.indexOf(wordStarts[i], at - 1) >= 0) {
+                score += 10;
+            } else if (at > 0) {
+                score += 5;
+            }
+        }
+        return score;
+    }
+
+    // Customers created in bulk are stored without a version until their first update sets 1
+    private static long versionOf(Customer customer) {
+        return customer.getVersion() != null ? customer.getVersion() : 0L;
+    }
+    private void add(Customer customer) {
+        index(customer.getId(), text(customer));
+        live++;
+    }
+    private void index(String id, String text) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+        int document = size++;
+        ids[document] = id;
+        texts[document] = text;
+        documents.put(id, document);
+        for (int gram : grams(text.split(" "))) {
+            append(postings, postingSizes, gram, document);
+        }
+    }
+    private void remove(String id) {
+        Integer document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        ids[document] = null;
+        texts[document] = null;
+        live--;
+        if (compacting) {
+            removedWhileCompacting.add(document);
+        }
+    }
+    private static void append(int[][] postings, int[] postingSizes, int gram, int document) {
+        int[] list = postings[gram];
+        int length = postingSizes[gram];
+        if (list == null) {
+            list = new int[4];
+        } else if (length == list.length) {
+            list = Arrays.copyOf(list, length + (length >> 1) + 1);
+        }
+        list[length] = document;
+        postings[gram] = list;
+        postingSizes[gram] = length + 1;
+    }
+    /**
+     * Starts a compaction of the documents indexed so far; the caller holds the write lock.
+     */
+    Compaction beginCompaction() {
+        compacting = true;
+        removedWhileCompacting.clear();
+        return new Compaction(Arrays.copyOf(ids, size), Arrays.copyOf(texts, size), live);
+    }
+    /**
+     * Builds the compacted index without the lock, then swaps it in under the write lock after
+     * replaying the writes made meanwhile: documents removed since are removed from it and
+     * documents added since are added to it.
+     */
+    void compact(Compaction compaction) {
+        try {
+            compaction.build();
+        } catch (RuntimeException | Error e) {
+            lock.writeLock().lock();
+            try {
+                compacting = false;
+                removedWhileCompacting.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            Map<String, Integer> compactedDocuments = compaction.documents;
+            for (int document : removedWhileCompacting) {
+                int renumbered = document < compaction.remap.length ? compaction.remap[document] : -1;
+                if (renumbered >= 0) {
+                    compactedDocuments.remove(compaction.ids[renumbered], renumbered);
+                    compaction.ids[renumbered] = null;
+                    compaction.texts[renumbered] = null;
+                }
+            }
+            String[] addedIds = ids;
+            String[] addedTexts = texts;
+            int added = size;
+            ids = compaction.ids;
+            texts = compaction.texts;
+            size = compaction.size;
+            postings = compaction.postings;
+            postingSizes = compaction.postingSizes;
+            documents = compactedDocuments;
+            for (int document = compaction.remap.length; document < added; document++) {
+                if (addedTexts[document] != null) {
+                    index(addedIds[document], addedTexts[document]);
+                }
+            }
+        } finally {
+            compacting = false;
+            removedWhileCompacting.clear();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * What is searched for a customer: full name words, email local part words and the phone as
+     * one run of digits, separated by single spaces.
+     */
+    static String text(Customer customer) {
+        String email = customer.getEmail() != null ? customer.getEmail() : "";
+        int at = email.indexOf('@');
+        String phone = customer.getPhone() != null ? customer.getPhone().replaceAll("\\D", "") : "";
+        return String.join(" ", normalize(customer.getFullName()), normalize(at >= 0 ? email.substring(0, at) : email),
+                phone).trim().replaceAll(" +", " ");
+    }
+    static String normalizeQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        return PHONE_QUERY.matcher(query).matches() ? query.replaceAll("\\D", "") : normalize(query);
+    }
+    /**
+     * Lower case letters without accents and digits, every other run of characters turned into
+     * a single space.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder normalized = new StringBuilder(stripped.length());
+        boolean separator = false;
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = Character.toLowerCase(stripped.charAt(i));
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                if (separator && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(c);
+                separator = false;
+            } else {
+                separator = true;
+            }
+        }
+        return normalized.toString();
+    }
+    /**
+     * The distinct trigrams of the tokens, each encoded as a base-36 number.
+     */
+    private static int[] grams(String[] tokens) {
+        int[] grams = new int[16];
+        int count = 0;
+        for (String token : tokens) {
+            for (int i = 0; i + MIN_TOKEN_LENGTH <= token.length(); i++) {
+                int gram = (code(token.charAt(i)) * ALPHABET + code(token.charAt(i + 1))) * ALPHABET
+                        + code(token.charAt(i + 2));
+                if (count == grams.length) {
+                    grams = Arrays.copyOf(grams, count * 2);
+                }
+                grams[count++] = gram;
+            }
+        }
+        return Arrays.stream(grams, 0, count).distinct().toArray();
+    }
+    private static int code(char c) {
+        return c <= '9' ? c - '0' + 26 : c - 'a';
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("customer.search.documents", this, CustomerSearchIndex::size)
+                .description("Active customers in the search index")
+                .register(registry);
+    }
+
+    /**
+     * The live documents of a copy of the index, renumbered densely with their posting lists
+     * rebuilt.
+     */
+    static final class Compaction {
+        private final String[] snapshotIds;
+        private final String[] snapshotTexts;
+        private final int[] remap;
+        private final int live;
+        private final Map<String, Integer> documents = new HashMap<>();
+        private final int[][] postings = new int[GRAMS][];
+        private final int[] postingSizes = new int[GRAMS];
+        private String[] ids;
+        private String[] texts;
+        private int size;
+
+        Compaction(String[] snapshotIds, String[] snapshotTexts, int live) {
+            this.snapshotIds = snapshotIds;
+            this.snapshotTexts = snapshotTexts;
+            this.remap = new int[snapshotIds.length];
+            this.live = live;
+        }
+        void build() {
+            ids = new String[Math.max(INITIAL_CAPACITY, live * 2)];
+            texts = new String[ids.length];
+            for (int document = 0; document < snapshotIds.length; document++) {
+                if (snapshotTexts[document] == null) {
+                    remap[document] = -1;
+                    continue;
+                }
+                remap[document] = size;
+                ids[size] = snapshotIds[document];
+                texts[size] = snapshotTexts[document];
+                documents.put(ids[size], size);
+                for (int gram : grams(texts[size].split(" "))) {
+                    append(postings, postingSizes, gram, size);
+                }
+                size++;
+            }
+        }
+    }
+
+    private static final class Match {
+        static final Comparator<Match> WORST_FIRST = Comparator.<Match>comparingInt(match -> match.score)
+                .thenComparing(Comparator.<Match>comparingInt(match -> match.length).reversed())
+                .thenComparing(Comparator.<Match>comparingInt(match -> match.document).reversed());
+        private final int document;
+        private final int score;
+        private final int length;
+
+        Match(int document, int score, int length) {
+            this.document = document;
+            this.score = score;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.bank.customerservice.search;
+
+import com.bank.customerservice.event.CustomerCacheInvalidationListener;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.repository.CustomerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fills {@link CustomerSearchIndex} from the active customers once the application is ready.
+ * Searches made before the load completes only see the customers read so far.
+ * <p>
+ * The cursor is only opened once {@link CustomerCacheInvalidationListener} has its partitions,
+ * so a write is either read from Mongo or received as an invalidation. If the assignment takes
+ * longer than {@code customer.search.load.assignment-timeout} the load goes ahead, and writes
+ * made until the assignment are missing from the index until they are next written.
+ */
+@Slf4j
+@Component
+public class CustomerSearchIndexLoader {
+    private final CustomerRepository customerRepository;
+    private final CustomerSearchIndex searchIndex;
+    private final ObjectProvider<CustomerCacheInvalidationListener> invalidationListener;
+    private final boolean enabled;
+    private final Duration assignmentTimeout;
+    private Disposable subscription;
+
+    public CustomerSearchIndexLoader(CustomerRepository customerRepository, CustomerSearchIndex searchIndex,
+                                     ObjectProvider<CustomerCacheInvalidationListener> invalidationListener,
+                                     @Value("${customer.search.load.enabled:true}") boolean enabled,
+                                     @Value("${customer.search.load.assignment-timeout:30s}")
+                                     Duration assignmentTimeout) {
+        this.customerRepository = customerRepository;
+        this.searchIndex = searchIndex;
+        this.invalidationListener = invalidationListener;
+        this.enabled = enabled;
+        this.assignmentTimeout = assignmentTimeout;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            subscription = load().subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Mono<Void> load() {
+        return invalidationsAssigned().then(Mono.defer(this::read))
+                .onErrorResume(e -> {
+                    log.error("Loading the customer search index failed", e);
+                    return Mono.empty();
+                });
+    }
+
+    // Does not block: a deferred listener is only started later in the same ready event
+    private Mono<Void> invalidationsAssigned() {
+        CustomerCacheInvalidationListener listener = invalidationListener.getIfAvailable();
+        if (listener == null) {
+            return Mono.empty();
+        }
+        return listener.assigned()
+                .timeout(assignmentTimeout)
+                .onErrorResume(TimeoutException.class, e -> {
+                    log.warn("Cache invalidations not assigned within {}, loading the search index anyway",
+                            assignmentTimeout);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> read() {
+        long start = System.nanoTime();
+        return Mono.fromRunnable(searchIndex::beginLoad)
+                .thenMany(customerRepository.findByStatus(Customer.STATUS_ACTIVE))
+                .doOnNext(searchIndex::load)
+                .doFinally(signal -> searchIndex.endLoad())
+                .then()
+                .doOnSuccess(done -> log.info("Indexed {} customers for search in {} ms", searchIndex.size(),
+                        (System.nanoTime() - start) / 1_000_000));
+    }
+}
@@ -1,85 +1,474 @@
 package com.bank.customerservice.service;
 
+import com.bank.customerservice.cache.CustomerCache;
+import com.bank.customerservice.dto.BatchItemResult;
+import com.bank.customerservice.dto.CustomerLookup;
+import com.bank.customerservice.dto.CustomerLookupRequest;
+import com.bank.customerservice.dto.CustomerPage;
+import com.bank.customerservice.dto.CustomerStats;
 import com.bank.customerservice.event.CustomerEventProducer;
 import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerChange;
+import com.bank.customerservice.model.customer.CustomerField;
 import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import com.bank.customerservice.model.outbox.OutboxMark;
 import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class CustomerService {
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_BATCH_SIZE = 10000;
+    static final int MAX_LOOKUP_SIZE = 1000;
+    static final int MAX_SEARCH_RESULTS = 50;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
     private final CustomerRepository customerRepository;
     private final CustomerEventProducer eventProducer;
-    public CustomerService(CustomerRepository customerRepository, CustomerEventProducer eventProducer) {
+    private final CustomerCache customerCache;
+    private final CustomerStatistics statistics;
+    private final CustomerSearchIndex searchIndex;
+    public CustomerService(CustomerRepository customerRepository, CustomerEventProducer eventProducer,
+                           CustomerCache customerCache, CustomerStatistics statistics,
+                           CustomerSearchIndex searchIndex) {
         this.customerRepository = customerRepository;
         this.eventProducer = eventProducer;
+        this.customerCache = customerCache;
+        this.statistics = statistics;
+        this.searchIndex = searchIndex;
     }
 
     public Mono<Customer> createCustomer(Customer customer) {
-        return customerRepository.findByDocumentNumber(customer.getDocumentNumber())
-                        .flatMap(existingCustomer ->
-                                Mono.error(new RuntimeException("Customer with this document number already exists")))
-                        .cast(Customer.class)
-                        .switchIfEmpty(
-                                Mono.defer(() -> {
-                                    customer.setCreatedAt(LocalDateTime.now());
-                                    customer.setModifiedAt(null);
-                                    customer.setStatus("ACTIVE");
-                                    return customerRepository.save(customer);
-                                })
-                                .doOnSuccess(eventProducer::publishCustomerCreated));
+        return Mono.just(customer)
+                .map(this::initNewCustomer)
+                .flatMap(newCustomer -> customerRepository.insertWithEvent(newCustomer, OutboxEvent::customerCreated))
+                .onErrorMap(DuplicateKeyException.class,
+                    e -> new RuntimeException("Customer with this document number already exists"))
+                .doOnNext(statistics::recordCreated)
+                .doOnNext(searchIndex::put)
+                .doOnNext(eventProducer::publishCacheInvalidation);
     }
 
-    public Flux<Customer> getAllCustomers() {
-        return customerRepository.findAll();
-    }
-    public Mono<Customer> getCustomerById(String Id) {
-        return customerRepository.findById(Id);
-    }
-    public Mono<Customer> getCustomerByDocumentNumber(String documentNumber) {
-        return  customerRepository.findByDocumentNumber(documentNumber);
-    }
-    public Flux<Customer> getCustomerByType(CustomerType type) {
-        return customerRepository.findByCustomerType(type);
-    }
-    public Mono<Customer> updateCustomer(String id, Customer customer) {
-        return customerRepository.findById(id)
-                .flatMap(existingCustomer -> {
-                    Customer updateCustomer = Customer.builder()
-                           .id(existingCustomer.getId())
-                           .fullName(customer.getFullName())
-                           .documentNumber(existingCustomer.getDocumentNumber())
-                           .customerType(customer.getCustomerType())
-                           .email(customer.getEmail())
-                           .phone(customer.getPhone())
-                           .createdAt(existingCustomer.getCreatedAt())
-                           .modifiedAt(LocalDateTime.now())
-                           .status(existingCustomer.getStatus())
-                           .build();
-                    return customerRepository.save(updateCustomer);
+    public Mono<List<BatchItemResult>> createCustomers(List<Customer> customers) {
+        if (customers.size() > MAX_BATCH_SIZE) {
+            return Mono.error(new IllegalArgumentException("Batch size must not exceed " + MAX_BATCH_SIZE));
+        }
+        Set<String> documentNumbers = customers.stream()
+                .map(Customer::getDocumentNumber)
+                .collect(Collectors.toSet());
+        return customerRepository.findByDocumentNumberIn(documentNumbers)
+                .map(Customer::getDocumentNumber)
+                .collect(Collectors.toSet())
+                .flatMap(existing -> {
+                    BatchItemResult[] results = new BatchItemResult[customers.size()];
+                    List<Integer> pending = new ArrayList<>();
+                    Set<String> seen = new HashSet<>();
+                    for (int i = 0; i < customers.size(); i++) {
+                        String documentNumber = customers.get(i).getDocumentNumber();
+                        if (existing.contains(documentNumber) || !seen.add(documentNumber)) {
+                            results[i] = duplicateResult(i);
+                        } else {
+                            pending.add(i);
+                        }
+                    }
+                    // Each customer is stored with a mark owed by this batch, so its event survives a crash
+                    OutboxMark mark = OutboxMark.of(UUID.randomUUID().toString());
+                    List<Customer> toInsert = pending.stream()
+                            .map(i -> initNewCustomer(customers.get(i)))
+                            .peek(newCustomer -> newCustomer.setOutboxMark(mark))
+                            .collect(Collectors.toList());
+                    return customerRepository.insertAllUnordered(toInsert)
+                            .map(failures -> completeBatch(results, pending, toInsert, failures))
+                            .flatMap(completed -> releaseCreatedEvents(completed, mark));
                 });
     }
-    public Mono<Customer> updateVipPymStatus(String idCustomer, boolean isVipPym) {
-        return customerRepository.findById(idCustomer)
-                .flatMap(existUser -> {
-                    if (existUser.getCustomerType() == CustomerType.BUSINESS) {
-                        existUser.setPym(isVipPym);
-                    } else {
-                        existUser.setVip(isVipPym);
-                    }
-                    return customerRepository.save(existUser);
+    private List<BatchItemResult> completeBatch(BatchItemResult[] results, List<Integer> pending,
+                                                List<Customer> inserted, Map<Integer, Integer> failures) {
+        for (int j = 0; j < inserted.size(); j++) {
+            int index = pending.get(j);
+            Integer errorCode = failures.get(j);
+            if (errorCode == null) {
+                statistics.recordCreated(inserted.get(j));
+                searchIndex.put(inserted.get(j));
+                eventProducer.publishCacheInvalidation(inserted.get(j));
+                results[index] = BatchItemResult.builder()
+                        .index(index)
+                        .status(HttpStatus.CREATED.value())
+                        .message("Customer successfully created")
+                        .data(inserted.get(j))
+                        .build();
+            } else if (errorCode == DUPLICATE_KEY_ERROR) {
+                results[index] = duplicateResult(index);
+            } else {
+                results[index] = BatchItemResult.builder()
+                        .index(index)
+                        .status(HttpStatus.BAD_REQUEST.value())
+                        .message("Customer could not be created")
+                        .build();
+            }
+        }
+        return Arrays.asList(results);
+    }
+    private Mono<List<BatchItemResult>> releaseCreatedEvents(List<BatchItemResult> results, OutboxMark mark) {
+        List<String> created = results.stream()
+                .filter(result -> result.getStatus() == HttpStatus.CREATED.value())
+                .map(result -> result.getData().getId())
+                .collect(Collectors.toList());
+        if (created.isEmpty()) {
+            return Mono.just(results);
+        }
+        // The customers are stored either way: events not written now are written by the outbox relay
+        return customerRepository.releaseOutboxMarks(created, mark.getOwner())
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Writing the events of {} batch-created customers failed, leaving them to the "
+                            + "outbox relay", created.size(), e);
+                    return Mono.empty();
+                })
+                .then(Mono.fromSupplier(() -> {
+                    results.stream()
+                            .filter(result -> result.getData() != null)
+                            .forEach(result -> result.getData().setOutboxMark(null));
+                    return results;
+                }));
+    }
+    private BatchItemResult duplicateResult(int index) {
+        return BatchItemResult.builder()
+                .index(index)
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message("Customer with this document number already exists")
+                .build();
+    }
+    private Customer initNewCustomer(Customer customer) {
+        customer.setCreatedAt(LocalDateTime.now());
+        customer.setModifiedAt(null);
+        customer.setStatus(Customer.STATUS_ACTIVE);
+        customer.setVersion(0L);
+        return customer;
+    }
+    private void onCustomerWritten(Customer customer) {
+        customerCache.refresh(customer);
+        searchIndex.put(customer);
+        eventProducer.publishCacheInvalidation(customer);
+    }
+    /**
+     * Soft-deleted customers are left out of every read unless {@code includeDeleted} is set;
+     * scans filter on status in the query so they only touch active customers.
+     */
+    public Flux<Customer> getAllCustomers(boolean includeDeleted) {
+        return includeDeleted
+                ? customerRepository.findAll()
+                : customerRepository.findByStatus(Customer.STATUS_ACTIVE);
+    }
+    /**
+     * Every customer, read through a cursor as fast as the caller consumes them.
+     */
+    public Flux<Customer> exportCustomers(boolean includeDeleted) {
+        return customerRepository.findAllForExport(statusFilter(includeDeleted));
+    }
+    public Mono<CustomerPage> getCustomersPage(String cursor, int size, boolean includeDeleted) {
+        return Mono.fromCallable(() -> pageRequest(size))
+                .flatMap(pageable -> page(cursor, pageable, includeDeleted)
+                        .collectList()
+                        .map(customers -> toPage(customers, size)));
+    }
+    private Flux<Customer> page(String cursor, Pageable pageable, boolean includeDeleted) {
+        if (includeDeleted) {
+            return cursor == null
+                    ? customerRepository.findAllBy(pageable)
+                    : customerRepository.findByIdGreaterThan(PageCursor.decode(cursor), pageable);
+        }
+        return cursor == null
+                ? customerRepository.findByStatus(Customer.STATUS_ACTIVE, pageable)
+                : customerRepository.findByStatusAndIdGreaterThan(Customer.STATUS_ACTIVE, PageCursor.decode(cursor),
+                    pageable);
+    }
+    public Mono<CustomerPage> getCustomersPageByType(CustomerType type, String cursor, int size,
+                                                     boolean includeDeleted) {
+        return Mono.fromCallable(() -> pageRequest(size))
+                .flatMap(pageable -> pageByType(type, cursor, pageable, includeDeleted)
+                        .collectList()
+                        .map(customers -> toPage(customers, size)));
+    }
+    private Flux<Customer> pageByType(CustomerType type, String cursor, Pageable pageable, boolean includeDeleted) {
+        if (includeDeleted) {
+            return cursor == null
+                    ? customerRepository.findByCustomerType(type, pageable)
+                    : customerRepository.findByCustomerTypeAndIdGreaterThan(type, PageCursor.decode(cursor), pageable);
+        }
+        return cursor == null
+                ? customerRepository.findByCustomerTypeAndStatus(type, Customer.STATUS_ACTIVE, pageable)
+                : customerRepository.findByCustomerTypeAndStatusAndIdGreaterThan(type, Customer.STATUS_ACTIVE,
+                    PageCursor.decode(cursor), pageable);
+    }
+    private Pageable pageRequest(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // One extra row tells us whether another page exists without a count query
+        return PageRequest.of(0, size + 1, Sort.by(Sort.Direction.ASC, "id"));
+    }
+    private CustomerPage toPage(List<Customer> customers, int size) {
+        boolean hasMore = customers.size() > size;
+        List<Customer> content = hasMore ? customers.subList(0, size) : customers;
+        return CustomerPage.builder()
+                .content(content)
+                .size(content.size())
+                .nextCursor(hasMore ? PageCursor.encode(content.get(size - 1).getId()) : null)
+                .build();
+    }
+    public Mono<Customer> getCustomerById(String Id, boolean includeDeleted) {
+        // Point lookups go through the cache, which holds customers in any status
+        return customerCache.getById(Id, customerRepository::findById)
+                .filter(customer -> includeDeleted || !isDeleted(customer));
+    }
+    public Mono<Customer> getCustomerByDocumentNumber(String documentNumber, boolean includeDeleted) {
+        return customerCache.getByDocumentNumber(documentNumber, customerRepository::findByDocumentNumber)
+                .filter(customer -> includeDeleted || !isDeleted(customer));
+    }
+    /**
+     * Counts served from {@link CustomerStatistics}, without querying Mongo.
+     */
+    public Mono<CustomerStats> getCustomerStats() {
+        return Mono.fromSupplier(statistics::snapshot);
+    }
+    /**
+     * Only the selected {@code fields} of the customer, read from the cache when it holds the
+     * customer and otherwise through a projection so the rest never leaves the database.
+     */
+    public Mono<Map<String, Object>> getCustomerFieldsById(String id, String fields, boolean includeDeleted) {
+        return Mono.fromCallable(() -> CustomerField.parse(fields))
+                .flatMap(selected -> {
+                    Customer cached = customerCache.getAllPresentById(Collections.singleton(id)).get(id);
+                    Mono<Customer> customer = cached != null
+                            ? Mono.just(cached).filter(found -> includeDeleted || !isDeleted(found))
+                            : customerRepository.findProjectedById(id, statusFilter(includeDeleted), selected);
+                    return customer.map(found -> CustomerField.project(found, selected));
                 });
     }
-    public Mono<Customer> deleteCustomer(String id) {
-        return customerRepository.findById(id)
-                .flatMap(existingCustomer -> {
-                    existingCustomer.setStatus("DELETED");
-                    existingCustomer.setModifiedAt(LocalDateTime.now());
-                    return customerRepository.save(existingCustomer);
+    public Flux<Map<String, Object>> getCustomerFieldsByType(CustomerType type, String fields,
+                                                             boolean includeDeleted) {
+        return Mono.fromCallable(() -> CustomerField.parse(fields))
+                .flatMapMany(selected -> customerRepository
+                        .findProjectedByCustomerType(type, statusFilter(includeDeleted), selected)
+                        .map(customer -> CustomerField.project(customer, selected)));
+    }
+    private static String statusFilter(boolean includeDeleted) {
+        return includeDeleted ? null : Customer.STATUS_ACTIVE;
+    }
+    private static boolean isDeleted(Customer customer) {
+        return Customer.STATUS_DELETED.equals(customer.getStatus());
+    }
+    /**
+     * Active customers matching {@code query} by name, email or phone, best match first. The
+     * index only yields ids; the customers come from the cache or one {@code $in} query.
+     */
+    public Mono<List<Customer>> searchCustomers(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            return Mono.error(new IllegalArgumentException("Search limit must be between 1 and "
+                    + MAX_SEARCH_RESULTS));
+        }
+        return Mono.fromCallable(() -> searchIndex.search(query, limit))
+                .flatMap(ids -> resolve(ids, customerCache::getAllPresentById, customerRepository::findAllById,
+                        Customer::getId)
+                        .map(found -> ids.stream()
+                                .map(found::get)
+                                .filter(customer -> customer != null && !isDeleted(customer))
+                                .collect(Collectors.toList())));
+    }
+    public Mono<CustomerLookup> lookupCustomers(CustomerLookupRequest request) {
+        List<String> ids = request.getIds() != null ? request.getIds() : Collections.emptyList();
+        List<String> documentNumbers = request.getDocumentNumbers() != null
+                ? request.getDocumentNumbers() : Collections.emptyList();
+        if (ids.size() + documentNumbers.size() > MAX_LOOKUP_SIZE) {
+            return Mono.error(new IllegalArgumentException("Lookup size must not exceed " + MAX_LOOKUP_SIZE));
+        }
+        return Mono.zip(
+                resolve(ids, customerCache::getAllPresentById, customerRepository::findAllById, Customer::getId),
+                resolve(documentNumbers, customerCache::getAllPresentByDocumentNumber,
+                        customerRepository::findByDocumentNumberIn, Customer::getDocumentNumber))
+                .map(found -> CustomerLookup.builder()
+                        .ids(toLookupEntries(ids, found.getT1()))
+                        .documentNumbers(toLookupEntries(documentNumbers, found.getT2()))
+                        .build());
+    }
+    private Mono<Map<String, Customer>> resolve(List<String> keys,
+                                                Function<Collection<String>, Map<String, Customer>> cached,
+                                                Function<Collection<String>, Flux<Customer>> query,
+                                                Function<Customer, String> keyOf) {
+        Map<String, Customer> resolved = cached.apply(keys);
+        Set<String> missing = keys.stream()
+                .filter(key -> !resolved.containsKey(key))
+                .collect(Collectors.toSet());
+        if (missing.isEmpty()) {
+            return Mono.just(resolved);
+        }
+        return query.apply(missing)
+                .doOnNext(customerCache::refresh)
+                .collectMap(keyOf)
+                .map(fetched -> {
+                    resolved.putAll(fetched);
+                    return resolved;
                 });
     }
+    private List<CustomerLookup.Entry> toLookupEntries(List<String> keys, Map<String, Customer> resolved) {
+        return keys.stream()
+                .map(key -> {
+                    Customer customer = resolved.get(key);
+                    boolean found = customer != null && !isDeleted(customer);
+                    return CustomerLookup.Entry.builder()
+                            .key(key)
+                            .found(found)
+                            .data(found ? customer : null)
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+    public Flux<Customer> getCustomerByType(CustomerType type, boolean includeDeleted) {
+        return includeDeleted
+                ? customerRepository.findByCustomerType(type)
+                : customerRepository.findByCustomerTypeAndStatus(type, Customer.STATUS_ACTIVE);
+    }
+    public Mono<Customer> updateCustomer(String id, Customer customer, Long expectedVersion) {
+        Update update = new Update()
+                .set("fullName", customer.getFullName())
+                .set("customerType", customer.getCustomerType())
+                .set("email", customer.getEmail())
+                .set("phone", customer.getPhone())
+                .set("modifiedAt", modifiedNow())
+                .inc("version", 1);
+        return applyUpdate(id, expectedVersion, update, applied(update), OutboxEvent::customerUpdated);
+    }
+    public Mono<Customer> patchCustomer(String id, Customer changes, Long expectedVersion) {
+        Update update = new Update();
+        setIfPresent(update, "fullName", changes.getFullName());
+        setIfPresent(update, "customerType", changes.getCustomerType());
+        setIfPresent(update, "email", changes.getEmail());
+        setIfPresent(update, "phone", changes.getPhone());
+        if (update.getUpdateObject().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("No updatable fields provided"));
+        }
+        update.set("modifiedAt", modifiedNow())
+                .inc("version", 1);
+        return applyUpdate(id, expectedVersion, update, applied(update), OutboxEvent::customerUpdated);
+    }
+    private static void setIfPresent(Update update, String field, Object value) {
+        if (value != null) {
+            update.set(field, value);
+        }
+    }
+    public Mono<Customer> updateVipPymStatus(String idCustomer, boolean isVipPym, Long expectedVersion) {
+        // Business customers carry the PYM flag, everyone else VIP; the choice is made server side
+        // so the flag is written without reading the customer first
+        AggregationExpression isBusiness = ComparisonOperators.valueOf("customerType")
+                .equalToValue(CustomerType.BUSINESS.name());
+        LocalDateTime modifiedAt = modifiedNow();
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("isPym").toValue(ConditionalOperators.when(isBusiness)
+                        .then(isVipPym)
+                        .otherwiseValueOf("isPym"))
+                .set("isVip").toValue(ConditionalOperators.when(isBusiness)
+                        .thenValueOf("isVip")
+                        .otherwise(isVipPym))
+                .set("modifiedAt").toValue(modifiedAt)
+                .set("version").toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull("version").then(0))
+                        .add(1));
+        UnaryOperator<Customer> applied = customer -> {
+            if (customer.getCustomerType() == CustomerType.BUSINESS) {
+                customer.setPym(isVipPym);
+            } else {
+                customer.setVip(isVipPym);
+            }
+            customer.setModifiedAt(modifiedAt);
+            customer.setVersion((customer.getVersion() != null ? customer.getVersion() : 0L) + 1);
+            return customer;
+        };
+        return applyUpdate(idCustomer, expectedVersion, update, applied, OutboxEvent::customerVipPymChanged);
+    }
+    public Mono<Customer> deleteCustomer(String id, Long expectedVersion) {
+        Update update = new Update()
+                .set("status", Customer.STATUS_DELETED)
+                .set("modifiedAt", modifiedNow())
+                .inc("version", 1);
+        return applyUpdate(id, expectedVersion, update, applied(update), OutboxEvent::customerDeleted);
+    }
+    // MongoDB keeps milliseconds, so the customer updated in memory matches the stored one
+    private static LocalDateTime modifiedNow() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+    /**
+     * The {@code $set} and {@code $inc} of the update made to a customer in memory, as MongoDB
+     * makes them to the stored one.
+     */
+    static UnaryOperator<Customer> applied(Update update) {
+        Document operations = update.getUpdateObject();
+        return customer -> {
+            DirectFieldAccessor fields = new DirectFieldAccessor(customer);
+            Document set = operations.get("$set", Document.class);
+            if (set != null) {
+                set.forEach(fields::setPropertyValue);
+            }
+            Document inc = operations.get("$inc", Document.class);
+            if (inc != null) {
+                inc.forEach((field, delta) -> {
+                    Number value = (Number) fields.getPropertyValue(field);
+                    fields.setPropertyValue(field, (value != null ? value.longValue() : 0L)
+                            + ((Number) delta).longValue());
+                });
+            }
+            return customer;
+        };
+    }
+    private Mono<Customer> applyUpdate(String id, Long expectedVersion, UpdateDefinition update,
+                                       UnaryOperator<Customer> applied, Function<Customer, OutboxEvent> event) {
+        return customerRepository.findAndModifyById(id, expectedVersion, update, applied, event)
+                .doOnNext(change -> statistics.recordChanged(change.getBefore(), change.getAfter()))
+                .map(CustomerChange::getAfter)
+                .switchIfEmpty(Mono.defer(() -> expectedVersion == null
+                        ? Mono.empty()
+                        : versionConflict(id)))
+                .doOnNext(this::onCustomerWritten);
+    }
+    private Mono<Customer> versionConflict(String id) {
+        // Nothing matched id and version: it is a conflict only if the customer still exists
+        return customerRepository.existsById(id)
+                .filter(Boolean::booleanValue)
+                .flatMap(exists -> Mono.error(
+                        new OptimisticLockingFailureException("Customer was modified by another request")));
+    }
 }
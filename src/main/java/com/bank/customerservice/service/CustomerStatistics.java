@@ -0,0 +1,107 @@
+package com.bank.customerservice.service;
+
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.model.customer.Customer;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory customer counts behind the stats endpoint. {@link CustomerService} applies the
+ * change of every write it makes, so reads never touch Mongo; {@link CustomerStatsReconciler}
+ * periodically replaces the counts with an aggregation, which also picks up writes made by other
+ * instances.
+ * <p>
+ * A change can only be applied when the customer's previous state is known (it is the pre-image
+ * of the update). Otherwise the counts are marked stale and the next reconciliation check
+ * corrects them.
+ */
+@Component
+public class CustomerStatistics {
+    private final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byType = new ConcurrentHashMap<>();
+    private final LongAdder vipCount = new LongAdder();
+    private final LongAdder pymCount = new LongAdder();
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private volatile LocalDateTime reconciledAt;
+
+    public void recordCreated(Customer customer) {
+        add(customer, 1);
+    }
+    /**
+     * Moves the customer's counts from {@code before} to {@code after}; a null {@code before}
+     * means the previous state is unknown.
+     */
+    public void recordChanged(Customer before, Customer after) {
+        if (before == null) {
+            stale.set(true);
+            return;
+        }
+        add(before, -1);
+        add(after, 1);
+    }
+    /**
+     * Whether a change could not be applied since the last call, clearing the flag.
+     */
+    public boolean consumeStale() {
+        return stale.getAndSet(false);
+    }
+    public LocalDateTime getReconciledAt() {
+        return reconciledAt;
+    }
+    /**
+     * Replaces the counts with freshly aggregated ones. Writes applied while the aggregation ran
+     * may be counted twice or not at all until the next reconciliation.
+     */
+    public synchronized void reset(CustomerStats counted) {
+        replace(byStatus, counted.getByStatus());
+        replace(byType, counted.getByType());
+        vipCount.reset();
+        vipCount.add(counted.getVipCount());
+        pymCount.reset();
+        pymCount.add(counted.getPymCount());
+        reconciledAt = counted.getReconciledAt();
+    }
+    public CustomerStats snapshot() {
+        Map<String, Long> statuses = sums(byStatus);
+        return CustomerStats.builder()
+                .total(statuses.values().stream().mapToLong(Long::longValue).sum())
+                .byStatus(statuses)
+                .byType(sums(byType))
+                .vipCount(vipCount.sum())
+                .pymCount(pymCount.sum())
+                .reconciledAt(reconciledAt)
+                .build();
+    }
+    private void add(Customer customer, int delta) {
+        if (customer.getStatus() != null) {
+            byStatus.computeIfAbsent(customer.getStatus(), status -> new LongAdder()).add(delta);
+        }
+        if (!Customer.STATUS_ACTIVE.equals(customer.getStatus())) {
+            return;
+        }
+        if (customer.getCustomerType() != null) {
+            byType.computeIfAbsent(customer.getCustomerType().name(), type -> new LongAdder()).add(delta);
+        }
+        if (customer.isVip()) {
+            vipCount.add(delta);
+        }
+        if (customer.isPym()) {
+            pymCount.add(delta);
+        }
+    }
+    private static void replace(Map<String, LongAdder> counters, Map<String, Long> counted) {
+        counters.clear();
+        counted.forEach((key, count) -> counters.computeIfAbsent(key, k -> new LongAdder()).add(count));
+    }
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        counters.forEach((key, count) -> sums.put(key, count.sum()));
+        return sums;
+    }
+}
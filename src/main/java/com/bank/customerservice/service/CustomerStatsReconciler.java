@@ -0,0 +1,86 @@
+package com.bank.customerservice.service;
+
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Resets {@link CustomerStatistics} from a Mongo aggregation once at startup, every
+ * {@code customer.stats.reconcile-interval}, and at the next check after a write whose change
+ * could not be applied incrementally.
+ */
+@Slf4j
+@Component
+public class CustomerStatsReconciler {
+    private final CustomerRepository customerRepository;
+    private final CustomerStatistics statistics;
+    private final Duration reconcileInterval;
+    private final Duration checkInterval;
+    private final boolean enabled;
+    private final Timer reconcileTimer;
+    private Disposable subscription;
+
+    public CustomerStatsReconciler(CustomerRepository customerRepository, CustomerStatistics statistics,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${customer.stats.reconcile-interval:5m}") Duration reconcileInterval,
+                                   @Value("${customer.stats.check-interval:10s}") Duration checkInterval,
+                                   @Value("${customer.stats.reconcile.enabled:true}") boolean enabled) {
+        this.customerRepository = customerRepository;
+        this.statistics = statistics;
+        this.reconcileInterval = reconcileInterval;
+        this.checkInterval = checkInterval;
+        this.enabled = enabled;
+        this.reconcileTimer = Timer.builder("customer.stats.reconcile")
+                .description("Time to recount customers with an aggregation")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        subscription = Flux.interval(Duration.ZERO, checkInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> reconcileIfDue()
+                        .onErrorResume(e -> {
+                            log.error("Customer statistics reconciliation failed", e);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Mono<CustomerStats> reconcileIfDue() {
+        LocalDateTime reconciledAt = statistics.getReconciledAt();
+        boolean expired = reconciledAt == null
+                || reconciledAt.plus(reconcileInterval).isBefore(LocalDateTime.now());
+        return statistics.consumeStale() || expired ? reconcile() : Mono.empty();
+    }
+
+    Mono<CustomerStats> reconcile() {
+        long start = System.nanoTime();
+        return customerRepository.aggregateStats()
+                .doOnNext(statistics::reset)
+                .doOnSuccess(counted -> reconcileTimer.record(Duration.ofNanos(System.nanoTime() - start)));
+    }
+}
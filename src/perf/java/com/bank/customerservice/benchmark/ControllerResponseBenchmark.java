@@ -0,0 +1,68 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.controller.CustomerController;
+import com.bank.customerservice.controller.CustomerExportWriter;
+import com.bank.customerservice.dto.BaseResponse;
+import com.bank.customerservice.dto.CustomerPage;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.perf.InMemoryCustomerRepository;
+import com.bank.customerservice.perf.PerfFixtures;
+import com.bank.customerservice.service.CustomerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The controller's response building (envelopes, ETags, not-found fallbacks) on top of cached
+ * service lookups. Compare with {@link CustomerServiceBenchmark} to see what the controller adds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ControllerResponseBenchmark {
+    private CustomerController controller;
+    private String id;
+    private String documentNumber;
+
+    @Setup
+    public void setUp() {
+        InMemoryCustomerRepository repository = PerfFixtures.populatedRepository(1000);
+        CustomerService service = PerfFixtures.service(repository);
+        controller = new CustomerController(service, new CustomerExportWriter(new ObjectMapper(), 500),
+                PerfFixtures.importer(repository));
+        Customer customer = repository.findAll().blockFirst();
+        id = customer.getId();
+        documentNumber = customer.getDocumentNumber();
+        service.getCustomerById(id, false).block();
+        service.getCustomerByDocumentNumber(documentNumber, false).block();
+    }
+    @Benchmark
+    public ResponseEntity<BaseResponse<Customer>> getCustomerById() {
+        return controller.getCustomerById(id, false).block();
+    }
+    @Benchmark
+    public ResponseEntity<BaseResponse<Customer>> getCustomerByIdNotFound() {
+        return controller.getCustomerById("missing", false).block();
+    }
+    @Benchmark
+    public ResponseEntity<BaseResponse<Customer>> getCustomerByDocumentNumber() {
+        return controller.getCustomerByDocumentNumber(documentNumber, false).block();
+    }
+    @Benchmark
+    public ResponseEntity<BaseResponse<CustomerPage>> getCustomersPage() {
+        return controller.getCustomersPage(50, null, false).block();
+    }
+    @Benchmark
+    public ResponseEntity<BaseResponse<List<Customer>>> getAllCustomers() {
+        return controller.getAllCustomers(false).block();
+    }
+}
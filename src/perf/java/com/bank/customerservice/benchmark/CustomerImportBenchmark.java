@@ -0,0 +1,67 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.importer.CustomerImporter;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerImport;
+import com.bank.customerservice.perf.InMemoryCustomerRepository;
+import com.bank.customerservice.perf.InMemoryOutboxEventRepository;
+import com.bank.customerservice.perf.PerfFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports an NDJSON file of {@code customers} records, read in 64 KB chunks as from disk, into an
+ * empty in-memory repository. Divide by the record count for the cost per customer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CustomerImportBenchmark {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    @Param("100000")
+    private int customers;
+    private byte[] file;
+    private CustomerImporter importer;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < customers; i++) {
+            out.write(objectMapper.writeValueAsBytes(PerfFixtures.customer(i)));
+            out.write('\n');
+        }
+        file = out.toByteArray();
+    }
+    @Setup(Level.Invocation)
+    public void setUp() {
+        importer = PerfFixtures.importer(new InMemoryCustomerRepository(new InMemoryOutboxEventRepository()));
+    }
+    @Benchmark
+    public CustomerImport importNdjson() {
+        return importer.importCustomers(UUID.randomUUID().toString(), CustomerFileFormat.NDJSON, chunks()).block();
+    }
+    private Flux<DataBuffer> chunks() {
+        DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        return Flux.range(0, (file.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .map(i -> bufferFactory.wrap(ByteBuffer.wrap(file, i * CHUNK_SIZE,
+                        Math.min(CHUNK_SIZE, file.length - i * CHUNK_SIZE))));
+    }
+}
@@ -0,0 +1,97 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link CustomerSearchIndex} over a million customers with names drawn from common first and
+ * last names, so that popular words hit tens of thousands of customers. Setup prints the heap the
+ * index takes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomerSearchBenchmark {
+    private static final String[] FIRST_NAMES = {"María", "José", "Juan", "Rosa", "Luis", "Carmen", "Carlos",
+        "Ana", "Jorge", "Lucía", "Miguel", "Elena", "Pedro", "Sofía", "Diego", "Valeria", "Andrés", "Camila",
+        "Fernando", "Isabel", "Ricardo", "Gabriela", "Manuel", "Daniela", "Alberto"};
+    private static final String[] LAST_NAMES = {"García", "Rodríguez", "López", "Fernández", "Martínez",
+        "Sánchez", "Pérez", "Gómez", "Díaz", "Torres", "Ramírez", "Flores", "Vargas", "Castillo", "Rojas",
+        "Mendoza", "Quispe", "Huamán", "Chávez", "Ramos", "Espinoza", "Gutiérrez", "Salazar", "Herrera",
+        "Medina", "Aguilar", "Vásquez", "Cruz", "Reyes", "Morales", "Ortiz", "Silva", "Núñez", "Cárdenas",
+        "Paredes", "Romero", "Navarro", "Córdova", "Guerrero", "Campos"};
+    @Param("1000000")
+    private int customers;
+    private CustomerSearchIndex index;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        index = new CustomerSearchIndex(20_000);
+        for (int i = 0; i < customers; i++) {
+            index.put(customer(i));
+        }
+        sequence.set(customers);
+        System.out.printf("%nIndexed %d customers, heap used %d MB%n", index.size(),
+                (usedHeap() - before) / (1024 * 1024));
+    }
+    /** One popular last name, tens of thousands of matches. */
+    @Benchmark
+    public List<String> commonLastName() {
+        return index.search("garcia", 20);
+    }
+    @Benchmark
+    public List<String> firstAndLastNamePrefix() {
+        return index.search("maria quisp", 20);
+    }
+    @Benchmark
+    public List<String> misspelledLastName() {
+        return index.search("Fernandes Herera", 20);
+    }
+    @Benchmark
+    public List<String> partialPhone() {
+        return index.search("900 4521", 20);
+    }
+    @Benchmark
+    public List<String> emailLocalPart() {
+        return index.search("cchavez123456", 20);
+    }
+    @Benchmark
+    public Customer putChangedCustomer() {
+        Customer customer = customer(sequence.incrementAndGet() % customers);
+        customer.setFullName("Renamed " + customer.getFullName());
+        index.put(customer);
+        return customer;
+    }
+    private static Customer customer(int i) {
+        String first = FIRST_NAMES[i % FIRST_NAMES.length];
+        String last = LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length];
+        String second = LAST_NAMES[(i / 7) % LAST_NAMES.length];
+        return Customer.builder()
+                .id(String.format("%024x", i))
+                .fullName(first + " " + last + " " + second)
+                .email(first.charAt(0) + last + i + "@example.com")
+                .phone("+51 9" + String.format("%08d", i))
+                .status(Customer.STATUS_ACTIVE)
+                .build();
+    }
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
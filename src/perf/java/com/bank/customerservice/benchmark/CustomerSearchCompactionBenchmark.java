@@ -0,0 +1,61 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one {@link CustomerSearchIndex#put} in many that compacts the index. Each invocation starts
+ * from an index whose removed documents sit just under the compaction threshold, so the measured
+ * put renames one more customer and rebuilds every posting list; compare with
+ * {@link CustomerSearchBenchmark#putChangedCustomer()} for the put that does not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class CustomerSearchCompactionBenchmark {
+    @Param("100000")
+    private int customers;
+    private CustomerSearchIndex index;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        index = new CustomerSearchIndex(20_000);
+        for (int i = 0; i < customers; i++) {
+            index.put(customer(i, "Customer"));
+        }
+        // Compaction starts once removed documents outnumber a third of the live ones
+        for (int i = 0; i < customers / 3; i++) {
+            index.put(customer(i, "Renamed"));
+        }
+    }
+    @Benchmark
+    public Customer putTriggeringCompaction() {
+        Customer customer = customer(customers / 3, "Renamed");
+        index.put(customer);
+        return customer;
+    }
+    private static Customer customer(int i, String name) {
+        return Customer.builder()
+                .id(String.format("%024x", i))
+                .fullName(name + " " + i)
+                .email("customer" + i + "@example.com")
+                .phone("+51 9" + String.format("%08d", i))
+                .status(Customer.STATUS_ACTIVE)
+                .build();
+    }
+}
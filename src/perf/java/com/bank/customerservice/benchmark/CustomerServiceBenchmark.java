@@ -0,0 +1,81 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.dto.CustomerLookup;
+import com.bank.customerservice.dto.CustomerLookupRequest;
+import com.bank.customerservice.dto.CustomerPage;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.perf.InMemoryCustomerRepository;
+import com.bank.customerservice.perf.PerfFixtures;
+import com.bank.customerservice.service.CustomerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * {@link CustomerService} flows over an in-memory repository, so the numbers are the service's
+ * own overhead (Reactor assembly, caching, update building) without Mongo round trips.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomerServiceBenchmark {
+    @Param("10000")
+    private int customers;
+    private InMemoryCustomerRepository repository;
+    private CustomerService service;
+    private List<String> ids;
+    private CustomerLookupRequest lookupRequest;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = PerfFixtures.populatedRepository(customers);
+        service = PerfFixtures.service(repository);
+        ids = repository.findAll().map(Customer::getId).collectList().block();
+        ids.forEach(id -> service.getCustomerById(id, false).block());
+        lookupRequest = CustomerLookupRequest.builder()
+                .ids(ids.stream().limit(100).collect(Collectors.toList()))
+                .build();
+        sequence.set(customers);
+    }
+    @Benchmark
+    public Customer getCustomerByIdCached() {
+        return service.getCustomerById(randomId(), false).block();
+    }
+    @Benchmark
+    public CustomerLookup lookupHundredIds() {
+        return service.lookupCustomers(lookupRequest).block();
+    }
+    @Benchmark
+    public CustomerPage firstPageOfFifty() {
+        return service.getCustomersPage(null, 50, false).block();
+    }
+    @Benchmark
+    public Customer createCustomer() {
+        return service.createCustomer(PerfFixtures.customer(sequence.incrementAndGet())).block();
+    }
+    @Benchmark
+    public Customer updateCustomer() {
+        String id = randomId();
+        Customer changes = Customer.builder()
+                .fullName("Renamed " + id)
+                .email("renamed@example.com")
+                .build();
+        return service.patchCustomer(id, changes, null).block();
+    }
+    private String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
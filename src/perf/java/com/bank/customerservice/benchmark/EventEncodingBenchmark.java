@@ -0,0 +1,65 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.event.codec.CustomerDeserializer;
+import com.bank.customerservice.event.codec.CustomerEventFormat;
+import com.bank.customerservice.event.codec.CustomerSerializer;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.perf.PerfFixtures;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka payload encoding in both event formats; the bytes per event are reported as a
+ * secondary result next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventEncodingBenchmark {
+    @Param({"BINARY", "JSON"})
+    private CustomerEventFormat format;
+    private CustomerSerializer serializer;
+    private final CustomerDeserializer deserializer = new CustomerDeserializer();
+    private Customer customer;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        serializer = new CustomerSerializer(format);
+        customer = PerfFixtures.customer(1);
+        customer.setId("6565f0c2a1b2c3d4e5f60718");
+        encoded = serializer.serialize("customer-updated", customer);
+    }
+    @Benchmark
+    public byte[] encode(EventSize size) {
+        byte[] data = serializer.serialize("customer-updated", new RecordHeaders(), customer);
+        size.bytesPerEvent = data.length;
+        return data;
+    }
+    @Benchmark
+    public Customer decode() {
+        return deserializer.deserialize("customer-updated", encoded);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EventSize {
+        public long bytesPerEvent;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerEvent = 0;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.dto.BaseResponse;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.perf.PerfFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Response and request body (de)serialization with the ObjectMapper settings WebFlux uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JacksonSerializationBenchmark {
+    private ObjectMapper mapper;
+    private Customer customer;
+    private byte[] customerJson;
+    private BaseResponse<Customer> single;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        customer = PerfFixtures.customer(1);
+        customer.setId("6565f0c2a1b2c3d4e5f60718");
+        customerJson = mapper.writeValueAsBytes(customer);
+        single = BaseResponse.<Customer>builder()
+                .status(200)
+                .message("Customer details retrieved successfully")
+                .data(customer)
+                .build();
+    }
+    @Benchmark
+    public byte[] writeCustomer() throws IOException {
+        return mapper.writeValueAsBytes(customer);
+    }
+    @Benchmark
+    public Customer readCustomer() throws IOException {
+        return mapper.readValue(customerJson, Customer.class);
+    }
+    @Benchmark
+    public byte[] writeBaseResponse() throws IOException {
+        return mapper.writeValueAsBytes(single);
+    }
+    @Benchmark
+    public byte[] writeBaseResponseList(CustomerList list) throws IOException {
+        return mapper.writeValueAsBytes(list.response);
+    }
+
+    @State(Scope.Benchmark)
+    public static class CustomerList {
+        @Param({"1", "100"})
+        private int listSize;
+        private BaseResponse<List<Customer>> response;
+
+        @Setup
+        public void setUp() {
+            response = BaseResponse.<List<Customer>>builder()
+                    .status(200)
+                    .message("Customers retrieved successfully")
+                    .data(IntStream.range(0, listSize).mapToObj(PerfFixtures::customer).collect(Collectors.toList()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.customerservice.benchmark;
+
+import com.bank.customerservice.controller.BaseResponseEncoder;
+import com.bank.customerservice.dto.BaseResponse;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.perf.PerfFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a GET response body into the pooled Netty buffers the server writes, with the default
+ * Jackson encoder and with {@link BaseResponseEncoder}. Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm} for bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseEncodingBenchmark {
+    private static final ResolvableType RESPONSE_TYPE =
+            ResolvableType.forClassWithGenerics(BaseResponse.class, Customer.class);
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private Encoder<Object> jacksonEncoder;
+    private Encoder<Object> envelopeEncoder;
+    private BaseResponse<Customer> found;
+    private BaseResponse<Customer> notFound;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        notFound = BaseResponse.<Customer>builder()
+                .status(404)
+                .message("Customer not found")
+                .build();
+        found = BaseResponse.<Customer>builder()
+                .status(200)
+                .message("Customer details retrieved successfully")
+                .data(PerfFixtures.customer(1))
+                .build();
+        jacksonEncoder = (Encoder<Object>) (Encoder<?>) new Jackson2JsonEncoder(mapper);
+        envelopeEncoder = (Encoder<Object>) (Encoder<?>) new BaseResponseEncoder(mapper, List.of(notFound));
+    }
+    @Benchmark
+    public boolean jacksonFound() {
+        return encode(jacksonEncoder, found);
+    }
+    @Benchmark
+    public boolean envelopeFound() {
+        return encode(envelopeEncoder, found);
+    }
+    @Benchmark
+    public boolean jacksonNotFound() {
+        return encode(jacksonEncoder, notFound);
+    }
+    @Benchmark
+    public boolean envelopeNotFound() {
+        return encode(envelopeEncoder, notFound);
+    }
+    private boolean encode(Encoder<Object> encoder, BaseResponse<Customer> response) {
+        DataBuffer buffer = encoder.encodeValue(response, bufferFactory, RESPONSE_TYPE, MediaType.APPLICATION_JSON,
+                Collections.emptyMap());
+        return DataBufferUtils.release(buffer);
+    }
+}
@@ -0,0 +1,11 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.model.customer.CustomerImport;
+import com.bank.customerservice.repository.CustomerImportRepository;
+
+public class InMemoryCustomerImportRepository extends InMemoryRepository<CustomerImport>
+        implements CustomerImportRepository {
+    public InMemoryCustomerImportRepository() {
+        super(CustomerImport::getId, CustomerImport::setId);
+    }
+}
@@ -0,0 +1,216 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerChange;
+import com.bank.customerservice.model.customer.CustomerField;
+import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.service.CustomerStatistics;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory {@link CustomerRepository} with the unique document number index. Updates support
+ * {@code $set} and {@code $inc}; aggregation pipeline updates (the VIP/PYM toggle) are not
+ * interpreted. Projections return whole customers, the service picks the fields.
+ */
+public class InMemoryCustomerRepository extends InMemoryRepository<Customer> implements CustomerRepository {
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private final Map<String, String> idsByDocumentNumber = new ConcurrentHashMap<>();
+    private final InMemoryOutboxEventRepository outboxRepository;
+
+    public InMemoryCustomerRepository(InMemoryOutboxEventRepository outboxRepository) {
+        super(Customer::getId, Customer::setId);
+        this.outboxRepository = outboxRepository;
+    }
+    @Override
+    public void clear() {
+        super.clear();
+        idsByDocumentNumber.clear();
+    }
+    @Override
+    public <S extends Customer> Mono<S> insert(S customer) {
+        return Mono.fromCallable(() -> {
+            String id = idFor(customer);
+            if (customer.getDocumentNumber() != null
+                    && idsByDocumentNumber.putIfAbsent(customer.getDocumentNumber(), id) != null) {
+                throw new DuplicateKeyException("Duplicate document number " + customer.getDocumentNumber());
+            }
+            if (store.putIfAbsent(id, customer) != null) {
+                idsByDocumentNumber.remove(customer.getDocumentNumber(), id);
+                throw new DuplicateKeyException("Duplicate id " + id);
+            }
+            return customer;
+        });
+    }
+    @Override
+    public Flux<Customer> findByStatus(String status) {
+        return findAll().filter(ofStatus(status));
+    }
+    @Override
+    public Flux<Customer> findByCustomerTypeAndStatus(CustomerType customerType, String status) {
+        return findByCustomerType(customerType).filter(ofStatus(status));
+    }
+    @Override
+    public Flux<Customer> findByStatus(String status, Pageable pageable) {
+        return findByStatus(status).take(pageable.getPageSize());
+    }
+    @Override
+    public Flux<Customer> findByStatusAndIdGreaterThan(String status, String id, Pageable pageable) {
+        return Flux.fromIterable(store.tailMap(id, false).values())
+                .filter(ofStatus(status))
+                .take(pageable.getPageSize());
+    }
+    @Override
+    public Flux<Customer> findByCustomerTypeAndStatus(CustomerType customerType, String status, Pageable pageable) {
+        return findByCustomerTypeAndStatus(customerType, status).take(pageable.getPageSize());
+    }
+    @Override
+    public Flux<Customer> findByCustomerTypeAndStatusAndIdGreaterThan(CustomerType customerType, String status,
+                                                                      String id, Pageable pageable) {
+        return Flux.fromIterable(store.tailMap(id, false).values())
+                .filter(ofType(customerType).and(ofStatus(status)))
+                .take(pageable.getPageSize());
+    }
+    @Override
+    public Flux<Customer> findByCustomerType(CustomerType customerType) {
+        return findAll().filter(ofType(customerType));
+    }
+    @Override
+    public Mono<Customer> findByDocumentNumber(String documentNumber) {
+        return Mono.justOrEmpty(idsByDocumentNumber.get(documentNumber)).flatMap(this::findById);
+    }
+    @Override
+    public Flux<Customer> findByDocumentNumberIn(Collection<String> documentNumbers) {
+        return Flux.fromIterable(documentNumbers).concatMap(this::findByDocumentNumber);
+    }
+    @Override
+    public Flux<Customer> findAllBy(Pageable pageable) {
+        return Flux.fromIterable(store.values()).take(pageable.getPageSize());
+    }
+    @Override
+    public Flux<Customer> findByIdGreaterThan(String id, Pageable pageable) {
+        return Flux.fromIterable(store.tailMap(id, false).values()).take(pageable.getPageSize());
+    }
+    @Override
+    public Flux<Customer> findByCustomerType(CustomerType customerType, Pageable pageable) {
+        return findByCustomerType(customerType).take(pageable.getPageSize());
+    }
+    @Override
+    public Flux<Customer> findByCustomerTypeAndIdGreaterThan(CustomerType customerType, String id,
+                                                            Pageable pageable) {
+        return Flux.fromIterable(store.tailMap(id, false).values())
+                .filter(ofType(customerType))
+                .take(pageable.getPageSize());
+    }
+    @Override
+    public Mono<Customer> insertWithEvent(Customer customer, Function<Customer, OutboxEvent> event) {
+        return insert(customer).flatMap(inserted -> outboxRepository.insert(event.apply(inserted))
+                .thenReturn(inserted));
+    }
+    @Override
+    public Mono<Map<Integer, Integer>> insertAllUnordered(List<Customer> customers) {
+        Map<Integer, Integer> errors = new HashMap<>();
+        return Flux.range(0, customers.size())
+                .concatMap(index -> insert(customers.get(index))
+                        .onErrorResume(DuplicateKeyException.class, e -> {
+                            errors.put(index, DUPLICATE_KEY_ERROR);
+                            return Mono.empty();
+                        }))
+                .then(Mono.just(errors));
+    }
+    @Override
+    public Mono<Map<Integer, Integer>> upsertAllByDocumentNumber(List<Customer> customers) {
+        // The document number index rejects existing customers just as the upsert skips them
+        return insertAllUnordered(customers).doOnNext(errors -> errors.keySet().removeIf(index -> {
+            Customer customer = customers.get(index);
+            Customer stored = store.get(idsByDocumentNumber.getOrDefault(customer.getDocumentNumber(), ""));
+            if (stored == null || customer.getOutboxMark() == null || stored.getOutboxMark() == null
+                    || !customer.getOutboxMark().getOwner().equals(stored.getOutboxMark().getOwner())) {
+                return false;
+            }
+            customer.setId(stored.getId());
+            return true;
+        }));
+    }
+    @Override
+    public Flux<Customer> releaseOutboxMarks(Collection<String> ids, String owner) {
+        return Flux.fromIterable(ids)
+                .concatMap(id -> Mono.justOrEmpty(store.get(id)))
+                .filter(customer -> customer.getOutboxMark() != null
+                        && owner.equals(customer.getOutboxMark().getOwner()))
+                .doOnNext(customer -> customer.setOutboxMark(null))
+                .concatMap(customer -> outboxRepository.insert(OutboxEvent.customerCreated(customer))
+                        .thenReturn(customer));
+    }
+    @Override
+    public Flux<Customer> findOutboxMarkedBefore(LocalDateTime markedBefore, int limit) {
+        return findAll()
+                .filter(customer -> customer.getOutboxMark() != null
+                        && customer.getOutboxMark().getMarkedAt().isBefore(markedBefore))
+                .take(limit);
+    }
+    @Override
+    public Mono<CustomerChange> findAndModifyById(String id, Long expectedVersion, UpdateDefinition update,
+                                                  UnaryOperator<Customer> applied,
+                                                  Function<Customer, OutboxEvent> event) {
+        return Mono.fromSupplier(() -> {
+            CustomerChange[] change = new CustomerChange[1];
+            store.computeIfPresent(id, (key, current) -> {
+                if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                    return current;
+                }
+                change[0] = new CustomerChange(current, applied.apply(current.toBuilder().build()));
+                return change[0].getAfter();
+            });
+            return change[0];
+        }).flatMap(change -> outboxRepository.insert(event.apply(change.getAfter())).thenReturn(change));
+    }
+    @Override
+    public Mono<Customer> findProjectedById(String id, String status, Collection<CustomerField> fields) {
+        return findById(id).filter(ofStatusOrAny(status));
+    }
+    @Override
+    public Flux<Customer> findProjectedByCustomerType(CustomerType customerType, String status,
+                                                      Collection<CustomerField> fields) {
+        return findByCustomerType(customerType).filter(ofStatusOrAny(status));
+    }
+    @Override
+    public Flux<Customer> findAllForExport(String status) {
+        return findAll().filter(ofStatusOrAny(status));
+    }
+    @Override
+    public Mono<CustomerStats> aggregateStats() {
+        return Mono.fromSupplier(() -> {
+            CustomerStatistics statistics = new CustomerStatistics();
+            store.values().forEach(statistics::recordCreated);
+            CustomerStats counted = statistics.snapshot();
+            counted.setReconciledAt(LocalDateTime.now());
+            return counted;
+        });
+    }
+    private static Predicate<Customer> ofType(CustomerType customerType) {
+        return customer -> customer.getCustomerType() == customerType;
+    }
+    private static Predicate<Customer> ofStatus(String status) {
+        return customer -> status.equals(customer.getStatus());
+    }
+    private static Predicate<Customer> ofStatusOrAny(String status) {
+        return status == null ? customer -> true : ofStatus(status);
+    }
+}
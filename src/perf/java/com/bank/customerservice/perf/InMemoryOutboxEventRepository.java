@@ -0,0 +1,33 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import com.bank.customerservice.repository.OutboxEventRepository;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+public class InMemoryOutboxEventRepository extends InMemoryRepository<OutboxEvent>
+        implements OutboxEventRepository {
+    public InMemoryOutboxEventRepository() {
+        super(OutboxEvent::getId, OutboxEvent::setId);
+    }
+    @Override
+    public Flux<OutboxEvent> findAllBy(Pageable pageable) {
+        return findAll().take(pageable.getPageSize());
+    }
+    @Override
+    public Mono<OutboxEvent> findFirstByOrderByCreatedAtAsc() {
+        return Mono.justOrEmpty(store.values().stream().min(Comparator.comparing(OutboxEvent::getCreatedAt)));
+    }
+    @Override
+    public Mono<Void> park(OutboxEvent event) {
+        return Mono.fromRunnable(() -> store.remove(event.getId()));
+    }
+    @Override
+    public Mono<Long> deleteByIdIn(Collection<String> ids) {
+        return Mono.fromSupplier(() -> ids.stream().filter(id -> store.remove(id) != null).count());
+    }
+}
@@ -0,0 +1,157 @@
+package com.bank.customerservice.perf;
+
+import org.bson.types.ObjectId;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Map-backed stand-in for a reactive Mongo repository, ordered by id the way the service's
+ * id-sorted queries expect. Query-by-example and custom sorts are not supported.
+ */
+public abstract class InMemoryRepository<T> implements ReactiveMongoRepository<T, String> {
+    protected final ConcurrentNavigableMap<String, T> store = new ConcurrentSkipListMap<>();
+    private final Function<T, String> idOf;
+    private final BiConsumer<T, String> assignId;
+
+    protected InMemoryRepository(Function<T, String> idOf, BiConsumer<T, String> assignId) {
+        this.idOf = idOf;
+        this.assignId = assignId;
+    }
+    protected String idFor(T entity) {
+        String id = idOf.apply(entity);
+        if (id == null) {
+            id = ObjectId.get().toHexString();
+            assignId.accept(entity, id);
+        }
+        return id;
+    }
+    public void clear() {
+        store.clear();
+    }
+    @Override
+    public <S extends T> Mono<S> insert(S entity) {
+        return Mono.fromCallable(() -> {
+            if (store.putIfAbsent(idFor(entity), entity) != null) {
+                throw new DuplicateKeyException("Duplicate id " + idOf.apply(entity));
+            }
+            return entity;
+        });
+    }
+    @Override
+    public <S extends T> Flux<S> insert(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::insert);
+    }
+    @Override
+    public <S extends T> Flux<S> insert(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::insert);
+    }
+    @Override
+    public <S extends T> Mono<S> save(S entity) {
+        return Mono.fromCallable(() -> {
+            store.put(idFor(entity), entity);
+            return entity;
+        });
+    }
+    @Override
+    public <S extends T> Flux<S> saveAll(Iterable<S> entities) {
+        return Flux.fromIterable(entities).concatMap(this::save);
+    }
+    @Override
+    public <S extends T> Flux<S> saveAll(Publisher<S> entities) {
+        return Flux.from(entities).concatMap(this::save);
+    }
+    @Override
+    public Mono<T> findById(String id) {
+        return Mono.justOrEmpty(store.get(id));
+    }
+    @Override
+    public Mono<T> findById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+    @Override
+    public Mono<Boolean> existsById(String id) {
+        return Mono.fromSupplier(() -> store.containsKey(id));
+    }
+    @Override
+    public Mono<Boolean> existsById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+    @Override
+    public Flux<T> findAll() {
+        return Flux.fromIterable(store.values());
+    }
+    @Override
+    public Flux<T> findAll(Sort sort) {
+        return findAll();
+    }
+    @Override
+    public Flux<T> findAllById(Iterable<String> ids) {
+        return Flux.fromIterable(ids).flatMap(this::findById);
+    }
+    @Override
+    public Flux<T> findAllById(Publisher<String> ids) {
+        return Flux.from(ids).flatMap(this::findById);
+    }
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) store.size());
+    }
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return Mono.fromRunnable(() -> store.remove(id));
+    }
+    @Override
+    public Mono<Void> deleteById(Publisher<String> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+    @Override
+    public Mono<Void> delete(T entity) {
+        return deleteById(idOf.apply(entity));
+    }
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends String> ids) {
+        return Mono.fromRunnable(() -> ids.forEach(store::remove));
+    }
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends T> entities) {
+        return Mono.fromRunnable(() -> entities.forEach(entity -> store.remove(idOf.apply(entity))));
+    }
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends T> entities) {
+        return Flux.from(entities).concatMap(this::delete).then();
+    }
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(store::clear);
+    }
+    @Override
+    public <S extends T> Mono<S> findOne(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example");
+    }
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example");
+    }
+    @Override
+    public <S extends T> Flux<S> findAll(Example<S> example, Sort sort) {
+        throw new UnsupportedOperationException("Query by example");
+    }
+    @Override
+    public <S extends T> Mono<Long> count(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example");
+    }
+    @Override
+    public <S extends T> Mono<Boolean> exists(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example");
+    }
+}
@@ -0,0 +1,42 @@
+package com.bank.customerservice.perf;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated round-trip time: a fixed base, uniform jitter on top, and an occasional slow tail
+ * so percentiles above p99 have something to show.
+ */
+public final class Latency {
+    public static final Latency NONE = new Latency(Duration.ZERO, Duration.ZERO, 0, Duration.ZERO);
+    private final long baseNanos;
+    private final long jitterNanos;
+    private final double tailProbability;
+    private final long tailNanos;
+
+    public Latency(Duration base, Duration jitter, double tailProbability, Duration tail) {
+        this.baseNanos = base.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        this.tailProbability = tailProbability;
+        this.tailNanos = tail.toNanos();
+    }
+    public boolean isNone() {
+        return baseNanos == 0 && jitterNanos == 0 && (tailProbability == 0 || tailNanos == 0);
+    }
+    public Duration sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long nanos = baseNanos;
+        if (jitterNanos > 0) {
+            nanos += random.nextLong(jitterNanos);
+        }
+        if (tailProbability > 0 && random.nextDouble() < tailProbability) {
+            nanos += tailNanos;
+        }
+        return Duration.ofNanos(nanos);
+    }
+    @Override
+    public String toString() {
+        return Duration.ofNanos(baseNanos) + "+U(0," + Duration.ofNanos(jitterNanos) + ")"
+                + (tailProbability > 0 ? " tail " + tailProbability + "@" + Duration.ofNanos(tailNanos) : "");
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.customerservice.perf;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+/**
+ * Wraps a reactive repository so every {@code Mono}/{@code Flux} it returns is delayed by a
+ * sampled {@link Latency}, the way a remote database round trip would delay it.
+ */
+public final class LatencyInjection {
+    private LatencyInjection() {
+    }
+    @SuppressWarnings("unchecked")
+    public static <T> T wrap(Class<T> type, T target, Latency latency) {
+        if (latency.isNone()) {
+            return target;
+        }
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Mono) {
+                return ((Mono<?>) result).delaySubscription(latency.sample());
+            }
+            if (result instanceof Flux) {
+                return ((Flux<?>) result).delaySubscription(latency.sample());
+            }
+            return result;
+        });
+    }
+}
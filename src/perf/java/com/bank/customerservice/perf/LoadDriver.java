@@ -0,0 +1,181 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.dto.CustomerLookupRequest;
+import com.bank.customerservice.model.customer.Customer;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Recorder;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop load generator: {@code loadtest.concurrency} virtual clients each send the next
+ * request as soon as the previous one completes, picking the endpoint by the weights in
+ * {@code loadtest.mix}. Latency is measured per endpoint from send to fully read response.
+ * Being closed-loop it understates latency once the service saturates; raise concurrency
+ * until throughput stops growing to find that point.
+ */
+@Slf4j
+public class LoadDriver {
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+    private final Environment environment;
+    private final LoadTestData data;
+    private final WebClient client;
+    private final LoopResources clientLoops;
+    private final int concurrency;
+    private final AtomicInteger createSequence;
+
+    public LoadDriver(Environment environment, LoadTestData data) {
+        this.environment = environment;
+        this.data = data;
+        this.concurrency = environment.getProperty("loadtest.concurrency", Integer.class, 64);
+        this.createSequence = new AtomicInteger(data.size());
+        // Own event loops and a pool sized to the concurrency, so the client does not queue
+        // requests or compete with the server's loops
+        this.clientLoops = LoopResources.create("loadtest-client");
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .runOn(clientLoops)
+                .option(ChannelOption.TCP_NODELAY, true);
+        this.client = WebClient.builder()
+                .baseUrl("http://localhost:" + environment.getRequiredProperty("local.server.port"))
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+    public LoadReport run() {
+        Duration warmup = environment.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(10));
+        Duration duration = environment.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(30));
+        Map<String, Endpoint> endpoints = endpoints(environment.getProperty("loadtest.mix",
+                "get-by-id:60,get-by-document:15,page:5,lookup:5,create:5,patch:10"));
+        try {
+            log.warn("Warming up for {} with {} clients", warmup, concurrency);
+            drive(endpoints, warmup);
+            endpoints.values().forEach(Endpoint::reset);
+            log.warn("Measuring for {} with {} clients", duration, concurrency);
+            long start = System.nanoTime();
+            drive(endpoints, duration);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            List<LoadReport.Row> rows = new ArrayList<>();
+            endpoints.forEach((name, endpoint) -> rows.add(new LoadReport.Row(name,
+                    endpoint.latencies.getIntervalHistogram(), endpoint.errors.sum(), elapsed)));
+            return new LoadReport(concurrency, elapsed, rows);
+        } finally {
+            clientLoops.dispose();
+        }
+    }
+    private void drive(Map<String, Endpoint> endpoints, Duration duration) {
+        List<Endpoint> weighted = new ArrayList<>();
+        endpoints.values().forEach(endpoint -> {
+            for (int i = 0; i < endpoint.weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        long deadline = System.nanoTime() + duration.toNanos();
+        Flux.range(0, concurrency)
+                .flatMap(client -> Mono.defer(() -> {
+                    Endpoint endpoint = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+                    return endpoint.call();
+                }).repeat(() -> System.nanoTime() < deadline), concurrency)
+                .blockLast(duration.plusMinutes(1));
+    }
+    private Map<String, Endpoint> endpoints(String mix) {
+        Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            String name = parts[0].trim();
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                endpoints.put(name, new Endpoint(weight, request(name)));
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix selects no endpoints");
+        }
+        return endpoints;
+    }
+    private Supplier<Mono<HttpStatus>> request(String name) {
+        switch (name) {
+            case "get-by-id":
+                return () -> exchange(client.get().uri("/api/customers/{id}", data.randomId()));
+            case "get-by-document":
+                return () -> exchange(client.get().uri("/api/customers/document/{documentNumber}",
+                        data.randomDocumentNumber()));
+            case "page":
+                return () -> exchange(client.get().uri("/api/customers?size=50"));
+            case "lookup":
+                return () -> exchange(client.post().uri("/api/customers/lookup")
+                        .bodyValue(CustomerLookupRequest.builder().ids(data.randomIds(20)).build()));
+            case "create":
+                return () -> {
+                    Customer customer = PerfFixtures.customer(createSequence.incrementAndGet());
+                    customer.setCreatedAt(null);
+                    customer.setStatus(null);
+                    customer.setVersion(null);
+                    return exchange(client.post().uri("/api/customers").bodyValue(customer));
+                };
+            case "patch":
+                return () -> exchange(client.patch().uri("/api/customers/{id}", data.randomId())
+                        .bodyValue(Customer.builder()
+                                .email("updated" + ThreadLocalRandom.current().nextInt(1000) + "@example.com")
+                                .build()));
+            default:
+                throw new IllegalArgumentException("Unknown load test endpoint " + name);
+        }
+    }
+    private Mono<HttpStatus> exchange(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()));
+    }
+
+    private static final class Endpoint {
+        private final int weight;
+        private final Supplier<Mono<HttpStatus>> request;
+        private final Recorder latencies = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        Endpoint(int weight, Supplier<Mono<HttpStatus>> request) {
+            this.weight = weight;
+            this.request = request;
+        }
+        Mono<HttpStatus> call() {
+            return Mono.defer(() -> {
+                long start = System.nanoTime();
+                return request.get()
+                        .doOnNext(status -> {
+                            latencies.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS,
+                                    (System.nanoTime() - start) / 1000));
+                            if (!status.is2xxSuccessful()) {
+                                errors.increment();
+                            }
+                        })
+                        .onErrorResume(e -> {
+                            errors.increment();
+                            return Mono.empty();
+                        });
+            });
+        }
+        void reset() {
+            latencies.reset();
+            errors.reset();
+        }
+    }
+}
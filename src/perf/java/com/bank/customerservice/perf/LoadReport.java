@@ -0,0 +1,97 @@
+package com.bank.customerservice.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput and latency percentiles per endpoint, printed as a table and saved as JSON.
+ */
+public class LoadReport {
+    private final int concurrency;
+    private final Duration elapsed;
+    private final List<Row> rows;
+
+    public LoadReport(int concurrency, Duration elapsed, List<Row> rows) {
+        this.concurrency = concurrency;
+        this.elapsed = elapsed;
+        this.rows = rows;
+    }
+    public void print(PrintStream out) {
+        out.printf("%nLoad test: %d clients for %.1fs%n", concurrency, elapsed.toMillis() / 1000.0);
+        out.printf("%-16s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Row row : rows) {
+            print(out, row);
+            total.add(row.latencies);
+            totalErrors += row.errors;
+        }
+        print(out, new Row("total", total, totalErrors, elapsed));
+    }
+    private static void print(PrintStream out, Row row) {
+        out.printf("%-16s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", row.endpoint, row.latencies.getTotalCount(),
+                row.errors, row.throughput(), row.percentileMillis(50), row.percentileMillis(99),
+                row.percentileMillis(99.9), row.latencies.getMaxValue() / 1000.0);
+    }
+    public void writeJson(String file) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("concurrency", concurrency);
+        json.put("durationSeconds", elapsed.toMillis() / 1000.0);
+        json.put("endpoints", rows.stream().map(Row::toJson).collect(Collectors.toList()));
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static class Row {
+        private final String endpoint;
+        private final Histogram latencies;
+        private final long errors;
+        private final Duration elapsed;
+
+        public Row(String endpoint, Histogram latencies, long errors, Duration elapsed) {
+            this.endpoint = endpoint;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsed = elapsed;
+        }
+        double throughput() {
+            return latencies.getTotalCount() / (elapsed.toNanos() / 1e9);
+        }
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("endpoint", endpoint);
+            json.put("requests", latencies.getTotalCount());
+            json.put("errors", errors);
+            json.put("throughput", throughput());
+            json.put("p50Ms", percentileMillis(50));
+            json.put("p99Ms", percentileMillis(99));
+            json.put("p999Ms", percentileMillis(99.9));
+            json.put("maxMs", latencies.getMaxValue() / 1000.0);
+            return json;
+        }
+    }
+}
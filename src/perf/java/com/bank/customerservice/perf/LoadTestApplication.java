@@ -0,0 +1,66 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.CustomerServiceApplication;
+import com.bank.customerservice.config.KafkaConfig;
+import com.bank.customerservice.config.MongoIndexConfig;
+import com.bank.customerservice.config.MongoTransactionConfig;
+import com.bank.customerservice.event.CustomerCacheInvalidationListener;
+import com.bank.customerservice.event.OutboxLease;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * Boots the service against in-memory Mongo and Kafka stand-ins ({@link LoadTestConfig}), with
+ * remote configuration and discovery off, then drives it with {@link LoadDriver}. Run with
+ * {@code mvn -Ploadtest verify -Dloadtest.args="--loadtest.duration=60s ..."}.
+ */
+@Slf4j
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        MongoAutoConfiguration.class,
+        MongoReactiveAutoConfiguration.class,
+        MongoDataAutoConfiguration.class,
+        MongoReactiveDataAutoConfiguration.class,
+        MongoReactiveRepositoriesAutoConfiguration.class})
+@ComponentScan(basePackageClasses = CustomerServiceApplication.class, excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ASSIGNABLE_TYPE,
+        classes = {
+            CustomerServiceApplication.class,
+            MongoIndexConfig.class,
+            MongoTransactionConfig.class,
+            KafkaConfig.class,
+            OutboxLease.class,
+            CustomerCacheInvalidationListener.class}))
+public class LoadTestApplication {
+    public static void main(String[] args) throws Exception {
+        // Read by the bootstrap context, before application-loadtest.yml is loaded
+        System.setProperty("spring.cloud.config.enabled", "false");
+        System.setProperty("spring.cloud.config.fail-fast", "false");
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadTestApplication.class)
+                .profiles("loadtest")
+                .run(args);
+        int exitCode = 0;
+        try {
+            LoadReport report = new LoadDriver(context.getEnvironment(), context.getBean(LoadTestData.class)).run();
+            report.print(System.out);
+            report.writeJson(context.getEnvironment().getProperty("loadtest.result", "target/loadtest-result.json"));
+        } catch (RuntimeException e) {
+            log.error("Load test failed", e);
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.event.OutboxLease;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.repository.CustomerImportRepository;
+import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory replacements for Mongo and Kafka used by the {@code loadtest} profile. Both inject
+ * latency so request timings resemble a deployed instance rather than a pure CPU benchmark.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+    private final InMemoryOutboxEventRepository outboxRepository = new InMemoryOutboxEventRepository();
+    private final InMemoryCustomerRepository customerRepository = new InMemoryCustomerRepository(outboxRepository);
+
+    @Bean
+    public LoadTestData loadTestData(@Value("${loadtest.customers:100000}") int customers) {
+        List<Customer> seeded = new ArrayList<>(customers);
+        for (int i = 0; i < customers; i++) {
+            seeded.add(PerfFixtures.customer(i));
+        }
+        Flux.fromIterable(seeded).concatMap(customerRepository::insert).blockLast();
+        List<String> ids = new ArrayList<>(customers);
+        List<String> documentNumbers = new ArrayList<>(customers);
+        seeded.forEach(customer -> {
+            ids.add(customer.getId());
+            documentNumbers.add(customer.getDocumentNumber());
+        });
+        return new LoadTestData(ids, documentNumbers);
+    }
+    @Bean
+    public CustomerRepository customerRepository(
+            @Value("${loadtest.mongo.latency:1ms}") Duration latency,
+            @Value("${loadtest.mongo.jitter:1ms}") Duration jitter,
+            @Value("${loadtest.mongo.tail-probability:0.001}") double tailProbability,
+            @Value("${loadtest.mongo.tail:20ms}") Duration tail) {
+        return LatencyInjection.wrap(CustomerRepository.class, customerRepository,
+                new Latency(latency, jitter, tailProbability, tail));
+    }
+    @Bean
+    public OutboxEventRepository outboxEventRepository(
+            @Value("${loadtest.mongo.latency:1ms}") Duration latency,
+            @Value("${loadtest.mongo.jitter:1ms}") Duration jitter) {
+        return LatencyInjection.wrap(OutboxEventRepository.class, outboxRepository,
+                new Latency(latency, jitter, 0, Duration.ZERO));
+    }
+    @Bean
+    public CustomerImportRepository customerImportRepository() {
+        return new InMemoryCustomerImportRepository();
+    }
+    @Bean
+    public TransactionalOperator transactionalOperator() {
+        return new NoTransactionalOperator();
+    }
+    @Bean
+    public KafkaTemplate<String, Customer> kafkaTemplate(
+            @Value("${loadtest.kafka.latency:2ms}") Duration latency,
+            @Value("${loadtest.kafka.jitter:2ms}") Duration jitter) {
+        StubKafkaProducer producer = new StubKafkaProducer(new Latency(latency, jitter, 0, Duration.ZERO));
+        return new KafkaTemplate<>(() -> producer);
+    }
+    @Bean
+    public OutboxLease outboxLease() {
+        return new OutboxLease(null, Duration.ofSeconds(10)) {
+            @Override
+            public Mono<Boolean> acquire() {
+                return Mono.just(true);
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.bank.customerservice.perf;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Keys of the customers seeded into the in-memory repository, for the driver to pick from.
+ */
+public class LoadTestData {
+    private final List<String> ids;
+    private final List<String> documentNumbers;
+
+    public LoadTestData(List<String> ids, List<String> documentNumbers) {
+        this.ids = ids;
+        this.documentNumbers = documentNumbers;
+    }
+    public String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+    public String randomDocumentNumber() {
+        return documentNumbers.get(ThreadLocalRandom.current().nextInt(documentNumbers.size()));
+    }
+    public List<String> randomIds(int count) {
+        return ThreadLocalRandom.current().ints(count, 0, ids.size()).mapToObj(ids::get)
+                .collect(Collectors.toList());
+    }
+    public int size() {
+        return ids.size();
+    }
+}
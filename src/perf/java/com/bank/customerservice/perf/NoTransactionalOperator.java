@@ -0,0 +1,23 @@
+package com.bank.customerservice.perf;
+
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.reactive.GenericReactiveTransaction;
+import org.springframework.transaction.reactive.TransactionCallback;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the work without a transaction, as the in-memory repositories have nothing to roll back.
+ */
+public class NoTransactionalOperator implements TransactionalOperator {
+    @Override
+    public <T> Mono<T> transactional(Mono<T> mono) {
+        return mono;
+    }
+    @Override
+    public <T> Flux<T> execute(TransactionCallback<T> action) {
+        ReactiveTransaction transaction = new GenericReactiveTransaction(null, true, false, false, false, null);
+        return Flux.from(action.doInTransaction(transaction));
+    }
+}
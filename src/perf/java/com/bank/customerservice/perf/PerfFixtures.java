@@ -0,0 +1,61 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.cache.CustomerCache;
+import com.bank.customerservice.event.CustomerEventProducer;
+import com.bank.customerservice.event.EventOrigin;
+import com.bank.customerservice.event.KafkaPublishQueue;
+import com.bank.customerservice.importer.CustomerFileReader;
+import com.bank.customerservice.importer.CustomerImporter;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import com.bank.customerservice.service.CustomerService;
+import com.bank.customerservice.service.CustomerStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Wires the production service over in-memory stand-ins for Mongo and Kafka.
+ */
+public final class PerfFixtures {
+    private PerfFixtures() {
+    }
+    public static Customer customer(int i) {
+        return Customer.builder()
+                .fullName("Customer " + i)
+                .documentNumber(String.format("DOC%08d", i))
+                .customerType(i % 4 == 0 ? CustomerType.BUSINESS : CustomerType.PERSONAL)
+                .email("customer" + i + "@example.com")
+                .phone("+519" + String.format("%08d", i))
+                .createdAt(LocalDateTime.now())
+                .status("ACTIVE")
+                .version(0L)
+                .build();
+    }
+    public static InMemoryCustomerRepository populatedRepository(int customers) {
+        InMemoryCustomerRepository repository = new InMemoryCustomerRepository(new InMemoryOutboxEventRepository());
+        for (int i = 0; i < customers; i++) {
+            repository.insert(customer(i)).block();
+        }
+        return repository;
+    }
+    public static CustomerService service(InMemoryCustomerRepository repository) {
+        return new CustomerService(repository, eventProducer(), new CustomerCache(100_000, Duration.ofMinutes(5)),
+                new CustomerStatistics(), new CustomerSearchIndex(20_000));
+    }
+    public static CustomerImporter importer(InMemoryCustomerRepository repository) {
+        return new CustomerImporter(new CustomerFileReader(Jackson2ObjectMapperBuilder.json().build()), repository,
+                new InMemoryCustomerImportRepository(), new NoTransactionalOperator(), new CustomerStatistics(),
+                new CustomerSearchIndex(20_000), eventProducer(), new SimpleMeterRegistry(), 1000, 4);
+    }
+    private static CustomerEventProducer eventProducer() {
+        StubKafkaProducer producer = new StubKafkaProducer();
+        return new CustomerEventProducer(new KafkaTemplate<>(() -> producer),
+                new KafkaPublishQueue(new SimpleMeterRegistry(), 10_000, 1, "drop-oldest"), new EventOrigin(),
+                new SimpleMeterRegistry());
+    }
+}
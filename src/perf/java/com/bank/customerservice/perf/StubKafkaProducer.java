@@ -0,0 +1,58 @@
+package com.bank.customerservice.perf;
+
+import com.bank.customerservice.event.codec.CustomerSerializer;
+import com.bank.customerservice.model.customer.Customer;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringSerializer;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Producer that encodes every record the way the real one would and acknowledges it after the
+ * configured broker latency, without keeping a send history.
+ */
+public class StubKafkaProducer extends MockProducer<String, Customer> {
+    private final CustomerSerializer serializer = new CustomerSerializer();
+    private final Latency ackLatency;
+
+    public StubKafkaProducer() {
+        this(Latency.NONE);
+    }
+    public StubKafkaProducer(Latency ackLatency) {
+        super(true, new StringSerializer(), new CustomerSerializer());
+        this.ackLatency = ackLatency;
+    }
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<String, Customer> record, Callback callback) {
+        byte[] value = serializer.serialize(record.topic(), new RecordHeaders(), record.value());
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition(record.topic(), 0), 0, 0,
+                System.currentTimeMillis(), null, record.key() != null ? record.key().length() : 0,
+                value != null ? value.length : 0);
+        if (ackLatency.isNone()) {
+            if (callback != null) {
+                callback.onCompletion(metadata, null);
+            }
+            return CompletableFuture.completedFuture(metadata);
+        }
+        CompletableFuture<RecordMetadata> ack = new CompletableFuture<>();
+        Schedulers.parallel().schedule(() -> {
+            if (callback != null) {
+                callback.onCompletion(metadata, null);
+            }
+            ack.complete(metadata);
+        }, ackLatency.sample().toNanos(), TimeUnit.NANOSECONDS);
+        return ack;
+    }
+    @Override
+    public void close(Duration timeout) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.bank.customerservice;
+import com.bank.customerservice.config.StartupReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+class FastStartupTest {
+    // About twice a cold start under coverage on a single-core build agent, so only a real regression fails it
+    private static final Duration STARTUP_BUDGET = Duration.ofSeconds(45);
+    @Test
+    void fastStartProfile_StartsWithinBudgetAndReportsWhereTheTimeWent() {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = CustomerServiceApplication.application().run(
+                "--spring.profiles.active=fast-start",
+                "--spring.cloud.config.enabled=false",
+                "--eureka.client.enabled=false",
+                "--server.port=0",
+                // Readiness work that needs Mongo, which unit tests run without
+                "--customer.mongo.transactions.check=false",
+                "--customer.mongo.indexes.enabled=false",
+                "--customer.search.load.enabled=false",
+                "--customer.stats.reconcile.enabled=false",
+                "--customer.outbox.relay.enabled=false")) {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            assertTrue(elapsed.compareTo(STARTUP_BUDGET) < 0, "Started in " + elapsed.toMillis() + " ms");
+            assertFalse(context.getBeanFactory().containsSingleton("customerController"));
+            StartupReport.Breakdown breakdown = context.getBean(StartupReport.class).getBreakdown();
+            assertNotNull(breakdown);
+            assertFalse(breakdown.getBeans().isEmpty());
+            assertTrue(breakdown.getConfigurations().keySet().stream()
+                    .anyMatch(name -> name.endsWith("AutoConfiguration")));
+        }
+    }
+}
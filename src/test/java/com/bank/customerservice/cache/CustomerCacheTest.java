@@ -0,0 +1,89 @@
+package com.bank.customerservice.cache;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomerCacheTest {
+    private CustomerCache customerCache;
+    private Customer customer;
+    @BeforeEach
+    void setUp() {
+        customerCache = new CustomerCache(100, Duration.ofMinutes(5));
+        customer = Customer.builder()
+                .id("1")
+                .fullName("John Doe")
+                .documentNumber("DOC123")
+                .customerType(CustomerType.PERSONAL)
+                .status("ACTIVE")
+                .build();
+    }
+    @Test
+    void getById_RecordsHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+        customerCache.getById("1", id -> {
+            loads.incrementAndGet();
+            return Mono.just(customer);
+        }).block();
+        StepVerifier.create(customerCache.getById("1", id -> Mono.error(new IllegalStateException())))
+                .expectNext(customer)
+                .verifyComplete();
+        assertEquals(1, loads.get());
+        assertEquals(1, customerCache.idStats().hitCount());
+        assertEquals(1, customerCache.idStats().missCount());
+    }
+    @Test
+    void getById_ConcurrentLookupsShareOneLoad() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        customerCache.bindTo(registry);
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<Customer> result = Sinks.one();
+        Flux<Customer> burst = Flux.range(0, 50)
+                .flatMap(i -> customerCache.getById("1", id -> {
+                    loads.incrementAndGet();
+                    return result.asMono();
+                }));
+        StepVerifier.create(burst)
+                .then(() -> result.tryEmitValue(customer))
+                .expectNextCount(50)
+                .verifyComplete();
+        assertEquals(1, loads.get());
+        assertEquals(1, registry.get("customer.cache.loads").tag("key", "id").functionCounter().count());
+        assertEquals(49, registry.get("customer.cache.coalesced").tag("key", "id").functionCounter().count());
+    }
+    @Test
+    void getByDocumentNumber_EmptyResultIsNotCached() {
+        StepVerifier.create(customerCache.getByDocumentNumber("DOC123", documentNumber -> Mono.empty()))
+                .verifyComplete();
+        StepVerifier.create(customerCache.getByDocumentNumber("DOC123", documentNumber -> Mono.just(customer)))
+                .expectNext(customer)
+                .verifyComplete();
+    }
+    @Test
+    void refresh_ReplacesBothKeys() {
+        Customer deleted = Customer.builder()
+                .id("1")
+                .documentNumber("DOC123")
+                .status("DELETED")
+                .build();
+        customerCache.getById("1", id -> Mono.just(customer)).block();
+        customerCache.refresh(deleted);
+        StepVerifier.create(customerCache.getById("1", id -> Mono.just(customer)))
+                .expectNext(deleted)
+                .verifyComplete();
+        StepVerifier.create(customerCache.getByDocumentNumber("DOC123", documentNumber -> Mono.just(customer)))
+                .expectNext(deleted)
+                .verifyComplete();
+    }
+}
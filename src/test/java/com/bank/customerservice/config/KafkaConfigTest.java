@@ -0,0 +1,60 @@
+package com.bank.customerservice.config;
+
+import com.bank.customerservice.event.codec.CustomerDeserializer;
+import com.bank.customerservice.event.codec.CustomerEventFormat;
+import com.bank.customerservice.event.codec.CustomerSerializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KafkaConfigTest {
+    private static final String VALUE_SERIALIZER = ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG;
+    private static final String VALUE_DESERIALIZER = ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG;
+    @Test
+    void testAcceptsUnsetDefaultOrMatchingSerializer() {
+        assertDoesNotThrow(() -> KafkaConfig.requireSerializer(Collections.emptyMap(), VALUE_SERIALIZER,
+                CustomerSerializer.class, CustomerEventFormat.JSON));
+        assertDoesNotThrow(() -> KafkaConfig.requireSerializer(Map.of(VALUE_SERIALIZER, StringSerializer.class),
+                VALUE_SERIALIZER, CustomerSerializer.class, CustomerEventFormat.JSON));
+        assertDoesNotThrow(() -> KafkaConfig.requireSerializer(Map.of(VALUE_SERIALIZER,
+                ByteArraySerializer.class.getName()), VALUE_SERIALIZER, CustomerSerializer.class,
+                CustomerEventFormat.BINARY));
+        assertDoesNotThrow(() -> KafkaConfig.requireSerializer(Map.of(VALUE_SERIALIZER,
+                CustomerSerializer.class.getName()), VALUE_SERIALIZER, CustomerSerializer.class,
+                CustomerEventFormat.BINARY));
+    }
+    @Test
+    void testAcceptsSpringJsonSerializersWhileFormatIsJson() {
+        // The setting existing deployments carry from before the customer codec
+        assertDoesNotThrow(() -> KafkaConfig.requireSerializer(Map.of(VALUE_SERIALIZER,
+                JsonSerializer.class.getName()), VALUE_SERIALIZER, CustomerSerializer.class,
+                CustomerEventFormat.JSON));
+        assertDoesNotThrow(() -> KafkaConfig.requireSerializer(Map.of(VALUE_DESERIALIZER,
+                JsonDeserializer.class), VALUE_DESERIALIZER, CustomerDeserializer.class, CustomerEventFormat.JSON));
+        assertDoesNotThrow(() -> KafkaConfig.requireFormat(Map.of(CustomerSerializer.FORMAT_CONFIG, "json"),
+                CustomerEventFormat.JSON));
+    }
+    @Test
+    void testFailsOnConflictingSerializer() {
+        assertThrows(IllegalStateException.class, () -> KafkaConfig.requireSerializer(
+                Map.of(VALUE_SERIALIZER, LongSerializer.class.getName()), VALUE_SERIALIZER,
+                CustomerSerializer.class, CustomerEventFormat.JSON));
+        assertThrows(IllegalStateException.class, () -> KafkaConfig.requireSerializer(
+                Map.of(VALUE_SERIALIZER, JsonSerializer.class.getName()), VALUE_SERIALIZER,
+                CustomerSerializer.class, CustomerEventFormat.BINARY));
+        // The binary codec asked for in the producer properties while the format is JSON
+        assertThrows(IllegalStateException.class, () -> KafkaConfig.requireFormat(
+                Map.of(CustomerSerializer.FORMAT_CONFIG, "binary"), CustomerEventFormat.JSON));
+    }
+}
@@ -0,0 +1,47 @@
+package com.bank.customerservice.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsConfigTest {
+    private SimpleMeterRegistry meterRegistry;
+    @BeforeEach
+    void setUp() {
+        MetricsConfig config = new MetricsConfig();
+        meterRegistry = new SimpleMeterRegistry();
+        meterRegistry.config()
+                .meterFilter(config.repositoryOutcomeTagFilter())
+                .meterFilter(config.latencyHistogramFilter());
+    }
+    @Test
+    void testSloTimersPublishHistogram() {
+        MeterFilter filter = new MetricsConfig().latencyHistogramFilter();
+        assertTrue(filter.configure(timerId("http.server.requests"), DistributionStatisticConfig.DEFAULT)
+                .isPercentileHistogram());
+        assertTrue(filter.configure(timerId("customer.kafka.send"), DistributionStatisticConfig.DEFAULT)
+                .isPercentileHistogram());
+        assertFalse(filter.configure(timerId("customer.other"), DistributionStatisticConfig.DEFAULT)
+                .isPercentileHistogram());
+    }
+    private Meter.Id timerId(String name) {
+        return new Meter.Id(name, Tags.empty(), null, null, Meter.Type.TIMER);
+    }
+    @Test
+    void testRepositoryStateTagRenamedToOutcome() {
+        meterRegistry.timer(MetricsConfig.REPOSITORY_INVOCATIONS, "method", "findById", "state", "SUCCESS")
+                .record(Duration.ofMillis(1));
+        assertNotNull(meterRegistry.get(MetricsConfig.REPOSITORY_INVOCATIONS)
+                .tags("method", "findById", "outcome", "SUCCESS").timer());
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.customerservice.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MongoTransactionConfigTest {
+    @Test
+    void testReplicaSetAndShardedClusterSupportTransactions() {
+        assertTrue(MongoTransactionConfig.supportsTransactions(new Document("ismaster", true)
+                .append("setName", "rs0")));
+        assertTrue(MongoTransactionConfig.supportsTransactions(new Document("ismaster", true)
+                .append("msg", "isdbgrid")));
+    }
+    @Test
+    void testStandaloneDoesNotSupportTransactions() {
+        assertFalse(MongoTransactionConfig.supportsTransactions(new Document("ismaster", true)
+                .append("maxWireVersion", 13)));
+    }
+}
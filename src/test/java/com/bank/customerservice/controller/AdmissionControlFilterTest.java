@@ -0,0 +1,115 @@
+package com.bank.customerservice.controller;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+class AdmissionControlFilterTest {
+    private static final WebFilterChain HANDLED = exchange -> Mono.empty();
+    private static final InetSocketAddress GATEWAY = new InetSocketAddress("10.0.0.1", 40000);
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlFilter filter;
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AdmissionControlFilter(new ObjectMapper(), meterRegistry, true, 1, 2, 2,
+                Set.of("10.0.0.1"));
+    }
+    @Test
+    void filter_ThrottlesClientOnceBurstIsSpent() {
+        assertNull(send("batch-job", "/api/customers/1", HANDLED).getResponse().getStatusCode());
+        assertNull(send("batch-job", "/api/customers/2", HANDLED).getResponse().getStatusCode());
+        MockServerWebExchange rejected = send("batch-job", "/api/customers/3", HANDLED);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        StepVerifier.create(rejected.getResponse().getBodyAsString())
+                .expectNextMatches(body -> body.contains("\"status\":429"))
+                .verifyComplete();
+        assertEquals(2, count("admitted"));
+        assertEquals(1, count("throttled"));
+    }
+    @Test
+    void filter_KeepsBucketsPerClientAndEndpoint() {
+        send("batch-job", "/api/customers/1", HANDLED);
+        send("batch-job", "/api/customers/2", HANDLED);
+        assertNull(send("batch-job", "/api/customers/document/DOC1", HANDLED).getResponse().getStatusCode());
+        assertNull(send("branch-app", "/api/customers/1", HANDLED).getResponse().getStatusCode());
+        assertEquals(0, count("throttled"));
+    }
+    @Test
+    void filter_IgnoresClientIdFromUntrustedCallers() {
+        InetSocketAddress caller = new InetSocketAddress("192.168.1.20", 50000);
+        send(exchange("id-1", "/api/customers/1", caller));
+        send(exchange("id-2", "/api/customers/1", caller));
+        MockServerWebExchange rejected = send(exchange("id-3", "/api/customers/1", caller));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+    }
+    @Test
+    void filter_KeysUnresolvedCallersOnTheirHostName() {
+        InetSocketAddress unresolved = InetSocketAddress.createUnresolved("client.internal", 50000);
+        send(exchange("id-1", "/api/customers/1", unresolved));
+        send(exchange("id-1", "/api/customers/1", unresolved));
+        MockServerWebExchange rejected = send(exchange("id-1", "/api/customers/1", unresolved));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+    }
+    @Test
+    void filter_ShedsWhenInFlightLimitIsReached() {
+        WebFilterChain pending = exchange -> Mono.never();
+        Disposable first = filter.filter(exchange("a", "/api/customers/1"), pending).subscribe();
+        Disposable second = filter.filter(exchange("b", "/api/customers/1"), pending).subscribe();
+        MockServerWebExchange shed = send("c", "/api/customers/1", HANDLED);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, shed.getResponse().getStatusCode());
+        assertTrue(shed.getResponse().getHeaders().containsKey(HttpHeaders.RETRY_AFTER));
+        first.dispose();
+        assertNull(send("c", "/api/customers/1", HANDLED).getResponse().getStatusCode());
+        second.dispose();
+        assertEquals(0, meterRegistry.get("customer.admission.in.flight").gauge().value());
+        assertEquals(1, count("shed"));
+    }
+    @Test
+    void filter_IgnoresOtherPaths() {
+        for (int i = 0; i < 5; i++) {
+            assertNull(send("batch-job", "/actuator/health", HANDLED).getResponse().getStatusCode());
+        }
+        assertEquals(0, count("admitted"));
+    }
+    @Test
+    void endpointOf_ReplacesValuesWithWildcards() {
+        assertEquals("/api/customers", AdmissionControlFilter.endpointOf("/api/customers"));
+        assertEquals("/api/customers/*/vip-pym/status",
+                AdmissionControlFilter.endpointOf("/api/customers/42/vip-pym/status"));
+        assertEquals("/api/customers/type/*", AdmissionControlFilter.endpointOf("/api/customers/type/BUSINESS"));
+    }
+    private MockServerWebExchange send(String client, String path, WebFilterChain chain) {
+        MockServerWebExchange exchange = exchange(client, path);
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+    private MockServerWebExchange send(MockServerWebExchange exchange) {
+        filter.filter(exchange, HANDLED).block();
+        return exchange;
+    }
+    private static MockServerWebExchange exchange(String client, String path) {
+        return exchange(client, path, GATEWAY);
+    }
+    private static MockServerWebExchange exchange(String client, String path, InetSocketAddress remote) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path)
+                .remoteAddress(remote)
+                .header(AdmissionControlFilter.CLIENT_ID_HEADER, client));
+    }
+    private double count(String outcome) {
+        return meterRegistry.get("customer.admission.requests").tag("outcome", outcome).counter().count();
+    }
+}
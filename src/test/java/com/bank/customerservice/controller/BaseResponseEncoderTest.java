@@ -0,0 +1,119 @@
+package com.bank.customerservice.controller;
+
+import com.bank.customerservice.dto.BaseResponse;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BaseResponseEncoderTest {
+    private static final ResolvableType RESPONSE_TYPE =
+            ResolvableType.forClassWithGenerics(BaseResponse.class, Customer.class);
+    private static final BaseResponse<Customer> NOT_FOUND = BaseResponse.<Customer>builder()
+            .status(404)
+            .message("Customer not found")
+            .build();
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private ObjectMapper objectMapper;
+    private BaseResponseEncoder encoder;
+    private BaseResponse<Customer> found;
+    @BeforeEach
+    void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        encoder = new BaseResponseEncoder(objectMapper, List.of(NOT_FOUND));
+        found = BaseResponse.<Customer>builder()
+                .status(200)
+                .message("Customer details retrieved successfully")
+                .data(Customer.builder()
+                        .id("6512bd43d9caa6e02c990b0a")
+                        .fullName("José Pérez")
+                        .documentNumber("DOC123")
+                        .customerType(CustomerType.PERSONAL)
+                        .email("jose@example.com")
+                        .status("ACTIVE")
+                        .createdAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000))
+                        .version(3L)
+                        .build())
+                .build();
+    }
+    @Test
+    void testEncodesSameJsonAsJackson() throws Exception {
+        Jackson2JsonEncoder jackson = new Jackson2JsonEncoder(objectMapper);
+        assertEquals(objectMapper.readTree(encode(jackson, found)), objectMapper.readTree(encode(encoder, found)));
+        assertEquals(objectMapper.readTree(encode(jackson, NOT_FOUND)),
+                objectMapper.readTree(encode(encoder, NOT_FOUND)));
+        BaseResponse<Customer> notConstant = BaseResponse.<Customer>builder().status(400).message("bad").build();
+        assertEquals(objectMapper.readTree(encode(jackson, notConstant)),
+                objectMapper.readTree(encode(encoder, notConstant)));
+    }
+    @Test
+    void testOmitsNullsWhenMapperExcludesThem() throws Exception {
+        ObjectMapper nonNull = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+        JsonNode json = nonNull.readTree(encode(new BaseResponseEncoder(nonNull, Collections.emptyList()),
+                BaseResponse.builder().status(400).build()));
+        assertEquals(1, json.size());
+        assertFalse(json.has("data"));
+    }
+    @Test
+    void testOnlyEncodesResponseEnvelopesAsJson() {
+        assertTrue(encoder.canEncode(RESPONSE_TYPE, MediaType.APPLICATION_JSON));
+        assertTrue(encoder.canEncode(RESPONSE_TYPE, null));
+        assertFalse(encoder.canEncode(RESPONSE_TYPE, MediaType.APPLICATION_XML));
+        assertFalse(encoder.canEncode(ResolvableType.forClass(Customer.class), MediaType.APPLICATION_JSON));
+    }
+    @Test
+    void testAllocatesLessPerResponseThanJackson() {
+        Jackson2JsonEncoder jackson = new Jackson2JsonEncoder(objectMapper);
+        assertTrue(allocatedPerResponse(encoder, NOT_FOUND) < allocatedPerResponse(jackson, NOT_FOUND));
+        assertTrue(allocatedPerResponse(encoder, found) < allocatedPerResponse(jackson, found));
+    }
+    private String encode(Encoder<?> encoder, BaseResponse<?> response) {
+        DataBuffer buffer = encodeValue(encoder, response);
+        try {
+            return buffer.toString(StandardCharsets.UTF_8);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+    @SuppressWarnings("unchecked")
+    private DataBuffer encodeValue(Encoder<?> encoder, BaseResponse<?> response) {
+        return ((Encoder<Object>) encoder).encodeValue(response, bufferFactory, RESPONSE_TYPE,
+                MediaType.APPLICATION_JSON, Collections.emptyMap());
+    }
+    private long allocatedPerResponse(Encoder<?> encoder, BaseResponse<?> response) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int iterations = 5_000;
+        for (int i = 0; i < iterations; i++) {
+            DataBufferUtils.release(encodeValue(encoder, response));
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            DataBufferUtils.release(encodeValue(encoder, response));
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / iterations;
+    }
+}
@@ -1,5 +1,13 @@
 package com.bank.customerservice.controller;
+import com.bank.customerservice.dto.BatchItemResult;
+import com.bank.customerservice.dto.CustomerLookup;
+import com.bank.customerservice.dto.CustomerLookupRequest;
+import com.bank.customerservice.dto.CustomerPage;
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.importer.CustomerImporter;
 import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerImport;
 import com.bank.customerservice.model.customer.CustomerType;
 import com.bank.customerservice.service.CustomerService;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,28 +15,55 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class CustomerControllerTest {
     @Mock
     private CustomerService customerService;
+    @Mock
+    private CustomerImporter customerImporter;
+    @Spy
+    private CustomerExportWriter exportWriter = new CustomerExportWriter(Jackson2ObjectMapperBuilder.json().build(), 2);
     @InjectMocks
     private CustomerController customerController;
     private WebTestClient webTestClient;
     private Customer customer;
     @BeforeEach
     void setUp() {
-        webTestClient = WebTestClient.bindToController(customerController).build();
+        webTestClient = WebTestClient.bindToController(customerController)
+                .httpMessageCodecs(configurer -> configurer.customCodecs().register(new BaseResponseEncoder(
+                        Jackson2ObjectMapperBuilder.json().build(), CustomerController.CONSTANT_RESPONSES)))
+                .build();
         customer = Customer.builder()
                 .id("1")
                 .fullName("John Doe")
@@ -71,9 +106,49 @@ class CustomerControllerTest {
                 .jsonPath("$.data").isEqualTo(null);
     }
     @Test
+    void createCustomers_Success() {
+        BatchItemResult created = BatchItemResult.builder()
+                .index(0)
+                .status(201)
+                .message("Customer successfully created")
+                .data(customer)
+                .build();
+        BatchItemResult duplicate = BatchItemResult.builder()
+                .index(1)
+                .status(400)
+                .message("Customer with this document number already exists")
+                .build();
+        when(customerService.createCustomers(anyList()))
+                .thenReturn(Mono.just(Arrays.asList(created, duplicate)));
+        webTestClient.post()
+                .uri("/api/customers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Arrays.asList(customer, customer))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Customer batch processed")
+                .jsonPath("$.data[0].status").isEqualTo(201)
+                .jsonPath("$.data[0].data.id").isEqualTo(customer.getId())
+                .jsonPath("$.data[1].status").isEqualTo(400);
+    }
+    @Test
+    void createCustomers_TooLarge() {
+        when(customerService.createCustomers(anyList()))
+                .thenReturn(Mono.error(new IllegalArgumentException("Batch size must not exceed 10000")));
+        webTestClient.post()
+                .uri("/api/customers/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Arrays.asList(customer))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Batch size must not exceed 10000");
+    }
+    @Test
     void getAllCustomers_Success() {
         List<Customer> customers = Arrays.asList(customer);
-        when(customerService.getAllCustomers())
+        when(customerService.getAllCustomers(false))
                 .thenReturn(Flux.fromIterable(customers));
         webTestClient.get()
                 .uri("/api/customers")
@@ -85,8 +160,100 @@ class CustomerControllerTest {
                 .jsonPath("$.data[0].id").isEqualTo(customer.getId());
     }
     @Test
+    void getCustomersPage_Success() {
+        CustomerPage page = CustomerPage.builder()
+                .content(Arrays.asList(customer))
+                .size(1)
+                .nextCursor("MQ")
+                .build();
+        when(customerService.getCustomersPage(isNull(), anyInt(), eq(false)))
+                .thenReturn(Mono.just(page));
+        webTestClient.get()
+                .uri("/api/customers?size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(200)
+                .jsonPath("$.data.content[0].id").isEqualTo(customer.getId())
+                .jsonPath("$.data.nextCursor").isEqualTo("MQ");
+    }
+    @Test
+    void getCustomersPageByType_InvalidCursor() {
+        when(customerService.getCustomersPageByType(any(CustomerType.class), anyString(), anyInt(), eq(false)))
+                .thenReturn(Mono.error(new IllegalArgumentException("Invalid page cursor")));
+        webTestClient.get()
+                .uri("/api/customers/type/{type}?size=10&cursor=%%%", CustomerType.PERSONAL)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.message").isEqualTo("Invalid page cursor");
+    }
+    @Test
+    void streamAllCustomers_Ndjson() {
+        when(customerService.getAllCustomers(false))
+                .thenReturn(Flux.just(customer));
+        webTestClient.get()
+                .uri("/api/customers")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Customer.class)
+                .hasSize(1)
+                .contains(customer);
+    }
+    @Test
+    void streamAllCustomers_EventStream() {
+        when(customerService.getAllCustomers(false))
+                .thenReturn(Flux.just(customer));
+        webTestClient.get()
+                .uri("/api/customers")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(Customer.class)
+                .getResponseBody()
+                .as(StepVerifier::create)
+                .expectNextMatches(streamed -> streamed.getId().equals(customer.getId()))
+                .verifyComplete();
+    }
+    @Test
+    void streamCustomers_RejectsPaging() {
+        webTestClient.get()
+                .uri("/api/customers?size=10")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.message").isEqualTo("size and cursor cannot be used when streaming");
+        webTestClient.get()
+                .uri("/api/customers?cursor=MQ")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get()
+                .uri("/api/customers/type/{type}?size=10&cursor=MQ", CustomerType.PERSONAL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+        verifyNoInteractions(customerService);
+    }
+    @Test
+    void getCustomersPage_WithoutAcceptIsNotTakenForAStream() {
+        when(customerService.getCustomersPage(null, 10, false))
+                .thenReturn(Mono.just(CustomerPage.builder().content(List.of(customer)).size(10).build()));
+        webTestClient.get()
+                .uri("/api/customers?size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+    @Test
     void getCustomerById_Success() {
-        when(customerService.getCustomerById(anyString()))
+        when(customerService.getCustomerById(anyString(), eq(false)))
                 .thenReturn(Mono.just(customer));
         webTestClient.get()
                 .uri("/api/customers/{id}", "1")
@@ -98,8 +265,47 @@ class CustomerControllerTest {
                 .jsonPath("$.data.id").isEqualTo(customer.getId());
     }
     @Test
+    void getCustomerById_IncludeDeleted() {
+        customer.setStatus(Customer.STATUS_DELETED);
+        when(customerService.getCustomerById("1", true))
+                .thenReturn(Mono.just(customer));
+        webTestClient.get()
+                .uri("/api/customers/{id}?includeDeleted=true", "1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.status").isEqualTo(Customer.STATUS_DELETED);
+    }
+    @Test
+    void getCustomerById_NotModified() {
+        customer.setVersion(3L);
+        when(customerService.getCustomerById(anyString(), eq(false)))
+                .thenReturn(Mono.just(customer));
+        webTestClient.get()
+                .uri("/api/customers/{id}", "1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody().isEmpty();
+    }
+    @Test
+    void getCustomerByDocumentNumber_ReturnsETag() {
+        customer.setVersion(3L);
+        when(customerService.getCustomerByDocumentNumber(anyString(), eq(false)))
+                .thenReturn(Mono.just(customer));
+        webTestClient.get()
+                .uri("/api/customers/document/{documentNumber}", "DOC123")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody()
+                .jsonPath("$.data.version").isEqualTo(3);
+    }
+    @Test
     void getCustomerById_NotFound() {
-        when(customerService.getCustomerById(anyString()))
+        when(customerService.getCustomerById(anyString(), eq(false)))
                 .thenReturn(Mono.empty());
         webTestClient.get()
                 .uri("/api/customers/{id}", "1")
@@ -111,9 +317,181 @@ class CustomerControllerTest {
                 .jsonPath("$.data").isEqualTo(null);
     }
     @Test
+    void exportCustomers_StreamsGzipNdjson() throws IOException {
+        when(customerService.exportCustomers(false)).thenReturn(Flux.just(customer, customer, customer));
+        byte[] body = webTestClient.get()
+                .uri("/api/customers/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"customers.ndjson\"")
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        String[] lines = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(),
+                StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":\"1\",\"fullName\":\"John Doe\""));
+    }
+    @Test
+    void exportCustomers_UnknownFormat() {
+        webTestClient.get()
+                .uri("/api/customers/export?format=XML")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verifyNoInteractions(customerService);
+    }
+    @Test
+    void importCustomers_Success() {
+        when(customerImporter.importCustomers(eq("legacy"), eq(CustomerFileFormat.CSV), any()))
+                .thenReturn(Mono.just(CustomerImport.builder()
+                        .id("legacy")
+                        .state(CustomerImport.STATE_COMPLETED)
+                        .position(2)
+                        .created(2)
+                        .build()));
+        webTestClient.post()
+                .uri("/api/customers/import?importId=legacy&format=CSV")
+                .contentType(CustomerFileFormat.CSV.getMediaType())
+                .bodyValue("documentNumber,fullName\n1,Ann\n2,Bob\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Customer import completed")
+                .jsonPath("$.data.state").isEqualTo("COMPLETED")
+                .jsonPath("$.data.created").isEqualTo(2);
+    }
+    @Test
+    void importCustomers_InvalidFile() {
+        when(customerImporter.importCustomers(eq("legacy"), eq(CustomerFileFormat.NDJSON), any()))
+                .thenReturn(Mono.error(new IllegalArgumentException("Unknown customer field nickname")));
+        webTestClient.post()
+                .uri("/api/customers/import?importId=legacy")
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Unknown customer field nickname");
+    }
+    @Test
+    void getCustomerImport_NotFound() {
+        when(customerImporter.getImport("legacy")).thenReturn(Mono.empty());
+        webTestClient.get()
+                .uri("/api/customers/import/legacy")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Customer import not found");
+    }
+    @Test
+    void getCustomerStats_Success() {
+        when(customerService.getCustomerStats())
+                .thenReturn(Mono.just(CustomerStats.builder()
+                        .total(3)
+                        .byStatus(Map.of("ACTIVE", 2L, "DELETED", 1L))
+                        .byType(Map.of("PERSONAL", 2L))
+                        .vipCount(1)
+                        .build()));
+        webTestClient.get()
+                .uri("/api/customers/stats")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Customer statistics retrieved successfully")
+                .jsonPath("$.data.total").isEqualTo(3)
+                .jsonPath("$.data.byStatus.DELETED").isEqualTo(1)
+                .jsonPath("$.data.vipCount").isEqualTo(1);
+    }
+    @Test
+    void searchCustomers_Success() {
+        Customer customer = Customer.builder().id("1").fullName("John Doe").build();
+        when(customerService.searchCustomers("john", 5)).thenReturn(Mono.just(List.of(customer)));
+        webTestClient.get()
+                .uri("/api/customers/search?q=john&limit=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data[0].fullName").isEqualTo("John Doe");
+    }
+    @Test
+    void searchCustomers_QueryTooShort() {
+        when(customerService.searchCustomers("jo", 20))
+                .thenReturn(Mono.error(new IllegalArgumentException("Search query too short")));
+        webTestClient.get()
+                .uri("/api/customers/search?q=jo")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Search query too short");
+    }
+    @Test
+    void lookupCustomers_Success() {
+        CustomerLookup lookup = CustomerLookup.builder()
+                .ids(Arrays.asList(
+                        CustomerLookup.Entry.builder().key("1").found(true).data(customer).build(),
+                        CustomerLookup.Entry.builder().key("9").found(false).build()))
+                .documentNumbers(Collections.emptyList())
+                .build();
+        when(customerService.lookupCustomers(any(CustomerLookupRequest.class)))
+                .thenReturn(Mono.just(lookup));
+        webTestClient.post()
+                .uri("/api/customers/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(CustomerLookupRequest.builder().ids(Arrays.asList("1", "9")).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.ids[0].data.id").isEqualTo(customer.getId())
+                .jsonPath("$.data.ids[1].key").isEqualTo("9")
+                .jsonPath("$.data.ids[1].found").isEqualTo(false);
+    }
+    @Test
+    void getCustomerFieldsById_ReturnsOnlySelectedFields() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("fullName", customer.getFullName());
+        summary.put("vip", false);
+        when(customerService.getCustomerFieldsById("1", "fullName,vip", false))
+                .thenReturn(Mono.just(summary));
+        webTestClient.get()
+                .uri("/api/customers/{id}?fields=fullName,vip", "1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.fullName").isEqualTo(customer.getFullName())
+                .jsonPath("$.data.vip").isEqualTo(false)
+                .jsonPath("$.data.email").doesNotExist();
+    }
+    @Test
+    void getCustomerFieldsByType_UnknownField() {
+        when(customerService.getCustomerFieldsByType(CustomerType.PERSONAL, "salary", false))
+                .thenReturn(Flux.error(new IllegalArgumentException("Unknown customer field salary")));
+        webTestClient.get()
+                .uri("/api/customers/type/{type}?fields=salary", CustomerType.PERSONAL)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Unknown customer field salary");
+    }
+    @Test
+    void getCustomersByType_RejectsFieldsWithPaging() {
+        webTestClient.get()
+                .uri("/api/customers/type/{type}?fields=fullName&size=10", CustomerType.PERSONAL)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("fields cannot be combined with size or cursor");
+        webTestClient.get()
+                .uri("/api/customers/type/{type}?fields=fullName&cursor=MQ", CustomerType.PERSONAL)
+                .exchange()
+                .expectStatus().isBadRequest();
+        verifyNoInteractions(customerService);
+    }
+    @Test
     void getCustomerByType_Success() {
         List<Customer> customers = Arrays.asList(customer);
-        when(customerService.getCustomerByType(any(CustomerType.class)))
+        when(customerService.getCustomerByType(any(CustomerType.class), eq(false)))
                 .thenReturn(Flux.fromIterable(customers));
         webTestClient.get()
                 .uri("/api/customers/type/{type}", CustomerType.PERSONAL)
@@ -125,8 +503,22 @@ class CustomerControllerTest {
                 .jsonPath("$.data[0].id").isEqualTo(customer.getId());
     }
     @Test
+    void streamCustomerByType_Ndjson() {
+        when(customerService.getCustomerByType(any(CustomerType.class), eq(false)))
+                .thenReturn(Flux.just(customer));
+        webTestClient.get()
+                .uri("/api/customers/type/{type}", CustomerType.PERSONAL)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Customer.class)
+                .hasSize(1)
+                .contains(customer);
+    }
+    @Test
     void updateCustomer_Success() {
-        when(customerService.updateCustomer(anyString(), any(Customer.class)))
+        when(customerService.updateCustomer(anyString(), any(Customer.class), isNull()))
                 .thenReturn(Mono.just(customer));
         webTestClient.put()
                 .uri("/api/customers/{id}", "1")
@@ -140,8 +532,33 @@ class CustomerControllerTest {
                 .jsonPath("$.data.id").isEqualTo(customer.getId());
     }
     @Test
+    void updateCustomer_IfMatchConflict() {
+        when(customerService.updateCustomer(anyString(), any(Customer.class), eq(2L)))
+                .thenReturn(Mono.error(
+                        new OptimisticLockingFailureException("Customer was modified by another request")));
+        webTestClient.put()
+                .uri("/api/customers/{id}", "1")
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(customer)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(412)
+                .jsonPath("$.message").isEqualTo("Customer was modified by another request");
+    }
+    @Test
+    void deleteCustomer_MalformedIfMatch() {
+        webTestClient.delete()
+                .uri("/api/customers/{id}", "1")
+                .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        verifyNoInteractions(customerService);
+    }
+    @Test
     void updateCustomer_NotFound() {
-        when(customerService.updateCustomer(anyString(), any(Customer.class)))
+        when(customerService.updateCustomer(anyString(), any(Customer.class), isNull()))
                 .thenReturn(Mono.empty());
         webTestClient.put()
                 .uri("/api/customers/{id}", "1")
@@ -155,6 +572,46 @@ class CustomerControllerTest {
                 .jsonPath("$.data").isEqualTo(null);
     }
     @Test
+    void patchCustomer_Success() {
+        when(customerService.patchCustomer(anyString(), any(Customer.class), isNull()))
+                .thenReturn(Mono.just(customer));
+        webTestClient.patch()
+                .uri("/api/customers/{id}", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Customer.builder().email("john@example.com").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(200)
+                .jsonPath("$.data.email").isEqualTo(customer.getEmail());
+    }
+    @Test
+    void patchCustomer_NotFound() {
+        when(customerService.patchCustomer(anyString(), any(Customer.class), isNull()))
+                .thenReturn(Mono.empty());
+        webTestClient.patch()
+                .uri("/api/customers/{id}", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Customer.builder().email("john@example.com").build())
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Customer not found");
+    }
+    @Test
+    void patchCustomer_NothingToUpdate() {
+        when(customerService.patchCustomer(anyString(), any(Customer.class), isNull()))
+                .thenReturn(Mono.error(new IllegalArgumentException("No updatable fields provided")));
+        webTestClient.patch()
+                .uri("/api/customers/{id}", "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Customer())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("No updatable fields provided");
+    }
+    @Test
     void deleteCustomer_Success() {
         Customer deletedCustomer = Customer.builder()
                 .id(customer.getId())
@@ -167,7 +624,7 @@ class CustomerControllerTest {
                 .status("DELETED")
                 .modifiedAt(LocalDateTime.now())
                 .build();
-        when(customerService.deleteCustomer(anyString()))
+        when(customerService.deleteCustomer(anyString(), isNull()))
                 .thenReturn(Mono.just(deletedCustomer));
         webTestClient.delete()
                 .uri("/api/customers/{id}", "1")
@@ -180,7 +637,7 @@ class CustomerControllerTest {
     }
     @Test
     void deleteCustomer_NotFound() {
-        when(customerService.deleteCustomer(anyString()))
+        when(customerService.deleteCustomer(anyString(), isNull()))
                 .thenReturn(Mono.empty());
         webTestClient.delete()
                 .uri("/api/customers/{id}", "1")
@@ -217,7 +674,7 @@ class CustomerControllerTest {
                 .isVip(true)
                 .build();
 
-        when(customerService.updateVipPymStatus(anyString(), any(Boolean.class)))
+        when(customerService.updateVipPymStatus(anyString(), any(Boolean.class), isNull()))
                 .thenReturn(Mono.just(updatedCustomer));
 
         webTestClient.put()
@@ -231,7 +688,7 @@ class CustomerControllerTest {
     }
     @Test
     void updateVipPymStatus_NotFound() {
-        when(customerService.updateVipPymStatus(anyString(), any(Boolean.class)))
+        when(customerService.updateVipPymStatus(anyString(), any(Boolean.class), isNull()))
                 .thenReturn(Mono.empty());
         webTestClient.put()
                 .uri("/api/customers/{customerId}/vip-pym/status?isVipPym=true", "1")
@@ -0,0 +1,81 @@
+package com.bank.customerservice.controller;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+class CustomerExportWriterTest {
+    private CustomerExportWriter writer;
+    @BeforeEach
+    void setUp() {
+        writer = new CustomerExportWriter(Jackson2ObjectMapperBuilder.json().build(), 2);
+    }
+    @Test
+    void write_CsvQuotesValuesWithSeparators() throws IOException {
+        Customer customer = Customer.builder()
+                .id("1")
+                .fullName("Doe, John \"JD\"")
+                .customerType(CustomerType.PERSONAL)
+                .status("ACTIVE")
+                .isVip(true)
+                .build();
+        String[] rows = unzip(writer.write(Flux.just(customer), CustomerFileFormat.CSV, new DefaultDataBufferFactory())
+                .collectList().block()).split("\r\n");
+        assertEquals("id,fullName,documentNumber,customerType,email,phone,createdAt,modifiedAt,status,version,"
+                + "vip,pym", rows[0]);
+        assertEquals("1,\"Doe, John \"\"JD\"\"\",,PERSONAL,,,,,ACTIVE,,true,false", rows[1]);
+    }
+    @Test
+    void write_EmptyExportIsValidGzip() throws IOException {
+        assertEquals("", unzip(writer.write(Flux.empty(), CustomerFileFormat.NDJSON, new DefaultDataBufferFactory())
+                .collectList().block()));
+    }
+    @Test
+    void write_EmitsEachChunkBeforeTheSourceCompletes() throws IOException {
+        Sinks.Many<Customer> source = Sinks.many().unicast().onBackpressureBuffer();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        StepVerifier.create(writer.write(source.asFlux(), CustomerFileFormat.NDJSON, new DefaultDataBufferFactory()))
+                .then(() -> {
+                    source.tryEmitNext(Customer.builder().id("1").build());
+                    source.tryEmitNext(Customer.builder().id("2").build());
+                })
+                .consumeNextWith(buffer -> copy(buffer, received))
+                .then(() -> {
+                    source.tryEmitNext(Customer.builder().id("3").build());
+                    source.tryEmitComplete();
+                })
+                .consumeNextWith(buffer -> copy(buffer, received))
+                .consumeNextWith(buffer -> copy(buffer, received))
+                .verifyComplete();
+        String[] lines = new String(new GZIPInputStream(new ByteArrayInputStream(received.toByteArray()))
+                .readAllBytes(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"id\":\"3\"", lines[2].substring(0, 9));
+    }
+    private static String unzip(List<DataBuffer> buffers) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        buffers.forEach(buffer -> copy(buffer, bytes));
+        return new String(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+    }
+    private static void copy(DataBuffer buffer, ByteArrayOutputStream to) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        to.writeBytes(bytes);
+    }
+}
@@ -0,0 +1,144 @@
+package com.bank.customerservice.event;
+
+import com.bank.customerservice.cache.CustomerCache;
+import com.bank.customerservice.event.codec.CustomerSerializer;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerChange;
+import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import com.bank.customerservice.service.CustomerService;
+import com.bank.customerservice.service.CustomerStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two service instances sharing one repository, with a {@link MockProducer} standing in for
+ * the broker: writes on node A must evict the copy cached on node B.
+ */
+@ExtendWith(MockitoExtension.class)
+class CustomerCacheInvalidationListenerTest {
+    @Mock
+    private CustomerRepository customerRepository;
+    private MockProducer<String, Customer> broker;
+    private KafkaPublishQueue publishQueue;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerService nodeA;
+    private CustomerService nodeB;
+    private CustomerCacheInvalidationListener nodeBListener;
+    private CustomerSearchIndex nodeBSearchIndex;
+    private Customer customer;
+    @BeforeEach
+    void setUp() {
+        broker = new MockProducer<>(true, new StringSerializer(), new CustomerSerializer());
+        publishQueue = new KafkaPublishQueue(new SimpleMeterRegistry(), 100, 1, "drop-oldest");
+        EventOrigin nodeBOrigin = new EventOrigin();
+        CustomerEventProducer nodeAProducer = new CustomerEventProducer(new KafkaTemplate<>(() -> broker),
+                publishQueue, new EventOrigin(), new SimpleMeterRegistry());
+        CustomerEventProducer nodeBProducer = new CustomerEventProducer(new KafkaTemplate<>(() -> broker),
+                publishQueue, nodeBOrigin, new SimpleMeterRegistry());
+        CustomerCache nodeBCache = new CustomerCache(100, Duration.ofMinutes(5));
+        nodeBSearchIndex = new CustomerSearchIndex(1000);
+        meterRegistry = new SimpleMeterRegistry();
+        nodeA = new CustomerService(customerRepository, nodeAProducer, new CustomerCache(100, Duration.ofMinutes(5)),
+                new CustomerStatistics(), new CustomerSearchIndex(1000));
+        nodeB = new CustomerService(customerRepository, nodeBProducer, nodeBCache, new CustomerStatistics(),
+                nodeBSearchIndex);
+        nodeBListener = new CustomerCacheInvalidationListener(nodeBCache, nodeBSearchIndex, nodeBOrigin,
+                meterRegistry);
+        customer = Customer.builder()
+                .id("1")
+                .fullName("John Doe")
+                .documentNumber("DOC123")
+                .customerType(CustomerType.PERSONAL)
+                .status("ACTIVE")
+                .build();
+    }
+    @Test
+    void writeOnOneNodeEvictsOtherNodes() throws InterruptedException {
+        Customer vipCustomer = Customer.builder()
+                .id("1")
+                .fullName("John Doe")
+                .documentNumber("DOC123")
+                .customerType(CustomerType.PERSONAL)
+                .status("ACTIVE")
+                .isVip(true)
+                .build();
+        when(customerRepository.findById("1"))
+                .thenReturn(Mono.just(customer), Mono.just(vipCustomer));
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, vipCustomer)));
+        nodeB.getCustomerById("1", false).block();
+        nodeA.updateVipPymStatus("1", true, null).block();
+        publishQueue.shutdown();
+
+        List<ProducerRecord<String, Customer>> sent = broker.history().stream()
+                .filter(record -> record.topic().equals(CustomerEventProducer.CACHE_INVALIDATION_TOPIC))
+                .collect(Collectors.toList());
+        assertEquals(1, sent.size());
+        sent.forEach(record -> nodeBListener.onInvalidation(received(record)));
+
+        StepVerifier.create(nodeB.getCustomerById("1", false))
+                .expectNextMatches(Customer::isVip)
+                .verifyComplete();
+        verify(customerRepository, times(2)).findById("1");
+        assertEquals(1, meterRegistry.get("customer.cache.invalidation.lag").timer().count());
+        assertEquals(List.of("1"), nodeBSearchIndex.search("John", 10));
+    }
+    @Test
+    void olderWriteArrivingLateDoesNotOverwriteTheIndex() {
+        Customer renamed = customer.toBuilder().fullName("Johnny Walker").version(2L).build();
+        customer.setVersion(1L);
+        nodeBListener.onInvalidation(received(new ProducerRecord<>(CustomerEventProducer.CACHE_INVALIDATION_TOPIC,
+                "1", renamed)));
+        nodeBListener.onInvalidation(received(new ProducerRecord<>(CustomerEventProducer.CACHE_INVALIDATION_TOPIC,
+                "1", customer)));
+        assertEquals(List.of("1"), nodeBSearchIndex.search("Walker", 10));
+        assertEquals(List.of(), nodeBSearchIndex.search("Doe", 10));
+    }
+    @Test
+    void ownWritesAreSkippedWhenTheyComeBack() throws InterruptedException {
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, customer.toBuilder().isVip(true).build())));
+        nodeB.updateVipPymStatus("1", true, null).block();
+        publishQueue.shutdown();
+        assertEquals(1, broker.history().size());
+        nodeBListener.onInvalidation(received(broker.history().get(0)));
+        // Still cached from the write rather than evicted by its own invalidation
+        StepVerifier.create(nodeB.getCustomerById("1", false))
+                .expectNextMatches(Customer::isVip)
+                .verifyComplete();
+        verify(customerRepository, never()).findById("1");
+        assertEquals(0, meterRegistry.get("customer.cache.invalidation.lag").timer().count());
+    }
+    private static ConsumerRecord<String, Customer> received(ProducerRecord<String, Customer> record) {
+        return new ConsumerRecord<>(record.topic(), 0, 0, System.currentTimeMillis(), TimestampType.CREATE_TIME,
+                0L, 0, 0, record.key(), record.value(), record.headers());
+    }
+}
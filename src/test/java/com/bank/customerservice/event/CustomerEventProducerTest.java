@@ -2,30 +2,43 @@ package com.bank.customerservice.event;
 
 import com.bank.customerservice.model.customer.Customer;
 import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.util.concurrent.SettableListenableFuture;
+import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CustomerEventProducerTest {
     @Mock
     private KafkaTemplate<String, Customer> kafkaTemplate;
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private CustomerEventProducer customerEventProducer;
+    private final EventOrigin origin = new EventOrigin();
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        customerEventProducer = new CustomerEventProducer(kafkaTemplate,
+                new KafkaPublishQueue(meterRegistry, 100, 1, "drop-oldest"), origin, meterRegistry);
+    }
     @Test
-    void testPublishCustomerCreated() {
+    void testPublishOutboxEvent() {
         Customer customer = Customer.builder()
                 .id("1")
                 .fullName("John Doe")
@@ -40,8 +53,43 @@ class CustomerEventProducerTest {
                 customer.getId(), customer);
         SettableListenableFuture<SendResult<String, Customer>> future = new SettableListenableFuture<>();
         future.set(new SendResult<>(producerRecord, null));
-        when(kafkaTemplate.send(anyString(), anyString(), any(Customer.class))).thenReturn(future);
-        customerEventProducer.publishCustomerCreated(customer);
-        verify(kafkaTemplate, times(1)).send("customer-created", customer.getId(), customer);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        StepVerifier.create(customerEventProducer.publish(OutboxEvent.customerCreated(customer)))
+                .verifyComplete();
+        verify(kafkaTemplate, times(1)).send(producerRecord);
+        assertEquals(1, meterRegistry.get("customer.kafka.send")
+                .tags("topic", "customer-created", "outcome", "SUCCESS").timer().count());
+    }
+    @Test
+    void testPublishCacheInvalidation() {
+        Customer customer = Customer.builder()
+                .id("1")
+                .documentNumber("DOC123")
+                .build();
+        SettableListenableFuture<SendResult<String, Customer>> future = new SettableListenableFuture<>();
+        future.set(new SendResult<>(new ProducerRecord<>(CustomerEventProducer.CACHE_INVALIDATION_TOPIC,
+                customer.getId(), customer), null));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        customerEventProducer.publishCacheInvalidation(customer);
+        ArgumentCaptor<ProducerRecord<String, Customer>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, timeout(1000).times(1)).send(sent.capture());
+        assertEquals(CustomerEventProducer.CACHE_INVALIDATION_TOPIC, sent.getValue().topic());
+        assertEquals(customer, sent.getValue().value());
+        assertTrue(origin.isLocal(sent.getValue().headers()));
+        assertFalse(new EventOrigin().isLocal(sent.getValue().headers()));
+    }
+    @Test
+    void testPublishOutboxEventFailure() {
+        Customer customer = Customer.builder().id("1").build();
+        SettableListenableFuture<SendResult<String, Customer>> future = new SettableListenableFuture<>();
+        future.setException(new IllegalStateException("broker unavailable"));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(future);
+        StepVerifier.create(customerEventProducer.publish(OutboxEvent.customerCreated(customer)))
+                .expectError(IllegalStateException.class)
+                .verify();
+        assertEquals(1, meterRegistry.get("customer.kafka.send")
+                .tags("topic", "customer-created", "outcome", "FAILURE").timer().count());
+        assertEquals(1.0, meterRegistry.get("customer.kafka.send.failures")
+                .tags("exception", "IllegalStateException").counter().count());
     }
 }
\ No newline at end of file
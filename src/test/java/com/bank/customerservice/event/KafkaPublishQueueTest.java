@@ -0,0 +1,112 @@
+package com.bank.customerservice.event;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A broker stuck in {@code send} (as during a metadata fetch or with a full buffer) must not
+ * hold up the non-blocking threads that hand it work.
+ */
+class KafkaPublishQueueTest {
+    private final CountDownLatch brokerAvailable = new CountDownLatch(1);
+    private SlowBroker broker;
+    private SimpleMeterRegistry meterRegistry;
+    private KafkaPublishQueue publishQueue;
+    @BeforeEach
+    void setUp() {
+        broker = new SlowBroker();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        brokerAvailable.countDown();
+        publishQueue.shutdown();
+    }
+    @Test
+    void eventLoopNeverBlocksWhileBrokerIsSlow() throws InterruptedException {
+        CustomerEventProducer eventProducer = producer(4, "drop-oldest");
+
+        Long elapsedMillis = Mono.fromCallable(() -> {
+            assertTrue(Schedulers.isInNonBlockingThread());
+            long start = System.nanoTime();
+            for (int i = 1; i <= 20; i++) {
+                eventProducer.publishCacheInvalidation(Customer.builder().id(String.valueOf(i)).build());
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }).subscribeOn(Schedulers.parallel()).block(Duration.ofSeconds(1));
+
+        assertTrue(elapsedMillis < 200, "publishing took " + elapsedMillis + "ms");
+        assertEquals(4, publishQueue.depth());
+        assertEquals(4.0, meterRegistry.get("customer.events.queue.depth").gauge().value());
+        assertEquals(15.0, meterRegistry.get("customer.events.dropped").counter().count());
+
+        brokerAvailable.countDown();
+        publishQueue.shutdown();
+        List<String> sent = broker.history().stream().map(ProducerRecord::key).collect(Collectors.toList());
+        assertEquals(List.of("1", "17", "18", "19", "20"), sent);
+        assertTrue(broker.sendThreads.stream().allMatch(name -> name.startsWith("customer-events-")));
+    }
+    @Test
+    void droppedOutboxPublishFailsInsteadOfWaiting() {
+        CustomerEventProducer eventProducer = producer(1, "drop-newest");
+        Customer customer = Customer.builder().id("1").build();
+        eventProducer.publish(OutboxEvent.customerUpdated(customer)).subscribe();
+        eventProducer.publish(OutboxEvent.customerUpdated(customer)).subscribe();
+
+        StepVerifier.create(eventProducer.publish(OutboxEvent.customerUpdated(customer)))
+                .expectError(RejectedExecutionException.class)
+                .verify(Duration.ofSeconds(1));
+        assertEquals(1.0, meterRegistry.get("customer.events.dropped").counter().count());
+    }
+    private CustomerEventProducer producer(int capacity, String overflowPolicy) {
+        publishQueue = new KafkaPublishQueue(meterRegistry, capacity, 1, overflowPolicy);
+        return new CustomerEventProducer(new KafkaTemplate<>(() -> broker), publishQueue, new EventOrigin(),
+                meterRegistry);
+    }
+
+    private class SlowBroker extends MockProducer<String, Customer> {
+        private final List<String> sendThreads = new CopyOnWriteArrayList<>();
+
+        SlowBroker() {
+            super(true, new StringSerializer(), (topic, data) -> new byte[0]);
+        }
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, Customer> record, Callback callback) {
+            sendThreads.add(Thread.currentThread().getName());
+            try {
+                brokerAvailable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.send(record, callback);
+        }
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.bank.customerservice.event;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import com.bank.customerservice.model.outbox.OutboxMark;
+import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.kafka.KafkaException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    private static final int MAX_ATTEMPTS = 5;
+    @Mock
+    private OutboxEventRepository outboxRepository;
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private CustomerEventProducer eventProducer;
+    @Mock
+    private OutboxLease lease;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxRepository, customerRepository, eventProducer, lease, meterRegistry, 3,
+                MAX_ATTEMPTS, Duration.ofMillis(200), Duration.ofMinutes(1), false);
+    }
+    private static OutboxEvent event(String id, String customerId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .aggregateId(customerId)
+                .topic("customer-created")
+                .payload(Customer.builder().id(customerId).build())
+                .createdAt(LocalDateTime.now().minusSeconds(5))
+                .build();
+    }
+    private void emptiedOutbox() {
+        when(outboxRepository.findFirstByOrderByCreatedAtAsc())
+                .thenReturn(Mono.empty());
+    }
+    @Test
+    void drainBatch_SendsPerCustomerInOrderAndDeletesSent() {
+        OutboxEvent a1 = event("e1", "A");
+        OutboxEvent b1 = event("e2", "B");
+        OutboxEvent a2 = event("e3", "A");
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(a1, b1, a2));
+        when(eventProducer.publish(any(OutboxEvent.class)))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.deleteByIdIn(anyCollection()))
+                .thenReturn(Mono.just(3L));
+        when(outboxRepository.findFirstByOrderByCreatedAtAsc())
+                .thenReturn(Mono.just(event("e4", "C")));
+        StepVerifier.create(relay.drainBatch())
+                .expectNext(3)
+                .verifyComplete();
+        InOrder customerA = inOrder(eventProducer);
+        customerA.verify(eventProducer).publish(a1);
+        customerA.verify(eventProducer).publish(a2);
+        ArgumentCaptor<Collection<String>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxRepository).deleteByIdIn(deleted.capture());
+        assertEquals(new HashSet<>(Arrays.asList("e1", "e2", "e3")), new HashSet<>(deleted.getValue()));
+        assertEquals(3, meterRegistry.get("customer.outbox.published").counter().count());
+        assertTrue(meterRegistry.get("customer.outbox.lag").gauge().value() >= 5000);
+    }
+    @Test
+    void drainBatch_FailureHoldsBackLaterEventsOfSameCustomer() {
+        OutboxEvent a1 = event("e1", "A");
+        OutboxEvent b1 = event("e2", "B");
+        OutboxEvent a2 = event("e3", "A");
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(a1, b1, a2));
+        when(eventProducer.publish(a1))
+                .thenReturn(Mono.error(new IllegalStateException("broker unavailable")));
+        when(eventProducer.publish(b1))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.save(a1))
+                .thenReturn(Mono.just(a1));
+        when(outboxRepository.deleteByIdIn(anyCollection()))
+                .thenReturn(Mono.just(1L));
+        emptiedOutbox();
+        StepVerifier.create(relay.drainBatch())
+                .expectNext(1)
+                .verifyComplete();
+        verify(eventProducer, never()).publish(a2);
+        verify(outboxRepository).deleteByIdIn(Collections.singletonList("e2"));
+        assertEquals(1, a1.getAttempts());
+        assertEquals("broker unavailable", a1.getLastError());
+        assertEquals(1, meterRegistry.get("customer.outbox.failed").counter().count());
+    }
+    @Test
+    void drainBatch_ReadsEachCustomerInVersionOrderWhateverTheIds() {
+        // The later ObjectId carries the earlier version, as when two instances wrote one customer
+        OutboxEvent v2 = event("e1", "A");
+        v2.setAggregateVersion(2L);
+        OutboxEvent v1 = event("e2", "A");
+        v1.setAggregateVersion(1L);
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(v1, v2));
+        when(eventProducer.publish(any(OutboxEvent.class)))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.deleteByIdIn(anyCollection()))
+                .thenReturn(Mono.just(2L));
+        emptiedOutbox();
+        StepVerifier.create(relay.drainBatch())
+                .expectNext(2)
+                .verifyComplete();
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(outboxRepository).findAllBy(page.capture());
+        assertEquals(Sort.by("aggregateId", "aggregateVersion", "id"), page.getValue().getSort());
+        InOrder customerA = inOrder(eventProducer);
+        customerA.verify(eventProducer).publish(v1);
+        customerA.verify(eventProducer).publish(v2);
+        assertEquals(0, meterRegistry.get("customer.outbox.lag").gauge().value());
+    }
+    @Test
+    void drainBatch_ParksAnEventThatKeepsFailingAndSendsTheOnesBehindIt() {
+        OutboxEvent poison = event("e1", "A");
+        poison.setAttempts(MAX_ATTEMPTS - 1);
+        OutboxEvent a2 = event("e2", "A");
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(poison, a2));
+        when(eventProducer.publish(poison))
+                .thenReturn(Mono.error(new SerializationException("Can't serialize customer A")));
+        when(eventProducer.publish(a2))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.park(poison))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.deleteByIdIn(anyCollection()))
+                .thenReturn(Mono.just(1L));
+        emptiedOutbox();
+        StepVerifier.create(relay.drainBatch())
+                .expectNext(1)
+                .verifyComplete();
+        verify(outboxRepository).deleteByIdIn(Collections.singletonList("e2"));
+        verify(outboxRepository, never()).save(poison);
+        assertEquals(MAX_ATTEMPTS, poison.getAttempts());
+        assertEquals(1, meterRegistry.get("customer.outbox.parked").counter().count());
+    }
+    @Test
+    void drainBatch_KeepsRetryingWhileTheBrokerIsUnavailable() {
+        OutboxEvent a1 = event("e1", "A");
+        a1.setAttempts(MAX_ATTEMPTS);
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(a1));
+        when(eventProducer.publish(a1))
+                .thenReturn(Mono.error(new KafkaException("Send failed",
+                        new TimeoutException("Topic customer-created not present in metadata"))));
+        when(outboxRepository.save(a1))
+                .thenReturn(Mono.just(a1));
+        when(outboxRepository.findFirstByOrderByCreatedAtAsc())
+                .thenReturn(Mono.just(a1));
+        StepVerifier.create(relay.drainBatch())
+                .expectNext(0)
+                .verifyComplete();
+        verify(outboxRepository, never()).park(any(OutboxEvent.class));
+        assertEquals(MAX_ATTEMPTS + 1, a1.getAttempts());
+        assertEquals(0, meterRegistry.get("customer.outbox.parked").counter().count());
+    }
+    @Test
+    void drainAll_ContinuesWhileBatchesAreFull() {
+        when(lease.acquire())
+                .thenReturn(Mono.just(true));
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(event("e1", "A"), event("e2", "B"), event("e3", "C")),
+                        Flux.just(event("e4", "D")));
+        when(eventProducer.publish(any(OutboxEvent.class)))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.deleteByIdIn(anyCollection()))
+                .thenReturn(Mono.just(1L));
+        emptiedOutbox();
+        StepVerifier.create(relay.drainAll())
+                .expectNext(4)
+                .verifyComplete();
+    }
+    @Test
+    void drainAll_StopsWhenTheLeaseIsLost() {
+        when(lease.acquire())
+                .thenReturn(Mono.just(false));
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(event("e1", "A"), event("e2", "B"), event("e3", "C")));
+        when(eventProducer.publish(any(OutboxEvent.class)))
+                .thenReturn(Mono.empty());
+        when(outboxRepository.deleteByIdIn(anyCollection()))
+                .thenReturn(Mono.just(3L));
+        emptiedOutbox();
+        StepVerifier.create(relay.drainAll())
+                .expectNext(3)
+                .verifyComplete();
+        verify(outboxRepository).findAllBy(any(Pageable.class));
+    }
+    @Test
+    void recoverMarked_ReleasesAbandonedMarksPerOwner() {
+        Customer a = Customer.builder().id("A").outboxMark(OutboxMark.of("batch-1")).build();
+        Customer b = Customer.builder().id("B").outboxMark(OutboxMark.of("import-1")).build();
+        Customer c = Customer.builder().id("C").outboxMark(OutboxMark.of("batch-1")).build();
+        when(customerRepository.findOutboxMarkedBefore(any(LocalDateTime.class), eq(3)))
+                .thenReturn(Flux.just(a, b, c));
+        when(customerRepository.releaseOutboxMarks(Arrays.asList("A", "C"), "batch-1"))
+                .thenReturn(Flux.just(a, c));
+        when(customerRepository.releaseOutboxMarks(Collections.singletonList("B"), "import-1"))
+                .thenReturn(Flux.just(b));
+        StepVerifier.create(relay.recoverMarked())
+                .expectNext(3)
+                .verifyComplete();
+    }
+    @Test
+    void drainBatch_EmptyOutboxResetsLag() {
+        when(outboxRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.empty());
+        StepVerifier.create(relay.drainBatch())
+                .expectNext(0)
+                .verifyComplete();
+        assertEquals(0, meterRegistry.get("customer.outbox.lag").gauge().value());
+    }
+}
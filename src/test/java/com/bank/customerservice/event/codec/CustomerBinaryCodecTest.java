@@ -0,0 +1,57 @@
+package com.bank.customerservice.event.codec;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerType;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerBinaryCodecTest {
+    private final Customer customer = Customer.builder()
+            .id("6565f0c2a1b2c3d4e5f60718")
+            .fullName("José Pérez")
+            .documentNumber("DOC123")
+            .customerType(CustomerType.BUSINESS)
+            .email("jose@example.com")
+            .phone("1234567890")
+            .createdAt(LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_789))
+            .modifiedAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59))
+            .status("ACTIVE")
+            .version(7L)
+            .isPym(true)
+            .build();
+    @Test
+    void testRoundTrip() {
+        assertEquals(customer, CustomerBinaryCodec.decode(CustomerBinaryCodec.encode(customer)));
+    }
+    @Test
+    void testRoundTripSparseCustomer() {
+        Customer sparse = Customer.builder().id("1").status("SUSPENDED").isVip(true).build();
+        assertEquals(sparse, CustomerBinaryCodec.decode(CustomerBinaryCodec.encode(sparse)));
+    }
+    @Test
+    void testEncodingIsSmallerThanJson() throws Exception {
+        byte[] binary = CustomerBinaryCodec.encode(customer);
+        byte[] json = JacksonUtils.enhancedObjectMapper().writeValueAsBytes(customer);
+        assertTrue(binary.length * 2 < json.length, binary.length + " vs " + json.length);
+    }
+    @Test
+    void testRejectsNewerSchemaVersion() {
+        byte[] data = CustomerBinaryCodec.encode(customer);
+        data[1] = CustomerBinaryCodec.SCHEMA_VERSION + 1;
+        assertThrows(SerializationException.class, () -> CustomerBinaryCodec.decode(data));
+    }
+    @Test
+    void testRejectsTruncatedPayload() {
+        byte[] data = CustomerBinaryCodec.encode(customer);
+        byte[] truncated = Arrays.copyOf(data, data.length / 2);
+        assertThrows(SerializationException.class, () -> CustomerBinaryCodec.decode(truncated));
+    }
+}
@@ -0,0 +1,56 @@
+package com.bank.customerservice.event.codec;
+
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerType;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerSerializerTest {
+    private final Customer customer = Customer.builder()
+            .id("1")
+            .fullName("John Doe")
+            .documentNumber("DOC123")
+            .customerType(CustomerType.PERSONAL)
+            .createdAt(LocalDateTime.of(2024, 1, 15, 10, 30))
+            .status("ACTIVE")
+            .version(0L)
+            .build();
+    private final CustomerDeserializer deserializer = new CustomerDeserializer();
+    @Test
+    void testJsonByDefault() {
+        RecordHeaders headers = new RecordHeaders();
+        byte[] data = new CustomerSerializer().serialize("customer-updated", headers, customer);
+
+        assertFalse(CustomerBinaryCodec.isBinary(data));
+        assertEquals('{', data[0]);
+        assertEquals("JSON", new String(headers.lastHeader(CustomerEventFormat.HEADER).value(),
+                StandardCharsets.UTF_8));
+        assertEquals(customer, deserializer.deserialize("customer-updated", headers, data));
+    }
+    @Test
+    void testBinaryFromConfig() {
+        CustomerSerializer serializer = new CustomerSerializer();
+        serializer.configure(Collections.singletonMap(CustomerSerializer.FORMAT_CONFIG, "binary"), false);
+        RecordHeaders headers = new RecordHeaders();
+        byte[] data = serializer.serialize("customer-updated", headers, customer);
+
+        assertTrue(CustomerBinaryCodec.isBinary(data));
+        assertEquals(customer, deserializer.deserialize("customer-updated", headers, data));
+    }
+    @Test
+    void testDetectsFormatWithoutHeader() {
+        byte[] binary = new CustomerSerializer(CustomerEventFormat.BINARY).serialize("t", customer);
+        byte[] json = new CustomerSerializer(CustomerEventFormat.JSON).serialize("t", customer);
+
+        assertEquals(customer, deserializer.deserialize("t", new RecordHeaders(), binary));
+        assertEquals(customer, deserializer.deserialize("t", new RecordHeaders(), json));
+    }
+}
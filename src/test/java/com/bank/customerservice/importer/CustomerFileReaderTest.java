@@ -0,0 +1,84 @@
+package com.bank.customerservice.importer;
+import com.bank.customerservice.importer.CustomerFileReader.Record;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+class CustomerFileReaderTest {
+    private CustomerFileReader reader;
+    @BeforeEach
+    void setUp() {
+        reader = new CustomerFileReader(Jackson2ObjectMapperBuilder.json().build());
+    }
+    @Test
+    void read_NdjsonReportsMalformedLinesAndCarriesOn() {
+        List<Record> records = reader.read(content("{\"fullName\":\"John Doe\",\"documentNumber\":\"1\"}\n",
+                "\n{\"fullName\":", "\n{\"fullName\":\"Jane\",\"customerType\":\"BUSINESS\",\"vip\":true}"),
+                CustomerFileFormat.NDJSON).collectList().block();
+        assertEquals(3, records.size());
+        assertEquals("John Doe", records.get(0).getCustomer().getFullName());
+        assertTrue(records.get(1).getError().startsWith("Malformed JSON"));
+        assertEquals(3, records.get(2).getNumber());
+        assertEquals(CustomerType.BUSINESS, records.get(2).getCustomer().getCustomerType());
+        assertTrue(records.get(2).getCustomer().isVip());
+    }
+    @Test
+    void read_CsvMapsColumnsByHeader() {
+        // Split mid-record and with a quoted value spanning lines, as chunks of a file arrive
+        List<Record> records = reader.read(content("\uFEFFdocumentNumber,fullName,customerType,vip,createdAt\r\n",
+                "123,\"Doe, John\",PERSONAL,true,2020-01-02T03:04:05\r\n456,\"Line one\r\nline ",
+                "two \"\"quoted\"\"\",BUSINESS,,\r\n789,Too few\r\n"),
+                CustomerFileFormat.CSV).collectList().block();
+        assertEquals(3, records.size());
+        assertEquals("Doe, John", records.get(0).getCustomer().getFullName());
+        assertTrue(records.get(0).getCustomer().isVip());
+        assertEquals(2020, records.get(0).getCustomer().getCreatedAt().getYear());
+        assertEquals("Line one\r\nline two \"quoted\"", records.get(1).getCustomer().getFullName());
+        assertNull(records.get(1).getCustomer().getCreatedAt());
+        assertEquals("Expected 5 values but found 2", records.get(2).getError());
+    }
+    @Test
+    void read_CsvReportsValuesThatDoNotConvert() {
+        StepVerifier.create(reader.read(content("documentNumber,customerType\n1,RETAIL\n2,PERSONAL\n"),
+                CustomerFileFormat.CSV))
+                .expectNextMatches(record -> record.getCustomer() == null && record.getError() != null)
+                .expectNextMatches(record -> record.getCustomer().getCustomerType() == CustomerType.PERSONAL)
+                .verifyComplete();
+    }
+    @Test
+    void read_CsvReportsUnclosedQuoteAtEndOfFile() {
+        StepVerifier.create(reader.read(content("fullName\n\"Never closed\n"), CustomerFileFormat.CSV))
+                .expectNextMatches(record -> record.getError().equals("Quoted value is not closed"))
+                .verifyComplete();
+    }
+    @Test
+    void read_CsvFailsOnUnknownHeaderField() {
+        StepVerifier.create(reader.read(content("fullName,nickname\nJohn,Johnny\n"), CustomerFileFormat.CSV))
+                .expectErrorMessage("Unknown customer field nickname")
+                .verify();
+    }
+    @Test
+    void split_UnquotesRfc4180Values() {
+        assertEquals(Arrays.asList("a", "", "b,c", "d\"e"), CustomerFileReader.split("a,,\"b,c\",\"d\"\"e\""));
+    }
+    @Test
+    void ofFileName_IgnoresGzipExtension() {
+        assertEquals(CustomerFileFormat.CSV, CustomerFileFormat.ofFileName("customers.CSV.gz"));
+        assertEquals(CustomerFileFormat.NDJSON, CustomerFileFormat.ofFileName("customers.ndjson"));
+    }
+    private static Flux<DataBuffer> content(String... chunks) {
+        return Flux.fromArray(chunks)
+                .map(chunk -> new DefaultDataBufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+}
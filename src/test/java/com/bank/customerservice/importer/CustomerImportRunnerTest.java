@@ -0,0 +1,60 @@
+package com.bank.customerservice.importer;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerImport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+@ExtendWith(MockitoExtension.class)
+class CustomerImportRunnerTest {
+    @Mock
+    private CustomerImporter importer;
+    @Mock
+    private ApplicationContext context;
+    @TempDir
+    Path directory;
+    @Test
+    void importFile_DecompressesGzipFilesAndTakesTheFormatFromTheName() throws IOException {
+        Path file = directory.resolve("customers.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write("documentNumber\n1\n".getBytes(StandardCharsets.UTF_8));
+        }
+        String[] read = new String[1];
+        when(importer.importCustomers(eq("customers.csv.gz"), eq(CustomerFileFormat.CSV), any()))
+                .thenAnswer(invocation -> DataBufferUtils.join(invocation.<Flux<DataBuffer>>getArgument(2))
+                        .map(content -> {
+                            read[0] = content.toString(StandardCharsets.UTF_8);
+                            DataBufferUtils.release(content);
+                            return CustomerImport.builder()
+                                    .state(CustomerImport.STATE_COMPLETED)
+                                    .build();
+                        }));
+        assertTrue(new CustomerImportRunner(importer, context, file, "", "", false).importFile());
+        assertEquals("documentNumber\n1\n", read[0]);
+    }
+    @Test
+    void importFile_FailsWhenTheImportFails() throws IOException {
+        Path file = Files.writeString(directory.resolve("customers.txt"), "{}\n");
+        when(importer.importCustomers(eq("legacy"), eq(CustomerFileFormat.NDJSON), any()))
+                .thenReturn(Mono.error(new IllegalStateException("Mongo is down")));
+        assertFalse(new CustomerImportRunner(importer, context, file, "legacy", "ndjson", false).importFile());
+    }
+}
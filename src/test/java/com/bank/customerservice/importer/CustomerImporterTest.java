@@ -0,0 +1,225 @@
+package com.bank.customerservice.importer;
+import com.bank.customerservice.event.CustomerEventProducer;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerFileFormat;
+import com.bank.customerservice.model.customer.CustomerImport;
+import com.bank.customerservice.repository.CustomerImportRepository;
+import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.search.CustomerSearchIndex;
+import com.bank.customerservice.service.CustomerStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+@ExtendWith(MockitoExtension.class)
+class CustomerImporterTest {
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private CustomerImportRepository importRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+    @Mock
+    private CustomerEventProducer eventProducer;
+    private CustomerStatistics statistics;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerImporter importer;
+    private List<CustomerImport> checkpoints;
+    @BeforeEach
+    void setUp() {
+        statistics = new CustomerStatistics();
+        meterRegistry = new SimpleMeterRegistry();
+        importer = new CustomerImporter(new CustomerFileReader(Jackson2ObjectMapperBuilder.json().build()),
+                customerRepository, importRepository, transactionalOperator, statistics,
+                new CustomerSearchIndex(1000), eventProducer, meterRegistry, 2, 2);
+        checkpoints = new ArrayList<>();
+    }
+    private void recordCheckpoints() {
+        when(importRepository.save(any(CustomerImport.class))).thenAnswer(invocation -> {
+            CustomerImport progress = invocation.getArgument(0);
+            checkpoints.add(CustomerImport.builder()
+                    .state(progress.getState())
+                    .position(progress.getPosition())
+                    .build());
+            return Mono.just(progress);
+        });
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(customerRepository.releaseOutboxMarks(anyCollection(), anyString())).thenReturn(Flux.empty());
+    }
+    @Test
+    void importCustomers_CountsEveryOutcomeAndCheckpointsEachBatch() {
+        recordCheckpoints();
+        when(importRepository.findById("legacy")).thenReturn(Mono.empty());
+        when(customerRepository.upsertAllByDocumentNumber(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            Map<Integer, Integer> failures = new HashMap<>();
+            for (int i = 0; i < customers.size(); i++) {
+                if (customers.get(i).getDocumentNumber().equals("EXISTING")) {
+                    failures.put(i, 11000);
+                } else {
+                    customers.get(i).setId("id-" + customers.get(i).getDocumentNumber());
+                }
+            }
+            return Mono.just(failures);
+        });
+        StepVerifier.create(importer.importCustomers("legacy", CustomerFileFormat.CSV, content(
+                "documentNumber,fullName,customerType\n",
+                "A,Ann,PERSONAL\n",
+                "A,Ann again,PERSONAL\n",
+                "EXISTING,Existing,PERSONAL\n",
+                "B,,PERSONAL\n",
+                "C,Carl,BUSINESS\n")))
+                .expectNextMatches(result -> result.getState().equals(CustomerImport.STATE_COMPLETED)
+                        && result.getPosition() == 5
+                        && result.getCreated() == 2
+                        && result.getDuplicates() == 2
+                        && result.getInvalid() == 1
+                        && result.getErrors().size() == 1
+                        && result.getErrors().get(0).getRecord() == 4
+                        && result.getErrors().get(0).getMessage().equals("fullName is required"))
+                .verifyComplete();
+        assertEquals(List.of(2L, 4L, 5L, 5L), checkpoints.stream().map(CustomerImport::getPosition)
+                .collect(Collectors.toList()));
+        assertEquals(2L, statistics.snapshot().getTotal());
+        assertEquals(2.0, meterRegistry.counter("customer.import.records", "outcome", "created").count());
+        assertEquals(2.0, meterRegistry.counter("customer.import.records", "outcome", "duplicate").count());
+        verify(customerRepository).releaseOutboxMarks(List.of("id-A"), "legacy");
+        verify(customerRepository).releaseOutboxMarks(List.of("id-C"), "legacy");
+        verify(transactionalOperator, times(3)).transactional(any(Mono.class));
+        verify(eventProducer, times(2)).publishCacheInvalidation(any(Customer.class));
+    }
+    @Test
+    void importCustomers_ResumesAfterTheCheckpoint() {
+        recordCheckpoints();
+        when(importRepository.findById("legacy")).thenReturn(Mono.just(CustomerImport.builder()
+                .id("legacy")
+                .state(CustomerImport.STATE_FAILED)
+                .position(2)
+                .created(2)
+                .build()));
+        List<String> owners = new ArrayList<>();
+        ArgumentCaptor<List<Customer>> written = listCaptor();
+        when(customerRepository.upsertAllByDocumentNumber(written.capture())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            customers.forEach(customer -> {
+                owners.add(customer.getOutboxMark().getOwner());
+                customer.setId("id-" + customer.getDocumentNumber());
+            });
+            return Mono.just(Collections.emptyMap());
+        });
+        StepVerifier.create(importer.importCustomers("legacy", CustomerFileFormat.NDJSON, content(
+                ndjson("A"), ndjson("B"), ndjson("C"))))
+                .expectNextMatches(result -> result.getPosition() == 3 && result.getCreated() == 3)
+                .verifyComplete();
+        assertEquals(1, written.getAllValues().size());
+        assertEquals("C", written.getValue().get(0).getDocumentNumber());
+        // The mark is what lets a resumed batch report customers an interrupted attempt inserted
+        assertEquals(List.of("legacy"), owners);
+        verify(customerRepository).releaseOutboxMarks(List.of("id-C"), "legacy");
+    }
+    @Test
+    void importCustomers_RecordsNothingWhenTheCheckpointFails() {
+        recordCheckpoints();
+        when(importRepository.findById("legacy")).thenReturn(Mono.empty());
+        when(customerRepository.upsertAllByDocumentNumber(anyList())).thenReturn(Mono.just(Collections.emptyMap()));
+        when(customerRepository.releaseOutboxMarks(anyCollection(), anyString()))
+                .thenReturn(Flux.error(new IllegalStateException("write conflict")));
+        StepVerifier.create(importer.importCustomers("legacy", CustomerFileFormat.NDJSON, content(ndjson("A"))))
+                .expectErrorMessage("write conflict")
+                .verify();
+        assertEquals(0L, statistics.snapshot().getTotal());
+        assertEquals(0.0, meterRegistry.counter("customer.import.records", "outcome", "created").count());
+        verify(eventProducer, never()).publishCacheInvalidation(any(Customer.class));
+    }
+    @Test
+    void importCustomers_DoesNotReadContentOfACompletedImport() {
+        when(importRepository.findById("legacy")).thenReturn(Mono.just(CustomerImport.builder()
+                .id("legacy")
+                .state(CustomerImport.STATE_COMPLETED)
+                .position(3)
+                .build()));
+        AtomicBoolean read = new AtomicBoolean();
+        StepVerifier.create(importer.importCustomers("legacy", CustomerFileFormat.NDJSON,
+                content(ndjson("A")).doOnSubscribe(subscription -> read.set(true))))
+                .expectNextMatches(result -> result.getPosition() == 3)
+                .verifyComplete();
+        assertFalse(read.get());
+        verify(importRepository, never()).save(any(CustomerImport.class));
+    }
+    @Test
+    void importCustomers_RejectsANullRecordAndImportsTheRest() {
+        recordCheckpoints();
+        when(importRepository.findById("legacy")).thenReturn(Mono.empty());
+        when(customerRepository.upsertAllByDocumentNumber(anyList())).thenAnswer(invocation -> {
+            List<Customer> customers = invocation.getArgument(0);
+            customers.forEach(customer -> customer.setId("id-" + customer.getDocumentNumber()));
+            return Mono.just(Collections.emptyMap());
+        });
+        StepVerifier.create(importer.importCustomers("legacy", CustomerFileFormat.NDJSON, content(
+                ndjson("A"), "null\n", ndjson("B"))))
+                .expectNextMatches(result -> result.getState().equals(CustomerImport.STATE_COMPLETED)
+                        && result.getPosition() == 3
+                        && result.getCreated() == 2
+                        && result.getInvalid() == 1
+                        && result.getErrors().size() == 1
+                        && result.getErrors().get(0).getRecord() == 2
+                        && result.getErrors().get(0).getMessage().equals("record is not a customer"))
+                .verifyComplete();
+    }
+    @Test
+    void importCustomers_SavesTheCheckpointAsFailedOnError() {
+        recordCheckpoints();
+        when(importRepository.findById(anyString())).thenReturn(Mono.empty());
+        when(customerRepository.upsertAllByDocumentNumber(anyList()))
+                .thenReturn(Mono.just(Collections.emptyMap()))
+                .thenReturn(Mono.error(new IllegalStateException("Mongo is down")));
+        StepVerifier.create(importer.importCustomers("legacy", CustomerFileFormat.NDJSON, content(
+                ndjson("A"), ndjson("B"), ndjson("C"))))
+                .expectErrorMessage("Mongo is down")
+                .verify();
+        CustomerImport last = checkpoints.get(checkpoints.size() - 1);
+        assertEquals(CustomerImport.STATE_FAILED, last.getState());
+        assertEquals(2, last.getPosition());
+        verify(customerRepository, times(2)).upsertAllByDocumentNumber(anyList());
+    }
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<List<Customer>> listCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+    private static String ndjson(String documentNumber) {
+        return "{\"fullName\":\"Customer " + documentNumber + "\",\"documentNumber\":\"" + documentNumber
+                + "\",\"customerType\":\"PERSONAL\"}\n";
+    }
+    private static Flux<DataBuffer> content(String... chunks) {
+        return Flux.fromArray(chunks)
+                .map(chunk -> new DefaultDataBufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+}
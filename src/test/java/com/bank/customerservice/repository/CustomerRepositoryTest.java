@@ -1,25 +1,47 @@
 package com.bank.customerservice.repository;
 
+import com.bank.customerservice.config.MongoIndexConfig;
+import com.bank.customerservice.config.MongoTransactionConfig;
+import com.bank.customerservice.event.OutboxRelay;
 import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerField;
 import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.model.outbox.OutboxEvent;
+import com.bank.customerservice.model.outbox.OutboxMark;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @DataMongoTest
+@Import({MongoIndexConfig.class, MongoTransactionConfig.class})
 @ExtendWith(SpringExtension.class)
 @ExtendWith(MockitoExtension.class)
 class CustomerRepositoryTest {
     @Autowired
     private CustomerRepository customerRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private MongoIndexConfig mongoIndexConfig;
     @BeforeEach
     void setUp() {
         Customer customer1 = Customer.builder()
@@ -51,10 +73,21 @@ class CustomerRepositoryTest {
                 .build();
 
         customerRepository.deleteAll()
+                .then(outboxEventRepository.deleteAll())
                 .thenMany(Flux.just(customer1, customer2))
                 .flatMap(customerRepository::save)
                 .blockLast();
     }
+    private static UnaryOperator<Customer> deleted() {
+        return customer -> {
+            customer.setStatus(Customer.STATUS_DELETED);
+            return customer;
+        };
+    }
+    private void deleteCustomer(String id) {
+        customerRepository.findAndModifyById(id, null, new Update().set("status", Customer.STATUS_DELETED),
+                deleted(), OutboxEvent::customerDeleted).block();
+    }
     @Test
     void testFindByCustomerType() {
         StepVerifier.create(customerRepository.findByCustomerType(CustomerType.PERSONAL))
@@ -73,4 +106,179 @@ class CustomerRepositoryTest {
                 .expectNextMatches(customer -> customer.getFullName().equals("John Doe"))
                 .verifyComplete();
     }
-}
\ No newline at end of file
+    @Test
+    void testFindByIdGreaterThan() {
+        StepVerifier.create(customerRepository.findByIdGreaterThan("1",
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id"))))
+                .expectNextMatches(customer -> customer.getId().equals("2"))
+                .verifyComplete();
+    }
+    @Test
+    void testFindByCustomerTypePaged() {
+        StepVerifier.create(customerRepository.findByCustomerType(CustomerType.BUSINESS,
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "id"))))
+                .expectNextMatches(customer -> customer.getFullName().equals("Jane Smith"))
+                .verifyComplete();
+    }
+    @Test
+    void testFindByStatusSkipsDeleted() {
+        deleteCustomer("2");
+        StepVerifier.create(customerRepository.findByStatus(Customer.STATUS_ACTIVE,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id"))))
+                .expectNextMatches(customer -> customer.getId().equals("1"))
+                .verifyComplete();
+        StepVerifier.create(customerRepository.findByCustomerTypeAndStatus(CustomerType.BUSINESS,
+                Customer.STATUS_ACTIVE))
+                .verifyComplete();
+    }
+    @Test
+    void testFindProjectedByCustomerType() {
+        StepVerifier.create(customerRepository.findProjectedByCustomerType(CustomerType.BUSINESS,
+                Customer.STATUS_ACTIVE, Arrays.asList(CustomerField.FULL_NAME, CustomerField.PYM)))
+                .expectNextMatches(customer -> customer.getFullName().equals("Jane Smith") && customer.isPym()
+                        && customer.getEmail() == null && customer.getDocumentNumber() == null)
+                .verifyComplete();
+    }
+    @Test
+    void testFindAllForExportSkipsDeleted() {
+        deleteCustomer("2");
+        StepVerifier.create(customerRepository.findAllForExport(Customer.STATUS_ACTIVE))
+                .expectNextMatches(customer -> customer.getId().equals("1"))
+                .verifyComplete();
+        StepVerifier.create(customerRepository.findAllForExport(null).count())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+    @Test
+    void testInsertAllUnordered() {
+        Customer duplicate = Customer.builder()
+                .fullName("John Copy")
+                .documentNumber("87654321")
+                .customerType(CustomerType.PERSONAL)
+                .build();
+        Customer fresh = Customer.builder()
+                .fullName("Ann Lee")
+                .documentNumber("11112222")
+                .customerType(CustomerType.PERSONAL)
+                .build();
+        StepVerifier.create(customerRepository.insertAllUnordered(Arrays.asList(duplicate, fresh)))
+                .expectNextMatches(failures -> failures.size() == 1 && failures.get(0) == 11000)
+                .verifyComplete();
+        StepVerifier.create(customerRepository.findByDocumentNumber("11112222"))
+                .expectNextMatches(customer -> customer.getId().equals(fresh.getId()))
+                .verifyComplete();
+    }
+    @Test
+    void testUpsertAllByDocumentNumberSkipsExisting() {
+        Customer existing = Customer.builder()
+                .fullName("John Copy")
+                .documentNumber("87654321")
+                .customerType(CustomerType.PERSONAL)
+                .build();
+        Customer fresh = Customer.builder()
+                .fullName("Ann Lee")
+                .documentNumber("11112222")
+                .customerType(CustomerType.PERSONAL)
+                .build();
+        StepVerifier.create(customerRepository.upsertAllByDocumentNumber(Arrays.asList(existing, fresh)))
+                .expectNextMatches(failures -> failures.size() == 1 && failures.get(0) == 11000)
+                .verifyComplete();
+        StepVerifier.create(customerRepository.findByDocumentNumber("87654321"))
+                .expectNextMatches(customer -> customer.getFullName().equals("John Doe"))
+                .verifyComplete();
+        StepVerifier.create(customerRepository.findById(fresh.getId()))
+                .expectNextMatches(customer -> customer.getFullName().equals("Ann Lee"))
+                .verifyComplete();
+    }
+    @Test
+    void testUpsertAllByDocumentNumberReportsCustomersOfAnEarlierAttemptAsInserted() {
+        Customer fresh = Customer.builder()
+                .fullName("Ann Lee")
+                .documentNumber("11112222")
+                .customerType(CustomerType.PERSONAL)
+                .outboxMark(OutboxMark.of("import-1"))
+                .build();
+        StepVerifier.create(customerRepository.upsertAllByDocumentNumber(Arrays.asList(fresh)))
+                .expectNextMatches(Map::isEmpty)
+                .verifyComplete();
+        String insertedId = fresh.getId();
+        Customer retried = Customer.builder()
+                .fullName("Ann Lee")
+                .documentNumber("11112222")
+                .customerType(CustomerType.PERSONAL)
+                .outboxMark(OutboxMark.of("import-1"))
+                .build();
+        StepVerifier.create(customerRepository.upsertAllByDocumentNumber(Arrays.asList(retried)))
+                .expectNextMatches(Map::isEmpty)
+                .verifyComplete();
+        assertEquals(insertedId, retried.getId());
+    }
+    @Test
+    void testReleaseOutboxMarksWritesEachEventOnce() {
+        Customer marked = Customer.builder()
+                .fullName("Ann Lee")
+                .documentNumber("11112222")
+                .customerType(CustomerType.PERSONAL)
+                .outboxMark(OutboxMark.of("batch-1"))
+                .build();
+        StepVerifier.create(customerRepository.insertAllUnordered(Arrays.asList(marked)))
+                .expectNextMatches(Map::isEmpty)
+                .verifyComplete();
+        StepVerifier.create(customerRepository.releaseOutboxMarks(Arrays.asList(marked.getId(), "1"), "batch-1"))
+                .expectNextMatches(customer -> customer.getId().equals(marked.getId())
+                        && customer.getOutboxMark() == null)
+                .verifyComplete();
+        StepVerifier.create(customerRepository.releaseOutboxMarks(Arrays.asList(marked.getId()), "batch-1"))
+                .verifyComplete();
+        StepVerifier.create(outboxEventRepository.findAll())
+                .expectNextMatches(event -> event.getAggregateId().equals(marked.getId()))
+                .verifyComplete();
+    }
+    @Test
+    void testOutboxRelayOrderFollowsVersionsRatherThanIds() {
+        // Written on two instances: the earlier update got the later ObjectId
+        ObjectId first = new ObjectId(new Date(), 1);
+        ObjectId second = new ObjectId(new Date(), 2);
+        OutboxEvent v2 = OutboxEvent.customerUpdated(Customer.builder().id("1").version(2L).build());
+        v2.setId(first.toHexString());
+        OutboxEvent v1 = OutboxEvent.customerUpdated(Customer.builder().id("1").version(1L).build());
+        v1.setId(second.toHexString());
+        outboxEventRepository.saveAll(Arrays.asList(v2, v1)).blockLast();
+        StepVerifier.create(outboxEventRepository.findAllBy(PageRequest.of(0, 10, OutboxRelay.RELAY_ORDER)))
+                .expectNextMatches(event -> event.getAggregateVersion() == 1L)
+                .expectNextMatches(event -> event.getAggregateVersion() == 2L)
+                .verifyComplete();
+    }
+    @Test
+    void testFindAndModifyById() {
+        StepVerifier.create(customerRepository.findAndModifyById("2", null,
+                new Update().set("status", "DELETED"), deleted(), OutboxEvent::customerDeleted))
+                .expectNextMatches(change -> change.getBefore().getStatus().equals("ACTIVE")
+                        && change.getAfter().getStatus().equals("DELETED") && change.getAfter().isPym())
+                .verifyComplete();
+    }
+    @Test
+    void testFindAndModifyByIdStaleVersion() {
+        StepVerifier.create(customerRepository.findAndModifyById("2", 99L,
+                new Update().set("status", "DELETED"), deleted(), OutboxEvent::customerDeleted))
+                .verifyComplete();
+    }
+    @Test
+    void testFindDuplicateDocumentNumbers() {
+        customerRepository.save(Customer.builder().id("3").fullName("John Doe").documentNumber("87654321")
+                .customerType(CustomerType.PERSONAL).status("ACTIVE").build()).block();
+        StepVerifier.create(mongoIndexConfig.findDuplicateDocumentNumbers())
+                .expectNextMatches(duplicate -> duplicate.getList("ids", String.class)
+                        .containsAll(Arrays.asList("1", "3")))
+                .verifyComplete();
+    }
+    @Test
+    void testAggregateStats() {
+        StepVerifier.create(customerRepository.aggregateStats())
+                .expectNextMatches(stats -> stats.getByStatus().get("ACTIVE") == 2L
+                        && stats.getByType().get("PERSONAL") == 1L
+                        && stats.getVipCount() == 1L
+                        && stats.getPymCount() == 1L)
+                .verifyComplete();
+    }
+}
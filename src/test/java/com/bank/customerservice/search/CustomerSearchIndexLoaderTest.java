@@ -0,0 +1,61 @@
+package com.bank.customerservice.search;
+import com.bank.customerservice.cache.CustomerCache;
+import com.bank.customerservice.event.CustomerCacheInvalidationListener;
+import com.bank.customerservice.event.EventOrigin;
+import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+@ExtendWith(MockitoExtension.class)
+class CustomerSearchIndexLoaderTest {
+    private static final Duration ASSIGNMENT_TIMEOUT = Duration.ofSeconds(30);
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private ObjectProvider<CustomerCacheInvalidationListener> listenerProvider;
+    private CustomerSearchIndex searchIndex;
+    private CustomerCacheInvalidationListener listener;
+    private CustomerSearchIndexLoader loader;
+    @BeforeEach
+    void setUp() {
+        searchIndex = new CustomerSearchIndex(1000);
+        listener = new CustomerCacheInvalidationListener(new CustomerCache(100, Duration.ofMinutes(5)), searchIndex,
+                new EventOrigin(), new SimpleMeterRegistry());
+        loader = new CustomerSearchIndexLoader(customerRepository, searchIndex, listenerProvider, true,
+                ASSIGNMENT_TIMEOUT);
+        when(listenerProvider.getIfAvailable()).thenReturn(listener);
+        when(customerRepository.findByStatus(Customer.STATUS_ACTIVE)).thenReturn(Flux.just(Customer.builder()
+                .id("1").fullName("John Doe").status(Customer.STATUS_ACTIVE).build()));
+    }
+    @Test
+    void load_ReadsMongoOnlyOnceInvalidationsAreAssigned() {
+        StepVerifier.create(loader.load())
+                .then(() -> verifyNoInteractions(customerRepository))
+                .then(() -> listener.onPartitionsAssigned(Map.of(new TopicPartition("t", 0), 0L), null))
+                .verifyComplete();
+        assertEquals(List.of("1"), searchIndex.search("John", 10));
+    }
+    @Test
+    void load_GoesAheadWhenAssignmentTimesOut() {
+        StepVerifier.withVirtualTime(loader::load)
+                .expectSubscription()
+                .then(() -> verifyNoInteractions(customerRepository))
+                .thenAwait(ASSIGNMENT_TIMEOUT)
+                .verifyComplete();
+        assertEquals(List.of("1"), searchIndex.search("John", 10));
+    }
+}
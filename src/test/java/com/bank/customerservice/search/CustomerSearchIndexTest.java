@@ -0,0 +1,116 @@
+package com.bank.customerservice.search;
+import com.bank.customerservice.model.customer.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+class CustomerSearchIndexTest {
+    private CustomerSearchIndex index;
+    @BeforeEach
+    void setUp() {
+        index = new CustomerSearchIndex(1000);
+        index.put(customer("1", "John Doe", "john.doe@example.com", "+51 999 111 222"));
+        index.put(customer("2", "Johanna Smith", "jsmith@example.com", "+51 999 333 444"));
+        index.put(customer("3", "José Núñez", "jnunez@example.com", "+51 988 555 666"));
+    }
+    @Test
+    void search_PrefixMatchRanksFirst() {
+        assertEquals(List.of("1", "2"), index.search("joh", 10));
+        assertEquals(List.of("2"), index.search("smi", 10));
+    }
+    @Test
+    void search_ToleratesTypos() {
+        assertEquals("2", index.search("Johana", 10).get(0));
+        assertEquals("3", index.search("Nunes", 10).get(0));
+    }
+    @Test
+    void search_IgnoresAccentsAndCase() {
+        assertEquals(List.of("3"), index.search("NUNEZ", 10));
+        assertEquals(List.of("3"), index.search("josé", 10));
+    }
+    @Test
+    void search_MatchesPhoneDigitsAndEmail() {
+        assertEquals(List.of("2"), index.search("999 333", 10));
+        assertEquals(List.of("3"), index.search("jnunez", 10));
+    }
+    @Test
+    void search_RespectsLimit() {
+        assertEquals(List.of("1"), index.search("joh", 1));
+    }
+    @Test
+    void search_RejectsQueryWithoutTrigram() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("j d", 10));
+    }
+    @Test
+    void put_ReplacesChangedAndRemovesDeletedCustomers() {
+        index.put(customer("1", "Jack Doe", "jack@example.com", null));
+        Customer deleted = customer("2", "Johanna Smith", "jsmith@example.com", null);
+        deleted.setStatus(Customer.STATUS_DELETED);
+        index.put(deleted);
+        assertEquals(List.of(), index.search("john", 10));
+        assertEquals(List.of("1"), index.search("jack", 10));
+        assertEquals(2, index.size());
+    }
+    @Test
+    void put_CompactsRemovedDocuments() {
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++) {
+                index.put(customer("c" + i, "Customer " + i + " round " + round, null, null));
+            }
+        }
+        assertEquals(1003, index.size());
+        assertEquals(List.of("c42"), index.search("Customer 42 round 4", 1));
+        List<String> found = index.search("round", 50);
+        assertEquals(50, found.stream().distinct().count());
+    }
+    @Test
+    void compact_ReplaysWritesMadeWhileRebuilding() {
+        CustomerSearchIndex.Compaction compaction = index.beginCompaction();
+        index.put(customer("1", "Jack Doe", "jack@example.com", null));
+        Customer deleted = customer("2", "Johanna Smith", "jsmith@example.com", null);
+        deleted.setStatus(Customer.STATUS_DELETED);
+        index.put(deleted);
+        index.put(customer("4", "Maria Lopez", null, null));
+        index.compact(compaction);
+        assertEquals(List.of(), index.search("john", 10));
+        assertEquals(List.of("1"), index.search("jack", 10));
+        assertEquals(List.of("4"), index.search("maria", 10));
+        assertEquals(List.of("3"), index.search("nunez", 10));
+        assertEquals(3, index.size());
+        index.put(customer("4", "Maria Lopez Diaz", null, null));
+        assertEquals(List.of("4"), index.search("diaz", 10));
+    }
+    @Test
+    void load_DoesNotOverwriteConcurrentWrites() {
+        index.beginLoad();
+        Customer deleted = customer("4", "Maria Lopez", null, null);
+        deleted.setStatus(Customer.STATUS_DELETED);
+        index.put(deleted);
+        index.load(customer("4", "Maria Lopez", null, null));
+        index.load(customer("1", "Stale Name", null, null));
+        index.endLoad();
+        assertEquals(List.of(), index.search("maria", 10));
+        assertEquals(List.of("1"), index.search("john", 10));
+    }
+    @Test
+    void put_IgnoresAnOlderVersion() {
+        Customer deleted = customer("1", "John Doe", "john.doe@example.com", "+51 999 111 222");
+        deleted.setStatus(Customer.STATUS_DELETED);
+        deleted.setVersion(3L);
+        index.put(deleted);
+        Customer older = customer("1", "John Doe", "john.doe@example.com", "+51 999 111 222");
+        older.setVersion(2L);
+        index.put(older);
+        assertEquals(List.of("2"), index.search("joh", 10));
+    }
+    private static Customer customer(String id, String fullName, String email, String phone) {
+        return Customer.builder()
+                .id(id)
+                .fullName(fullName)
+                .email(email)
+                .phone(phone)
+                .status(Customer.STATUS_ACTIVE)
+                .build();
+    }
+}
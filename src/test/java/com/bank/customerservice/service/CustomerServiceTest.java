@@ -1,19 +1,52 @@
 package com.bank.customerservice.service;
+import com.bank.customerservice.cache.CustomerCache;
+import com.bank.customerservice.dto.CustomerLookupRequest;
 import com.bank.customerservice.event.CustomerEventProducer;
 import com.bank.customerservice.model.customer.Customer;
+import com.bank.customerservice.model.customer.CustomerChange;
+import com.bank.customerservice.model.customer.CustomerField;
 import com.bank.customerservice.model.customer.CustomerType;
+import com.bank.customerservice.model.outbox.OutboxEvent;
 import com.bank.customerservice.repository.CustomerRepository;
+import com.bank.customerservice.search.CustomerSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.bson.Document;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class CustomerServiceTest {
@@ -21,6 +54,12 @@ class CustomerServiceTest {
     private CustomerRepository customerRepository;
     @Mock
     private CustomerEventProducer eventProducer;
+    @Spy
+    private CustomerCache customerCache = new CustomerCache(100, Duration.ofMinutes(5));
+    @Spy
+    private CustomerStatistics statistics = new CustomerStatistics();
+    @Spy
+    private CustomerSearchIndex searchIndex = new CustomerSearchIndex(1000);
     @InjectMocks
     private CustomerService customerService;
     private Customer customer;
@@ -39,55 +78,280 @@ class CustomerServiceTest {
     }
     @Test
     void createCustomer_Success() {
-        when(customerRepository.findByDocumentNumber(any()))
-                .thenReturn(Mono.empty());
-        when(customerRepository.save(any(Customer.class)))
+        when(customerRepository.insertWithEvent(any(Customer.class), any()))
                 .thenReturn(Mono.just(customer));
-        doNothing().when(eventProducer).publishCustomerCreated(any(Customer.class));
         StepVerifier.create(customerService.createCustomer(customer))
                 .expectNext(customer)
                 .verifyComplete();
-        verify(customerRepository).findByDocumentNumber(customer.getDocumentNumber());
-        verify(customerRepository).save(any(Customer.class));
-        verify(eventProducer).publishCustomerCreated(any(Customer.class));
+        ArgumentCaptor<Function<Customer, OutboxEvent>> event = ArgumentCaptor.forClass(Function.class);
+        verify(customerRepository).insertWithEvent(any(Customer.class), event.capture());
+        verify(customerRepository, never()).findByDocumentNumber(any());
+        assertEquals(0L, customer.getVersion());
+        assertEquals("customer-created", event.getValue().apply(customer).getTopic());
+        verify(eventProducer).publishCacheInvalidation(customer);
     }
     @Test
     void createCustomer_DuplicateDocument() {
-        when(customerRepository.findByDocumentNumber(any()))
-                .thenReturn(Mono.just(customer));
+        when(customerRepository.insertWithEvent(any(Customer.class), any()))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error")));
         StepVerifier.create(customerService.createCustomer(customer))
-                .expectError(RuntimeException.class)
+                .expectErrorMatches(e -> e instanceof RuntimeException
+                        && e.getMessage().equals("Customer with this document number already exists"))
                 .verify();
-        verify(customerRepository).findByDocumentNumber(customer.getDocumentNumber());
-        verify(customerRepository, never()).save(any(Customer.class));
-        verify(eventProducer, never()).publishCustomerCreated(any(Customer.class));
+        verify(customerRepository).insertWithEvent(any(Customer.class), any());
+        verify(eventProducer, never()).publishCacheInvalidation(any(Customer.class));
+    }
+    private void stubBatchInsert(Customer existing) {
+        when(customerRepository.findByDocumentNumberIn(anyCollection()))
+                .thenReturn(Flux.just(existing));
+        when(customerRepository.insertAllUnordered(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Customer> toInsert = invocation.getArgument(0);
+                    toInsert.get(0).setId("10");
+                    return Mono.just(Collections.singletonMap(1, 11000));
+                });
+    }
+    @Test
+    void createCustomers_ReportsStatusPerItem() {
+        Customer existing = Customer.builder().documentNumber("DOC1").build();
+        Customer fresh = Customer.builder().documentNumber("DOC2").build();
+        Customer repeated = Customer.builder().documentNumber("DOC2").build();
+        Customer raced = Customer.builder().documentNumber("DOC3").build();
+        stubBatchInsert(existing);
+        when(customerRepository.releaseOutboxMarks(anyCollection(), anyString()))
+                .thenReturn(Flux.just(fresh));
+        StepVerifier.create(customerService.createCustomers(Arrays.asList(existing, fresh, repeated, raced)))
+                .expectNextMatches(results -> results.size() == 4
+                        && results.get(0).getStatus() == 400
+                        && results.get(1).getStatus() == 201
+                        && results.get(1).getData().getId().equals("10")
+                        && results.get(1).getData().getOutboxMark() == null
+                        && results.get(2).getStatus() == 400
+                        && results.get(3).getStatus() == 400
+                        && results.get(3).getMessage().equals("Customer with this document number already exists"))
+                .verifyComplete();
+        verify(customerRepository, times(1)).findByDocumentNumberIn(anyCollection());
+        ArgumentCaptor<List<Customer>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(customerRepository).insertAllUnordered(inserted.capture());
+        assertEquals(Arrays.asList(fresh, raced), inserted.getValue());
+        verify(customerRepository).releaseOutboxMarks(Collections.singletonList("10"),
+                raced.getOutboxMark().getOwner());
+        verify(eventProducer).publishCacheInvalidation(fresh);
+        verify(eventProducer, never()).publishCacheInvalidation(raced);
+    }
+    @Test
+    void createCustomers_EventWriteFailureStillReportsCreated() {
+        Customer existing = Customer.builder().documentNumber("DOC1").build();
+        Customer fresh = Customer.builder().documentNumber("DOC2").build();
+        Customer raced = Customer.builder().documentNumber("DOC3").build();
+        stubBatchInsert(existing);
+        when(customerRepository.releaseOutboxMarks(anyCollection(), anyString()))
+                .thenReturn(Flux.error(new IllegalStateException("write conflict")));
+        StepVerifier.create(customerService.createCustomers(Arrays.asList(existing, fresh, raced)))
+                .expectNextMatches(results -> results.get(1).getStatus() == 201
+                        && results.get(1).getData().getId().equals("10"))
+                .verifyComplete();
+        verify(statistics).recordCreated(fresh);
+    }
+    @Test
+    void createCustomers_TooLarge() {
+        List<Customer> customers = Collections.nCopies(CustomerService.MAX_BATCH_SIZE + 1, customer);
+        StepVerifier.create(customerService.createCustomers(customers))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(customerRepository);
     }
     @Test
     void getAllCustomers_Success() {
-        when(customerRepository.findAll())
+        when(customerRepository.findByStatus(Customer.STATUS_ACTIVE))
                 .thenReturn(Flux.just(customer));
-        StepVerifier.create(customerService.getAllCustomers())
+        StepVerifier.create(customerService.getAllCustomers(false))
                 .expectNext(customer)
                 .verifyComplete();
-        verify(customerRepository).findAll();
+        verify(customerRepository).findByStatus(Customer.STATUS_ACTIVE);
+    }
+    @Test
+    void getAllCustomers_IncludeDeletedReadsEveryStatus() {
+        Customer deleted = Customer.builder().id("2").status(Customer.STATUS_DELETED).build();
+        when(customerRepository.findAll())
+                .thenReturn(Flux.just(customer, deleted));
+        StepVerifier.create(customerService.getAllCustomers(true))
+                .expectNext(customer, deleted)
+                .verifyComplete();
+        verify(customerRepository, never()).findByStatus(any());
+    }
+    @Test
+    void getCustomersPage_FirstPageHasNextCursor() {
+        Customer second = Customer.builder().id("2").fullName("Jane Smith").build();
+        when(customerRepository.findByStatus(eq(Customer.STATUS_ACTIVE), any(Pageable.class)))
+                .thenReturn(Flux.just(customer, second));
+        StepVerifier.create(customerService.getCustomersPage(null, 1, false))
+                .expectNextMatches(page -> page.getSize() == 1
+                        && page.getContent().get(0).equals(customer)
+                        && page.getNextCursor() != null)
+                .verifyComplete();
+        verify(customerRepository).findByStatus(Customer.STATUS_ACTIVE,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "id")));
+    }
+    @Test
+    void getCustomersPage_SeeksPastCursor() {
+        String cursor = PageCursor.encode("1");
+        when(customerRepository.findByStatusAndIdGreaterThan(eq(Customer.STATUS_ACTIVE), eq("1"),
+                any(Pageable.class)))
+                .thenReturn(Flux.empty());
+        StepVerifier.create(customerService.getCustomersPage(cursor, 10, false))
+                .expectNextMatches(page -> page.getContent().isEmpty() && page.getNextCursor() == null)
+                .verifyComplete();
+    }
+    @Test
+    void getCustomersPageByType_LastPage() {
+        when(customerRepository.findByCustomerTypeAndStatus(eq(CustomerType.PERSONAL), eq(Customer.STATUS_ACTIVE),
+                any(Pageable.class)))
+                .thenReturn(Flux.just(customer));
+        StepVerifier.create(customerService.getCustomersPageByType(CustomerType.PERSONAL, null, 10, false))
+                .expectNextMatches(page -> page.getSize() == 1 && page.getNextCursor() == null)
+                .verifyComplete();
+    }
+    @Test
+    void getCustomersPage_InvalidSize() {
+        StepVerifier.create(customerService.getCustomersPage(null, 0, false))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(customerRepository);
     }
     @Test
     void getCustomerById_Success() {
         when(customerRepository.findById("1"))
                 .thenReturn(Mono.just(customer));
-        StepVerifier.create(customerService.getCustomerById("1"))
+        StepVerifier.create(customerService.getCustomerById("1", false))
                 .expectNext(customer)
                 .verifyComplete();
         verify(customerRepository).findById("1");
     }
     @Test
+    void getCustomerById_HidesDeletedUnlessIncluded() {
+        customer.setStatus(Customer.STATUS_DELETED);
+        when(customerRepository.findById("1"))
+                .thenReturn(Mono.just(customer));
+        StepVerifier.create(customerService.getCustomerById("1", false))
+                .verifyComplete();
+        StepVerifier.create(customerService.getCustomerById("1", true))
+                .expectNext(customer)
+                .verifyComplete();
+    }
+    @Test
+    void getCustomerFieldsById_ProjectsInRepository() {
+        Customer projected = Customer.builder().fullName("John Doe").customerType(CustomerType.PERSONAL).build();
+        when(customerRepository.findProjectedById("1", Customer.STATUS_ACTIVE,
+                EnumSet.of(CustomerField.FULL_NAME, CustomerField.CUSTOMER_TYPE)))
+                .thenReturn(Mono.just(projected));
+        StepVerifier.create(customerService.getCustomerFieldsById("1", "customerType, fullName", false))
+                .expectNextMatches(fields -> fields.size() == 2
+                        && fields.get("fullName").equals("John Doe")
+                        && fields.get("customerType") == CustomerType.PERSONAL)
+                .verifyComplete();
+    }
+    @Test
+    void getCustomerFieldsById_ServedFromCache() {
+        customerCache.refresh(customer);
+        StepVerifier.create(customerService.getCustomerFieldsById("1", "email,vip", false))
+                .expectNextMatches(fields -> fields.keySet().equals(new HashSet<>(Arrays.asList("email", "vip"))))
+                .verifyComplete();
+        verifyNoInteractions(customerRepository);
+    }
+    @Test
+    void getCustomerFieldsByType_UnknownField() {
+        StepVerifier.create(customerService.getCustomerFieldsByType(CustomerType.PERSONAL, "fullName,salary", false))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(customerRepository);
+    }
+    @Test
+    void getCustomerById_ServedFromCacheOnRepeat() {
+        when(customerRepository.findById("1"))
+                .thenReturn(Mono.just(customer));
+        StepVerifier.create(customerService.getCustomerById("1", false))
+                .expectNext(customer)
+                .verifyComplete();
+        StepVerifier.create(customerService.getCustomerById("1", false))
+                .expectNext(customer)
+                .verifyComplete();
+        verify(customerRepository, times(1)).findById("1");
+    }
+    @Test
+    void getCustomerByDocumentNumber_ServedFromCacheOnRepeat() {
+        when(customerRepository.findByDocumentNumber("DOC123"))
+                .thenReturn(Mono.just(customer));
+        customerService.getCustomerByDocumentNumber("DOC123", false).block();
+        StepVerifier.create(customerService.getCustomerByDocumentNumber("DOC123", false))
+                .expectNext(customer)
+                .verifyComplete();
+        verify(customerRepository, times(1)).findByDocumentNumber("DOC123");
+    }
+    @Test
+    void updateVipPymStatus_RefreshesCache() {
+        Customer vipCustomer = Customer.builder()
+                .id(customer.getId())
+                .documentNumber(customer.getDocumentNumber())
+                .customerType(customer.getCustomerType())
+                .isVip(true)
+                .build();
+        when(customerRepository.findById("1"))
+                .thenReturn(Mono.just(customer));
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, vipCustomer)));
+        customerService.getCustomerById("1", false).block();
+        customerService.updateVipPymStatus("1", true, null).block();
+        StepVerifier.create(customerService.getCustomerById("1", false))
+                .expectNextMatches(Customer::isVip)
+                .verifyComplete();
+        StepVerifier.create(customerService.getCustomerByDocumentNumber("DOC123", false))
+                .expectNextMatches(Customer::isVip)
+                .verifyComplete();
+        verify(customerRepository, never()).findByDocumentNumber(any());
+    }
+    @Test
+    void lookupCustomers_KeepsRequestOrderAndMarksMissing() {
+        Customer cached = Customer.builder().id("2").documentNumber("DOC2").build();
+        customerCache.refresh(cached);
+        when(customerRepository.findAllById(anyIterable()))
+                .thenReturn(Flux.just(customer));
+        when(customerRepository.findByDocumentNumberIn(anyCollection()))
+                .thenReturn(Flux.empty());
+        CustomerLookupRequest request = CustomerLookupRequest.builder()
+                .ids(Arrays.asList("2", "1", "9"))
+                .documentNumbers(Arrays.asList("DOC2", "DOC9"))
+                .build();
+        StepVerifier.create(customerService.lookupCustomers(request))
+                .expectNextMatches(lookup -> lookup.getIds().get(0).getData() == cached
+                        && lookup.getIds().get(1).getData() == customer
+                        && !lookup.getIds().get(2).isFound()
+                        && lookup.getDocumentNumbers().get(0).isFound()
+                        && !lookup.getDocumentNumbers().get(1).isFound())
+                .verifyComplete();
+        verify(customerRepository).findAllById(new HashSet<>(Arrays.asList("1", "9")));
+        verify(customerRepository).findByDocumentNumberIn(Collections.singleton("DOC9"));
+    }
+    @Test
+    void lookupCustomers_AllCachedSkipsRepository() {
+        customerCache.refresh(customer);
+        CustomerLookupRequest request = CustomerLookupRequest.builder()
+                .ids(Collections.singletonList("1"))
+                .build();
+        StepVerifier.create(customerService.lookupCustomers(request))
+                .expectNextMatches(lookup -> lookup.getIds().get(0).isFound()
+                        && lookup.getDocumentNumbers().isEmpty())
+                .verifyComplete();
+        verifyNoInteractions(customerRepository);
+    }
+    @Test
     void getCustomerByType_Success() {
-        when(customerRepository.findByCustomerType(CustomerType.PERSONAL))
+        when(customerRepository.findByCustomerTypeAndStatus(CustomerType.PERSONAL, Customer.STATUS_ACTIVE))
                 .thenReturn(Flux.just(customer));
-        StepVerifier.create(customerService.getCustomerByType(CustomerType.PERSONAL))
+        StepVerifier.create(customerService.getCustomerByType(CustomerType.PERSONAL, false))
                 .expectNext(customer)
                 .verifyComplete();
-        verify(customerRepository).findByCustomerType(CustomerType.PERSONAL);
+        verify(customerRepository).findByCustomerTypeAndStatus(CustomerType.PERSONAL, Customer.STATUS_ACTIVE);
     }
     @Test
     void updateCustomer_Success() {
@@ -102,15 +366,79 @@ class CustomerServiceTest {
                 .modifiedAt(LocalDateTime.now())
                 .status(customer.getStatus())
                 .build();
-        when(customerRepository.findById("1"))
-                .thenReturn(Mono.just(customer));
-        when(customerRepository.save(any(Customer.class)))
-                .thenReturn(Mono.just(updatedCustomer));
-        StepVerifier.create(customerService.updateCustomer("1", updatedCustomer))
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, updatedCustomer)));
+        StepVerifier.create(customerService.updateCustomer("1", updatedCustomer, null))
                 .expectNext(updatedCustomer)
                 .verifyComplete();
-        verify(customerRepository).findById("1");
-        verify(customerRepository).save(any(Customer.class));
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(customerRepository).findAndModifyById(eq("1"), isNull(), update.capture(), any(), any());
+        verify(customerRepository, never()).findById("1");
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals("John Updated", set.get("fullName"));
+        assertFalse(set.containsKey("isVip"));
+        assertFalse(set.containsKey("documentNumber"));
+    }
+    @Test
+    void updateCustomer_AppliesTheUpdateInMemoryAsMongoDoes() {
+        customer.setVersion(3L);
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.empty());
+        Customer changes = Customer.builder().fullName("John Updated").customerType(CustomerType.BUSINESS).build();
+        customerService.updateCustomer("1", changes, null).block();
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        ArgumentCaptor<UnaryOperator<Customer>> applied = ArgumentCaptor.forClass(UnaryOperator.class);
+        verify(customerRepository).findAndModifyById(eq("1"), isNull(), update.capture(), applied.capture(), any());
+        Customer after = applied.getValue().apply(customer.toBuilder().build());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals("John Updated", after.getFullName());
+        assertEquals(CustomerType.BUSINESS, after.getCustomerType());
+        assertNull(after.getEmail());
+        assertEquals(set.get("modifiedAt"), after.getModifiedAt());
+        assertEquals(4L, after.getVersion());
+        assertEquals("DOC123", after.getDocumentNumber());
+    }
+    @Test
+    void patchCustomer_SetsOnlyProvidedFields() {
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, customer)));
+        Customer changes = Customer.builder().email("new@example.com").build();
+        StepVerifier.create(customerService.patchCustomer("1", changes, null))
+                .expectNext(customer)
+                .verifyComplete();
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(customerRepository).findAndModifyById(eq("1"), isNull(), update.capture(), any(), any());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(2, set.size());
+        assertEquals("new@example.com", set.get("email"));
+        assertTrue(set.containsKey("modifiedAt"));
+    }
+    @Test
+    void updateCustomer_VersionConflict() {
+        when(customerRepository.findAndModifyById(eq("1"), eq(2L), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.empty());
+        when(customerRepository.existsById("1"))
+                .thenReturn(Mono.just(true));
+        StepVerifier.create(customerService.updateCustomer("1", customer, 2L))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+        verify(eventProducer, never()).publishCacheInvalidation(any(Customer.class));
+    }
+    @Test
+    void deleteCustomer_VersionedButMissing() {
+        when(customerRepository.findAndModifyById(eq("1"), eq(2L), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.empty());
+        when(customerRepository.existsById("1"))
+                .thenReturn(Mono.just(false));
+        StepVerifier.create(customerService.deleteCustomer("1", 2L))
+                .verifyComplete();
+    }
+    @Test
+    void patchCustomer_NothingToUpdate() {
+        StepVerifier.create(customerService.patchCustomer("1", new Customer(), null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(customerRepository);
     }
     @Test
     void updateVipPymStatus_PersonalCustomer_Success() {
@@ -125,15 +453,13 @@ class CustomerServiceTest {
                 .status(customer.getStatus())
                 .isVip(true)
                 .build();
-        when(customerRepository.findById("1"))
-                .thenReturn(Mono.just(customer));
-        when(customerRepository.save(any(Customer.class)))
-                .thenReturn(Mono.just(vipCustomer));
-        StepVerifier.create(customerService.updateVipPymStatus("1", true))
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, vipCustomer)));
+        StepVerifier.create(customerService.updateVipPymStatus("1", true, null))
                 .expectNext(vipCustomer)
                 .verifyComplete();
-        verify(customerRepository).findById("1");
-        verify(customerRepository).save(any(Customer.class));
+        verify(customerRepository).findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any());
+        verify(customerRepository, never()).findById("1");
     }
     @Test
     void updateVipPymStatus_BusinessCustomer_Success() {
@@ -158,15 +484,21 @@ class CustomerServiceTest {
                 .status(businessCustomer.getStatus())
                 .isPym(true)
                 .build();
-        when(customerRepository.findById("1"))
-                .thenReturn(Mono.just(businessCustomer));
-        when(customerRepository.save(any(Customer.class)))
-                .thenReturn(Mono.just(pymCustomer));
-        StepVerifier.create(customerService.updateVipPymStatus("1", true))
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, pymCustomer)));
+        StepVerifier.create(customerService.updateVipPymStatus("1", true, null))
                 .expectNext(pymCustomer)
                 .verifyComplete();
-        verify(customerRepository).findById("1");
-        verify(customerRepository).save(any(Customer.class));
+        ArgumentCaptor<UnaryOperator<Customer>> applied = ArgumentCaptor.forClass(UnaryOperator.class);
+        ArgumentCaptor<Function<Customer, OutboxEvent>> event = ArgumentCaptor.forClass(Function.class);
+        verify(customerRepository).findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class),
+                applied.capture(), event.capture());
+        assertEquals("customer-vip-pym-changed", event.getValue().apply(pymCustomer).getTopic());
+        Customer after = applied.getValue().apply(businessCustomer.toBuilder().build());
+        assertTrue(after.isPym());
+        assertFalse(after.isVip());
+        assertEquals(1L, after.getVersion());
+        verify(customerRepository, never()).findById("1");
     }
     @Test
     void deleteCustomer_Success() {
@@ -181,14 +513,114 @@ class CustomerServiceTest {
                 .modifiedAt(LocalDateTime.now())
                 .status("DELETED")
                 .build();
-        when(customerRepository.findById("1"))
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, deletedCustomer)));
+        StepVerifier.create(customerService.deleteCustomer("1", null))
+                .expectNext(deletedCustomer)
+                .verifyComplete();
+        verify(eventProducer).publishCacheInvalidation(deletedCustomer);
+        ArgumentCaptor<Function<Customer, OutboxEvent>> event = ArgumentCaptor.forClass(Function.class);
+        verify(customerRepository).findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(),
+                event.capture());
+        assertEquals("customer-deleted", event.getValue().apply(deletedCustomer).getTopic());
+        verify(customerRepository, never()).findById("1");
+    }
+    @Test
+    void createCustomer_CountedInStats() {
+        when(customerRepository.insertWithEvent(any(Customer.class), any()))
                 .thenReturn(Mono.just(customer));
-        when(customerRepository.save(any(Customer.class)))
-                .thenReturn(Mono.just(deletedCustomer));
-        StepVerifier.create(customerService.deleteCustomer("1"))
+        StepVerifier.create(customerService.createCustomer(customer))
+                .expectNext(customer)
+                .verifyComplete();
+        StepVerifier.create(customerService.getCustomerStats())
+                .assertNext(stats -> {
+                    assertEquals(1L, stats.getTotal());
+                    assertEquals(1L, stats.getByStatus().get("ACTIVE"));
+                    assertEquals(1L, stats.getByType().get("PERSONAL"));
+                })
+                .verifyComplete();
+    }
+    @Test
+    void deleteCustomer_MovesStatsFromThePreImage() {
+        statistics.recordCreated(customer);
+        // A stale cached copy must not be taken for the state the update started from
+        customerCache.refresh(Customer.builder()
+                .id(customer.getId())
+                .documentNumber(customer.getDocumentNumber())
+                .customerType(CustomerType.BUSINESS)
+                .status("ACTIVE")
+                .build());
+        statistics.consumeStale();
+        Customer deletedCustomer = Customer.builder()
+                .id(customer.getId())
+                .documentNumber(customer.getDocumentNumber())
+                .customerType(customer.getCustomerType())
+                .status("DELETED")
+                .build();
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(customer, deletedCustomer)));
+        StepVerifier.create(customerService.deleteCustomer("1", null))
                 .expectNext(deletedCustomer)
                 .verifyComplete();
-        verify(customerRepository).findById("1");
-        verify(customerRepository).save(any(Customer.class));
+        StepVerifier.create(customerService.getCustomerStats())
+                .assertNext(stats -> {
+                    assertEquals(1L, stats.getTotal());
+                    assertEquals(0L, stats.getByStatus().get("ACTIVE"));
+                    assertEquals(1L, stats.getByStatus().get("DELETED"));
+                    assertEquals(0L, stats.getByType().get("PERSONAL"));
+                })
+                .verifyComplete();
+        assertFalse(statistics.consumeStale());
+    }
+    @Test
+    void deleteCustomer_UnknownPreImageMarksStatsStale() {
+        statistics.consumeStale();
+        when(customerRepository.findAndModifyById(eq("1"), isNull(), any(UpdateDefinition.class), any(), any()))
+                .thenReturn(Mono.just(new CustomerChange(null, customer)));
+        StepVerifier.create(customerService.deleteCustomer("1", null))
+                .expectNext(customer)
+                .verifyComplete();
+        assertTrue(statistics.consumeStale());
+    }
+    @Test
+    void searchCustomers_ReturnsIndexedCustomersInRankOrder() {
+        Customer johanna = Customer.builder()
+                .id("2")
+                .fullName("Johanna Smith")
+                .status("ACTIVE")
+                .build();
+        searchIndex.put(customer);
+        searchIndex.put(johanna);
+        customerCache.refresh(johanna);
+        when(customerRepository.findAllById(anyIterable())).thenReturn(Flux.just(customer));
+        StepVerifier.create(customerService.searchCustomers("joh", 10))
+                .expectNext(List.of(johanna, customer))
+                .verifyComplete();
+        verify(customerRepository).findAllById(Collections.singleton("1"));
+    }
+    @Test
+    void searchCustomers_InvalidLimit() {
+        StepVerifier.create(customerService.searchCustomers("john", CustomerService.MAX_SEARCH_RESULTS + 1))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(customerRepository);
+    }
+    @Test
+    void getCustomerById_ConcurrentBurstQueriesOnce() {
+        when(customerRepository.findById("1")).thenReturn(Mono.just(customer).delayElement(Duration.ofMillis(50)));
+        StepVerifier.create(Flux.range(0, 200).flatMap(i -> customerService.getCustomerById("1", false)))
+                .expectNextCount(200)
+                .verifyComplete();
+        verify(customerRepository, times(1)).findById("1");
+    }
+    @Test
+    void getCustomerByDocumentNumber_ConcurrentBurstQueriesOnce() {
+        when(customerRepository.findByDocumentNumber("DOC123"))
+                .thenReturn(Mono.just(customer).delayElement(Duration.ofMillis(50)));
+        StepVerifier.create(Flux.range(0, 200)
+                        .flatMap(i -> customerService.getCustomerByDocumentNumber("DOC123", false)))
+                .expectNextCount(200)
+                .verifyComplete();
+        verify(customerRepository, times(1)).findByDocumentNumber("DOC123");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package com.bank.customerservice.service;
+import com.bank.customerservice.dto.CustomerStats;
+import com.bank.customerservice.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+@ExtendWith(MockitoExtension.class)
+class CustomerStatsReconcilerTest {
+    @Mock
+    private CustomerRepository customerRepository;
+    private CustomerStatistics statistics;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerStatsReconciler reconciler;
+    @BeforeEach
+    void setUp() {
+        statistics = new CustomerStatistics();
+        meterRegistry = new SimpleMeterRegistry();
+        reconciler = new CustomerStatsReconciler(customerRepository, statistics, meterRegistry,
+                Duration.ofMinutes(5), Duration.ofSeconds(10), true);
+    }
+    @Test
+    void reconcileIfDue_ResetsCountsWhenNeverReconciled() {
+        when(customerRepository.aggregateStats()).thenReturn(Mono.just(counted(LocalDateTime.now())));
+        StepVerifier.create(reconciler.reconcileIfDue())
+                .expectNextCount(1)
+                .verifyComplete();
+        CustomerStats stats = statistics.snapshot();
+        assertEquals(4L, stats.getTotal());
+        assertEquals(3L, stats.getByType().get("BUSINESS"));
+        assertEquals(1L, meterRegistry.timer("customer.stats.reconcile").count());
+    }
+    @Test
+    void reconcileIfDue_SkipsFreshCounts() {
+        statistics.consumeStale();
+        statistics.reset(counted(LocalDateTime.now()));
+        StepVerifier.create(reconciler.reconcileIfDue())
+                .verifyComplete();
+        verify(customerRepository, never()).aggregateStats();
+    }
+    @Test
+    void reconcileIfDue_ResetsStaleCounts() {
+        statistics.consumeStale();
+        statistics.reset(counted(LocalDateTime.now()));
+        statistics.recordChanged(null, null);
+        when(customerRepository.aggregateStats()).thenReturn(Mono.just(counted(LocalDateTime.now())));
+        StepVerifier.create(reconciler.reconcileIfDue())
+                .expectNextCount(1)
+                .verifyComplete();
+        verify(customerRepository).aggregateStats();
+    }
+    private static CustomerStats counted(LocalDateTime reconciledAt) {
+        return CustomerStats.builder()
+                .byStatus(Map.of("ACTIVE", 3L, "DELETED", 1L))
+                .byType(Map.of("BUSINESS", 3L))
+                .vipCount(1)
+                .reconciledAt(reconciledAt)
+                .build();
+    }
+}